@@ -1,15 +1,15 @@
 import com.github.spotbugs.snom.Confidence
 import com.github.spotbugs.snom.Effort
+import com.github.spotbugs.snom.SpotBugsExtension
+import com.github.spotbugs.snom.SpotBugsTask
+import me.champeau.jmh.JmhParameters
 import org.cthing.projectversion.BuildType
 import org.cthing.projectversion.ProjectVersion
+import org.graalvm.buildtools.gradle.dsl.GraalVMExtension
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
 
-repositories {
-    mavenCentral()
-}
-
 buildscript {
     repositories {
         mavenCentral()
@@ -17,64 +17,23 @@ buildscript {
 }
 
 plugins {
-    `java-library`
-    checkstyle
-    jacoco
-    `maven-publish`
-    signing
-    alias(libs.plugins.cthingVersioning)
+    alias(libs.plugins.cthingVersioning) apply false
     alias(libs.plugins.dependencyAnalysis)
-    alias(libs.plugins.spotbugs)
+    alias(libs.plugins.graalvmNative) apply false
+    alias(libs.plugins.jmh) apply false
+    alias(libs.plugins.spotbugs) apply false
     alias(libs.plugins.versions)
 }
 
-version = ProjectVersion("4.0.1", BuildType.snapshot)
-group = "org.cthing"
-description = "A simple yet highly configurable XML writing library."
-
-java {
-    toolchain {
-        languageVersion = JavaLanguageVersion.of(libs.versions.java.get())
-    }
-}
-
-dependencies {
-    api(libs.jspecify)
-
-    implementation(libs.escapers)
-
-    compileOnly(libs.cthingAnnots)
-
-    testImplementation(libs.junitApi)
-    testImplementation(libs.junitParams)
-    testImplementation(libs.assertJ)
-
-    testCompileOnly(libs.apiGuardian)
-
-    testRuntimeOnly(libs.junitEngine)
-    testRuntimeOnly(libs.junitLauncher)
-
-    spotbugsPlugins(libs.spotbugsContrib)
-}
-
-checkstyle {
-    toolVersion = libs.versions.checkstyle.get()
-    isIgnoreFailures = false
-    configFile = file("dev/checkstyle/checkstyle.xml")
-    configDirectory = file("dev/checkstyle")
-    isShowViolations = true
-}
+val projectVersion = ProjectVersion("4.0.1", BuildType.snapshot)
 
-spotbugs {
-    toolVersion = libs.versions.spotbugs
-    ignoreFailures = false
-    effort = Effort.MAX
-    reportLevel = Confidence.MEDIUM
-    excludeFilter = file("dev/spotbugs/suppressions.xml")
-}
+allprojects {
+    version = projectVersion
+    group = "org.cthing"
 
-jacoco {
-    toolVersion = libs.versions.jacoco.get()
+    repositories {
+        mavenCentral()
+    }
 }
 
 dependencyAnalysis {
@@ -95,139 +54,221 @@ fun isNonStable(version: String): Boolean {
 }
 
 tasks {
-    withType<JavaCompile> {
-        options.release = libs.versions.java.get().toInt()
-        options.compilerArgs.addAll(listOf("-Xlint:all", "-Xlint:-options", "-Werror"))
-    }
+    dependencyUpdates {
+        revision = "release"
+        gradleReleaseChannel = "current"
+        outputFormatter = "plain,xml,html"
+        outputDir = layout.buildDirectory.dir("reports/dependencyUpdates").get().asFile.absolutePath
 
-    withType<Jar> {
-        manifest.attributes(mapOf("Implementation-Title" to project.name,
-                                  "Implementation-Vendor" to "C Thing Software",
-                                  "Implementation-Version" to project.version))
+        rejectVersionIf {
+            isNonStable(candidate.version)
+        }
     }
+}
 
-    withType<Javadoc> {
-        val year = SimpleDateFormat("yyyy", Locale.ENGLISH).format(Date())
-        with(options as StandardJavadocDocletOptions) {
-            breakIterator(false)
-            encoding("UTF-8")
-            bottom("Copyright &copy; $year C Thing Software")
-            addStringOption("Werror", "-quiet")
-            memberLevel = JavadocMemberLevel.PUBLIC
-            outputLevel = JavadocOutputLevel.QUIET
+subprojects {
+    apply(plugin = "java-library")
+    apply(plugin = "checkstyle")
+    apply(plugin = "jacoco")
+    apply(plugin = "maven-publish")
+    apply(plugin = "signing")
+    apply(plugin = "org.cthing.cthing-versioning")
+    apply(plugin = "com.autonomousapps.dependency-analysis")
+    apply(plugin = "me.champeau.jmh")
+    apply(plugin = "com.github.spotbugs")
+    apply(plugin = "org.graalvm.buildtools.native")
+
+    configure<JavaPluginExtension> {
+        toolchain {
+            languageVersion = JavaLanguageVersion.of(libs.versions.java.get())
         }
     }
 
-    check {
-        dependsOn(buildHealth)
+    dependencies {
+        "api"(libs.jspecify)
+
+        "compileOnly"(libs.cthingAnnots)
+
+        "testImplementation"(libs.junitApi)
+        "testImplementation"(libs.junitParams)
+        "testImplementation"(libs.assertJ)
+
+        "testCompileOnly"(libs.apiGuardian)
+
+        "testRuntimeOnly"(libs.junitEngine)
+        "testRuntimeOnly"(libs.junitLauncher)
+
+        "spotbugsPlugins"(libs.spotbugsContrib)
     }
 
-    spotbugsMain {
-        reports.create("html").required = true
+    configure<CheckstyleExtension> {
+        toolVersion = libs.versions.checkstyle.get()
+        isIgnoreFailures = false
+        configFile = rootProject.file("dev/checkstyle/checkstyle.xml")
+        configDirectory = rootProject.file("dev/checkstyle")
+        isShowViolations = true
     }
 
-    spotbugsTest {
-        isEnabled = false
+    configure<SpotBugsExtension> {
+        toolVersion = libs.versions.spotbugs
+        ignoreFailures = false
+        effort = Effort.MAX
+        reportLevel = Confidence.MEDIUM
+        excludeFilter = rootProject.file("dev/spotbugs/suppressions.xml")
     }
 
-    withType<JacocoReport> {
-        dependsOn("test")
-        with(reports) {
-            xml.required = false
-            csv.required = false
-            html.required = true
-            html.outputLocation = layout.buildDirectory.dir("reports/jacoco")
-        }
+    configure<JacocoPluginExtension> {
+        toolVersion = libs.versions.jacoco.get()
     }
 
-    withType<Test> {
-        useJUnitPlatform()
+    configure<JmhParameters> {
+        jmhVersion = libs.versions.jmh.get()
     }
 
-    withType<GenerateModuleMetadata> {
-        enabled = false
+    configure<GraalVMExtension> {
+        toolchainDetection = false
+        metadataRepository {
+            enabled = false
+        }
+        binaries {
+            named("test") {
+                buildArgs.add("--no-fallback")
+            }
+        }
     }
 
-    dependencyUpdates {
-        revision = "release"
-        gradleReleaseChannel = "current"
-        outputFormatter = "plain,xml,html"
-        outputDir = layout.buildDirectory.dir("reports/dependencyUpdates").get().asFile.absolutePath
+    tasks {
+        withType<JavaCompile> {
+            options.release = libs.versions.java.get().toInt()
+            options.compilerArgs.addAll(listOf("-Xlint:all", "-Xlint:-options", "-Werror"))
+        }
 
-        rejectVersionIf {
-            isNonStable(candidate.version)
+        withType<Jar> {
+            manifest.attributes(mapOf("Implementation-Title" to project.name,
+                                      "Implementation-Vendor" to "C Thing Software",
+                                      "Implementation-Version" to project.version))
+        }
+
+        withType<Javadoc> {
+            val year = SimpleDateFormat("yyyy", Locale.ENGLISH).format(Date())
+            with(options as StandardJavadocDocletOptions) {
+                breakIterator(false)
+                encoding("UTF-8")
+                bottom("Copyright &copy; $year C Thing Software")
+                addStringOption("Werror", "-quiet")
+                memberLevel = JavadocMemberLevel.PUBLIC
+                outputLevel = JavadocOutputLevel.QUIET
+            }
+        }
+
+        named("check") {
+            dependsOn(rootProject.tasks.named("buildHealth"))
+        }
+
+        named<SpotBugsTask>("spotbugsMain") {
+            reports.create("html").required = true
+        }
+
+        named<SpotBugsTask>("spotbugsTest") {
+            isEnabled = false
+        }
+
+        named<SpotBugsTask>("spotbugsJmh") {
+            isEnabled = false
+        }
+
+        withType<JacocoReport> {
+            dependsOn("test")
+            with(reports) {
+                xml.required = false
+                csv.required = false
+                html.required = true
+                html.outputLocation = layout.buildDirectory.dir("reports/jacoco")
+            }
+        }
+
+        withType<Test> {
+            useJUnitPlatform()
+        }
+
+        named<Test>("test") {
+            jvmArgs("--add-modules", "jdk.incubator.vector")
+        }
+
+        withType<GenerateModuleMetadata> {
+            enabled = false
         }
     }
-}
 
-val sourceJar by tasks.registering(Jar::class) {
-    from(project.sourceSets["main"].allSource)
-    archiveClassifier = "sources"
-}
+    val sourceJar by tasks.registering(Jar::class) {
+        from(project.the<SourceSetContainer>()["main"].allSource)
+        archiveClassifier = "sources"
+    }
 
-val javadocJar by tasks.registering(Jar::class) {
-    from(tasks.getByName("javadoc"))
-    archiveClassifier = "javadoc"
-}
+    val javadocJar by tasks.registering(Jar::class) {
+        from(tasks.getByName("javadoc"))
+        archiveClassifier = "javadoc"
+    }
 
-publishing {
-    publications {
-        register("jar", MavenPublication::class) {
-            from(components["java"])
-
-            artifact(sourceJar)
-            artifact(javadocJar)
-
-            pom {
-                name = project.name
-                description = project.description
-                url = "https://github.com/cthing/${project.name}"
-                licenses {
-                    license {
-                        name = "Apache-2.0"
-                        url = "https://www.apache.org/licenses/LICENSE-2.0"
+    configure<PublishingExtension> {
+        publications {
+            register("jar", MavenPublication::class) {
+                from(components["java"])
+
+                artifact(sourceJar)
+                artifact(javadocJar)
+
+                pom {
+                    name = project.name
+                    description = project.description
+                    url = "https://github.com/cthing/${rootProject.name}"
+                    licenses {
+                        license {
+                            name = "Apache-2.0"
+                            url = "https://www.apache.org/licenses/LICENSE-2.0"
+                        }
                     }
-                }
-                developers {
-                    developer {
-                        id = "baron"
-                        name = "Baron Roberts"
-                        email = "baron@cthing.com"
-                        organization = "C Thing Software"
-                        organizationUrl = "https://www.cthing.com"
+                    developers {
+                        developer {
+                            id = "baron"
+                            name = "Baron Roberts"
+                            email = "baron@cthing.com"
+                            organization = "C Thing Software"
+                            organizationUrl = "https://www.cthing.com"
+                        }
+                    }
+                    scm {
+                        connection = "scm:git:https://github.com/cthing/${rootProject.name}.git"
+                        developerConnection = "scm:git:git@github.com:cthing/${rootProject.name}.git"
+                        url = "https://github.com/cthing/${rootProject.name}"
+                    }
+                    issueManagement {
+                        system = "GitHub Issues"
+                        url = "https://github.com/cthing/${rootProject.name}/issues"
                     }
-                }
-                scm {
-                    connection = "scm:git:https://github.com/cthing/${project.name}.git"
-                    developerConnection = "scm:git:git@github.com:cthing/${project.name}.git"
-                    url = "https://github.com/cthing/${project.name}"
-                }
-                issueManagement {
-                    system = "GitHub Issues"
-                    url = "https://github.com/cthing/${project.name}/issues"
                 }
             }
         }
-    }
 
-    val repoUrl = if ((version as ProjectVersion).isSnapshotBuild)
-        findProperty("cthing.nexus.snapshotsUrl") else findProperty("cthing.nexus.candidatesUrl")
-    if (repoUrl != null) {
-        repositories {
-            maven {
-                name = "CThingMaven"
-                setUrl(repoUrl)
-                credentials {
-                    username = property("cthing.nexus.user") as String
-                    password = property("cthing.nexus.password") as String
+        val repoUrl = if (projectVersion.isSnapshotBuild)
+            findProperty("cthing.nexus.snapshotsUrl") else findProperty("cthing.nexus.candidatesUrl")
+        if (repoUrl != null) {
+            repositories {
+                maven {
+                    name = "CThingMaven"
+                    setUrl(repoUrl)
+                    credentials {
+                        username = property("cthing.nexus.user") as String
+                        password = property("cthing.nexus.password") as String
+                    }
                 }
             }
         }
     }
-}
 
-if (hasProperty("signing.keyId") && hasProperty("signing.password") && hasProperty("signing.secretKeyRingFile")) {
-    signing {
-        sign(publishing.publications["jar"])
+    if (hasProperty("signing.keyId") && hasProperty("signing.password") && hasProperty("signing.secretKeyRingFile")) {
+        configure<SigningExtension> {
+            sign(the<PublishingExtension>().publications["jar"])
+        }
     }
 }
@@ -3,3 +3,5 @@ rootProject.name = "xmlwriter"
 plugins {
     id("org.gradle.toolchains.foojay-resolver-convention") version ("0.9.0")
 }
+
+include("xmlwriter-core", "xmlwriter-sax")
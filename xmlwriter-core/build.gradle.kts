@@ -0,0 +1,46 @@
+description = "Writes XML without a dependency on SAX or the java.xml module."
+
+val sourceSets = the<SourceSetContainer>()
+val main by sourceSets.getting
+val vector by sourceSets.creating {
+    compileClasspath += main.output + main.compileClasspath
+}
+
+sourceSets.named("test") {
+    runtimeClasspath += vector.output
+}
+
+tasks {
+    named<JavaCompile>(vector.compileJavaTaskName) {
+        // Using an incubating module always produces a warning, so warnings cannot be treated as errors.
+        options.compilerArgs = listOf("-Xlint:all", "-Xlint:-options", "--add-modules", "jdk.incubator.vector")
+    }
+
+    named<Jar>("jar") {
+        from(vector.output)
+    }
+
+    named<Jar>("sourceJar") {
+        from(vector.allSource)
+    }
+
+    named<Test>("test") {
+        useJUnitPlatform {
+            excludeTags("scalar")
+        }
+    }
+
+    // The Vector API module is not resolved unless requested, so the tests are also run without it to verify the
+    // scalar fallback used by most applications.
+    val scalarTest by registering(Test::class) {
+        description = "Runs the tests without the Vector API module."
+        group = "verification"
+        testClassesDirs = sourceSets["test"].output.classesDirs
+        classpath = sourceSets["test"].runtimeClasspath
+        shouldRunAfter("test")
+    }
+
+    named("check") {
+        dependsOn(scalarTest)
+    }
+}
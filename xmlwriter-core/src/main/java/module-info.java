@@ -0,0 +1,14 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+/**
+ * Writes XML without a dependency on SAX or the {@code java.xml} module.
+ */
+module org.cthing.xmlwriter.core {
+    requires static org.cthing.annotations;
+    requires static transitive org.jspecify;
+
+    exports org.cthing.xmlwriter.core;
+}
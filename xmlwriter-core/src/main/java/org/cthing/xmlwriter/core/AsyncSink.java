@@ -0,0 +1,252 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Writes output to a destination using a background thread so that the thread generating the XML does not block
+ * on I/O. The sink uses two buffers. Output is written into one buffer while the other buffer is written to the
+ * destination by a dedicated I/O thread. When the buffer being filled is full, the buffers are swapped. The thread
+ * generating the XML only waits if it fills a buffer before the I/O thread has finished writing the other buffer.
+ *
+ * <p>To use the sink, pass it to the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter
+ * constructor} or the {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. Calling
+ * {@link XmlStreamEmitter#flush() flush} or {@link XmlStreamEmitter#endDocument() endDocument} waits for all output to
+ * be written to the destination. If the I/O thread fails to write the output, the error is reported by the next emitter
+ * method that writes or flushes output, so that output which would be lost is not buffered. Once an error has
+ * occurred, all subsequent attempts to write or flush the output report the error.</p>
+ *
+ * <p>The I/O thread is started when it is first needed and terminates after being idle for a short time. Call
+ * {@link #close() close} to release the thread immediately and close the destination.</p>
+ */
+public final class AsyncSink extends OutputSink {
+
+    /** Number of seconds the I/O thread may be idle before it terminates. */
+    private static final long IDLE_TIMEOUT = 10;
+
+    private final Writer out;
+    private final ThreadPoolExecutor executor;
+
+    /** Buffer being filled by the thread generating the XML. */
+    private char[] buffer;
+
+    /** Buffer being written by the I/O thread, or available for swapping. */
+    private char[] spare;
+
+    /** Number of characters in the buffer being filled. */
+    private int count;
+
+    /** Write of the spare buffer in progress on the I/O thread, if any. */
+    @Nullable
+    private Future<?> pending;
+
+    /** Error that occurred writing the output, if any. Set by the I/O thread when a write fails. */
+    @Nullable
+    private volatile IOException failure;
+
+    /**
+     * Creates a sink that writes to the specified writer using the default buffer size.
+     *
+     * @param writer Destination for the output
+     */
+    public AsyncSink(final Writer writer) {
+        this(writer, DEF_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a sink that writes to the specified writer.
+     *
+     * @param writer Destination for the output
+     * @param bufferSize Size of each of the two buffers in characters. Must be at least 4.
+     */
+    public AsyncSink(final Writer writer, final int bufferSize) {
+        this.out = writer;
+        this.buffer = new char[checkBufferSize(bufferSize)];
+        this.spare = new char[bufferSize];
+        this.executor = new ThreadPoolExecutor(1, 1, IDLE_TIMEOUT, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                                               runnable -> {
+                                                   final Thread thread = new Thread(runnable, "xmlwriter-async");
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates a sink that writes UTF-8 encoded output to the specified stream using the default buffer size. The
+     * output is encoded on the I/O thread.
+     *
+     * @param stream Destination for the output
+     */
+    public AsyncSink(final OutputStream stream) {
+        this(new StreamSink(stream, DEF_BUFFER_SIZE), DEF_BUFFER_SIZE);
+    }
+
+    @Override
+    void setBufferSize(final int size) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(checkBufferSize(size), this.count));
+        // The spare buffer may be in use by the I/O thread, so it is replaced rather than copied.
+        this.spare = new char[size];
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        checkFailure();
+        if (this.count == this.buffer.length) {
+            swapBuffers();
+        }
+        this.buffer[this.count++] = (char)c;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        checkFailure();
+        int start = off;
+        final int end = off + len;
+        while (start < end) {
+            if (this.count == this.buffer.length) {
+                swapBuffers();
+            }
+            final int n = Math.min(end - start, this.buffer.length - this.count);
+            System.arraycopy(cbuf, start, this.buffer, this.count, n);
+            this.count += n;
+            start += n;
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        checkFailure();
+        int start = off;
+        final int end = off + len;
+        while (start < end) {
+            if (this.count == this.buffer.length) {
+                swapBuffers();
+            }
+            final int n = Math.min(end - start, this.buffer.length - this.count);
+            str.getChars(start, start + n, this.buffer, this.count);
+            this.count += n;
+            start += n;
+        }
+    }
+
+    /**
+     * Waits for the I/O thread to finish writing, then writes any remaining output and flushes the destination.
+     *
+     * @throws IOException If there was a problem writing the output.
+     */
+    @Override
+    public void flush() throws IOException {
+        awaitPending();
+        if (this.count > 0) {
+            this.out.write(this.buffer, 0, this.count);
+            this.count = 0;
+        }
+        this.out.flush();
+    }
+
+    @Override
+    void finish() throws IOException {
+        flush();
+        if (this.out instanceof final OutputSink outputSink) {
+            outputSink.finish();
+        }
+    }
+
+    /**
+     * Flushes the output, stops the I/O thread and closes the destination.
+     *
+     * @throws IOException If there was a problem writing the output or closing the destination.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.executor.shutdown();
+        }
+        this.out.close();
+    }
+
+    /**
+     * Hands the full buffer to the I/O thread for writing and makes the spare buffer available for output. If the
+     * I/O thread is still writing the spare buffer, this method waits for it to finish.
+     *
+     * @throws IOException If there was a problem writing the previous buffer.
+     */
+    private void swapBuffers() throws IOException {
+        awaitPending();
+
+        final char[] full = this.buffer;
+        final int length = this.count;
+        this.buffer = this.spare;
+        this.spare = full;
+        this.count = 0;
+
+        this.pending = this.executor.submit(() -> {
+            try {
+                this.out.write(full, 0, length);
+            } catch (final IOException ex) {
+                this.failure = ex;
+                throw ex;
+            } catch (final RuntimeException ex) {
+                this.failure = new IOException(ex);
+                throw ex;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reports an error that occurred writing the output on the I/O thread.
+     *
+     * @throws IOException If an error has occurred.
+     */
+    private void checkFailure() throws IOException {
+        final IOException ex = this.failure;
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits for the I/O thread to finish writing the spare buffer.
+     *
+     * @throws IOException If there was a problem writing the buffer, or a previous error has occurred.
+     */
+    private void awaitPending() throws IOException {
+        checkFailure();
+
+        final Future<?> future = this.pending;
+        if (future != null) {
+            this.pending = null;
+            try {
+                future.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for output to be written");
+            } catch (final ExecutionException ex) {
+                checkFailure();
+                final Throwable cause = ex.getCause();
+                final IOException failed = (cause instanceof final IOException ioex) ? ioex : new IOException(cause);
+                this.failure = failed;
+                throw failed;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.util.Arrays;
+
+
+/**
+ * Hash set of attribute names used to detect duplicate attributes when attributes are written as soon as they are
+ * added. Only the names are held, by reference, so that attribute values can be released as soon as they have been
+ * written. The name hashes are compared first, and names are only compared when their hashes match. The storage is
+ * retained and reused when the set is cleared.
+ */
+final class AttributeNameSet {
+
+    private static final int INIT_CAP = 8;
+
+    /** Open addressed hash table holding the index of each name plus one, or zero for an empty slot. */
+    private int[] table;
+    private int[] hashes;
+    private String[] uris;
+    private String[] names;
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    AttributeNameSet() {
+        this.table = new int[INIT_CAP * 2];
+        this.hashes = new int[INIT_CAP];
+        this.uris = new String[INIT_CAP];
+        this.names = new String[INIT_CAP];
+    }
+
+    /**
+     * Provides the number of names in the set.
+     *
+     * @return Number of names in the set.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes all names from the set.
+     */
+    void clear() {
+        if (this.size > 0) {
+            Arrays.fill(this.table, 0);
+            Arrays.fill(this.uris, 0, this.size, null);
+            Arrays.fill(this.names, 0, this.size, null);
+            this.size = 0;
+        }
+    }
+
+    /**
+     * Adds the specified attribute name to the set.
+     *
+     * @param uri Namespace URI of the attribute
+     * @param name Local name of the attribute, or its qualified name if it does not have a local name
+     * @return {@code true} if the name was added, {@code false} if the set already contains the name.
+     */
+    boolean add(final String uri, final String name) {
+        final int hash = hash(uri, name);
+        final int mask = this.table.length - 1;
+
+        int slot = hash & mask;
+        while (this.table[slot] != 0) {
+            final int index = this.table[slot] - 1;
+            if (this.hashes[index] == hash && this.names[index].equals(name) && this.uris[index].equals(uri)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (this.size == this.hashes.length) {
+            grow();
+            return add(uri, name);
+        }
+
+        this.hashes[this.size] = hash;
+        this.uris[this.size] = uri;
+        this.names[this.size] = name;
+        this.size++;
+        this.table[slot] = this.size;
+        return true;
+    }
+
+    /**
+     * Doubles the capacity of the set and rebuilds the hash table.
+     */
+    private void grow() {
+        final int capacity = this.hashes.length * 2;
+        this.hashes = Arrays.copyOf(this.hashes, capacity);
+        this.uris = Arrays.copyOf(this.uris, capacity);
+        this.names = Arrays.copyOf(this.names, capacity);
+        this.table = new int[capacity * 2];
+
+        final int mask = this.table.length - 1;
+        for (int i = 0; i < this.size; i++) {
+            int slot = this.hashes[i] & mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Computes the hash of an attribute name, spreading the bits so that they can be used to index the table.
+     *
+     * @param uri Namespace URI of the attribute
+     * @param name Name of the attribute
+     * @return Hash of the name.
+     */
+    private static int hash(final String uri, final String name) {
+        final int h = 31 * uri.hashCode() + name.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
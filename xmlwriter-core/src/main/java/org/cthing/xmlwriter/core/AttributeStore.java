@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.util.Arrays;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Compact storage for the attributes of an element. Each attribute property is held in its own array, and the
+ * arrays are retained and reused when the store is cleared. The array of precompiled {@link XmlName names} is only
+ * allocated once an attribute is added using one. The store does not depend on SAX. Attribute types, and whether
+ * an attribute was specified, are dealt with by the SAX adapter before attributes are added to the emitter.
+ */
+final class AttributeStore {
+
+    private static final int INIT_CAP = 4;
+
+    private String[] uris;
+    private String[] localNames;
+    private String[] qNames;
+    private String[] values;
+    private @Nullable XmlName @Nullable [] names;
+    private int length;
+
+    /**
+     * Creates an empty attribute store.
+     */
+    AttributeStore() {
+        this.uris = new String[INIT_CAP];
+        this.localNames = new String[INIT_CAP];
+        this.qNames = new String[INIT_CAP];
+        this.values = new String[INIT_CAP];
+    }
+
+    /**
+     * Removes all attributes from the store. The storage is retained for reuse.
+     */
+    void clear() {
+        Arrays.fill(this.uris, 0, this.length, null);
+        Arrays.fill(this.localNames, 0, this.length, null);
+        Arrays.fill(this.qNames, 0, this.length, null);
+        Arrays.fill(this.values, 0, this.length, null);
+        if (this.names != null) {
+            Arrays.fill(this.names, 0, this.length, null);
+        }
+        this.length = 0;
+    }
+
+    /**
+     * Adds an attribute to the store.
+     *
+     * @param uri The attribute's namespace URI
+     * @param localName The attribute's local name
+     * @param qName The attribute's qualified name
+     * @param value The attribute's value
+     */
+    void addAttribute(final String uri, final String localName, final String qName, final String value) {
+        if (this.length == this.uris.length) {
+            grow();
+        }
+
+        final int i = this.length++;
+        this.uris[i] = uri;
+        this.localNames[i] = localName;
+        this.qNames[i] = qName;
+        this.values[i] = value;
+    }
+
+    /**
+     * Adds an attribute with a precompiled name to the store.
+     *
+     * @param name The attribute's name
+     * @param value The attribute's value
+     */
+    void addAttribute(final XmlName name, final String value) {
+        addAttribute(name.getUri(), name.getLocalName(), name.getQName(), value);
+        if (this.names == null) {
+            this.names = new XmlName[this.uris.length];
+        }
+        this.names[this.length - 1] = name;
+    }
+
+    /**
+     * Provides the precompiled name of the specified attribute, if it was added using one.
+     *
+     * @param index Index of the attribute
+     * @return Precompiled name of the attribute, or {@code null} if the attribute was not added using a
+     *      precompiled name.
+     */
+    @Nullable
+    XmlName getName(final int index) {
+        return (this.names == null) ? null : this.names[index];
+    }
+
+    /**
+     * Provides the number of attributes in the store.
+     *
+     * @return Number of attributes.
+     */
+    int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Provides the namespace URI of the specified attribute.
+     *
+     * @param index Index of the attribute
+     * @return Namespace URI of the attribute, or {@code null} if there is no attribute at the index.
+     */
+    @Nullable
+    String getURI(final int index) {
+        return inRange(index) ? this.uris[index] : null;
+    }
+
+    /**
+     * Provides the local name of the specified attribute.
+     *
+     * @param index Index of the attribute
+     * @return Local name of the attribute, or {@code null} if there is no attribute at the index.
+     */
+    @Nullable
+    String getLocalName(final int index) {
+        return inRange(index) ? this.localNames[index] : null;
+    }
+
+    /**
+     * Provides the qualified name of the specified attribute.
+     *
+     * @param index Index of the attribute
+     * @return Qualified name of the attribute, or {@code null} if there is no attribute at the index.
+     */
+    @Nullable
+    String getQName(final int index) {
+        return inRange(index) ? this.qNames[index] : null;
+    }
+
+    /**
+     * Provides the value of the specified attribute.
+     *
+     * @param index Index of the attribute
+     * @return Value of the attribute, or {@code null} if there is no attribute at the index.
+     */
+    @Nullable
+    String getValue(final int index) {
+        return inRange(index) ? this.values[index] : null;
+    }
+
+    /**
+     * Provides the value of the attribute with the specified qualified name.
+     *
+     * @param qName Qualified name of the attribute
+     * @return Value of the attribute, or {@code null} if there is no attribute with the name.
+     */
+    @Nullable
+    String getValue(final String qName) {
+        return getValue(getIndex(qName));
+    }
+
+    /**
+     * Looks up an attribute by its namespace URI and local name.
+     *
+     * @param uri Namespace URI of the attribute
+     * @param localName Local name of the attribute
+     * @return Index of the attribute, or -1 if there is no attribute with the name.
+     */
+    int getIndex(final String uri, final String localName) {
+        for (int i = 0; i < this.length; i++) {
+            if (this.uris[i].equals(uri) && this.localNames[i].equals(localName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up an attribute by its qualified name.
+     *
+     * @param qName Qualified name of the attribute
+     * @return Index of the attribute, or -1 if there is no attribute with the name.
+     */
+    int getIndex(final String qName) {
+        for (int i = 0; i < this.length; i++) {
+            if (this.qNames[i].equals(qName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indicates whether the specified index refers to an attribute in the store.
+     *
+     * @param index Index to test
+     * @return {@code true} if the index refers to an attribute.
+     */
+    private boolean inRange(final int index) {
+        return index >= 0 && index < this.length;
+    }
+
+    /**
+     * Doubles the capacity of the store.
+     */
+    private void grow() {
+        final int capacity = this.uris.length * 2;
+        this.uris = Arrays.copyOf(this.uris, capacity);
+        this.localNames = Arrays.copyOf(this.localNames, capacity);
+        this.qNames = Arrays.copyOf(this.qNames, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+        if (this.names != null) {
+            this.names = Arrays.copyOf(this.names, capacity);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+
+/**
+ * Buffers UTF-8 encoded output for a non-blocking {@link WritableByteChannel}, such as a socket channel managed
+ * by a selector. The emitter never writes to the channel itself. Instead, output accumulates in the sink and the
+ * application calls {@link #drainTo(WritableByteChannel) drainTo} whenever the channel is writable, until
+ * {@link #hasPendingOutput() hasPendingOutput} returns {@code false}.
+ *
+ * <p>To use the sink, pass it to the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter
+ * constructor} or the {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. Calling
+ * {@link XmlStreamEmitter#flush() flush} or {@link XmlStreamEmitter#endDocument() endDocument} does not write anything
+ * to the channel.</p>
+ *
+ * <p>The memory used for pending output is bounded. When the amount of pending output reaches the high water mark,
+ * the sink reports backpressure through {@link #isBackpressured()} and {@link XmlStreamEmitter#isBackpressured()}. The
+ * application should stop generating XML and drain the sink until the backpressure is relieved. If the pending
+ * output reaches the maximum size, writing the output throws an {@link java.io.IOException IOException}.</p>
+ */
+public final class ChannelSink extends Utf8Sink {
+
+    /** Default amount of pending output at which backpressure is reported (64KB). */
+    public static final int DEF_HIGH_WATER_MARK = 64 * 1024;
+
+    /** Default maximum amount of pending output (16MB). */
+    public static final int DEF_MAX_PENDING = 16 * 1024 * 1024;
+
+    private final int highWaterMark;
+    private final int maxPending;
+
+    /** Index of the first byte in the buffer that has not been written to a channel. */
+    private int start;
+
+    /**
+     * Creates a sink using the default high water mark and maximum amount of pending output.
+     */
+    public ChannelSink() {
+        this(DEF_HIGH_WATER_MARK, DEF_MAX_PENDING);
+    }
+
+    /**
+     * Creates a sink using the specified high water mark and maximum amount of pending output.
+     *
+     * @param highWaterMark Number of bytes of pending output at which backpressure is reported. Must be greater
+     *      than zero and no larger than the maximum amount of pending output.
+     * @param maxPending Maximum number of bytes of pending output. Must be at least 4.
+     */
+    public ChannelSink(final int highWaterMark, final int maxPending) {
+        super(Math.min(DEF_BUFFER_SIZE, checkBufferSize(maxPending)));
+
+        if (highWaterMark <= 0 || highWaterMark > maxPending) {
+            throw new IllegalArgumentException("High water mark must be greater than zero and no larger than "
+                                                       + maxPending);
+        }
+
+        this.highWaterMark = highWaterMark;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Indicates whether there is output waiting to be written to a channel.
+     *
+     * @return {@code true} if there is output waiting to be written.
+     */
+    public boolean hasPendingOutput() {
+        return this.count > this.start;
+    }
+
+    /**
+     * Provides the number of bytes waiting to be written to a channel.
+     *
+     * @return Number of bytes of pending output.
+     */
+    public int getPendingSize() {
+        return this.count - this.start;
+    }
+
+    /**
+     * Indicates whether the amount of pending output has reached the high water mark.
+     *
+     * @return {@code true} if the pending output should be drained before more XML is generated.
+     */
+    @Override
+    public boolean isBackpressured() {
+        return this.count - this.start >= this.highWaterMark;
+    }
+
+    /**
+     * Writes as much pending output to the specified channel as the channel will accept without blocking.
+     *
+     * @param channel Channel to write. The channel will not be closed.
+     * @return Number of bytes written to the channel, which may be zero.
+     * @throws IOException If there was a problem writing to the channel.
+     */
+    public int drainTo(final WritableByteChannel channel) throws IOException {
+        if (this.count == this.start) {
+            return 0;
+        }
+
+        final int written = channel.write(ByteBuffer.wrap(this.buffer, this.start, this.count - this.start));
+        this.start += written;
+        if (this.start == this.count) {
+            this.start = 0;
+            this.count = 0;
+        }
+        return written;
+    }
+
+    @Override
+    void setBufferSize(final int size) {
+        checkBufferSize(size);
+        compact();
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(Math.min(size, this.maxPending), this.count));
+    }
+
+    /**
+     * Makes room for more output by reclaiming the space used by output already written to a channel and, if
+     * necessary, growing the buffer up to the maximum amount of pending output.
+     *
+     * @throws IOException If the maximum amount of pending output has been reached.
+     */
+    @Override
+    void drainBuffer() throws IOException {
+        compact();
+
+        if (this.buffer.length - this.count < MIN_BUFFER_SIZE) {
+            final int size = Math.min(Math.max(this.buffer.length * 2, this.count + MIN_BUFFER_SIZE), this.maxPending);
+            if (size - this.count < MIN_BUFFER_SIZE) {
+                throw new IOException("Pending output exceeds the maximum of " + this.maxPending + " bytes");
+            }
+            this.buffer = Arrays.copyOf(this.buffer, size);
+        }
+    }
+
+    /**
+     * Pending output is only written by {@link #drainTo(WritableByteChannel) drainTo}, so flushing the sink has
+     * no effect.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    void finish() throws IOException {
+        finishEncoding();
+    }
+
+    /**
+     * Completes the encoding of the output. Pending output remains available to be drained.
+     *
+     * @throws IOException If the maximum amount of pending output has been reached.
+     */
+    @Override
+    public void close() throws IOException {
+        finishEncoding();
+    }
+
+    /**
+     * Moves the pending output to the start of the buffer.
+     */
+    private void compact() {
+        if (this.start > 0) {
+            System.arraycopy(this.buffer, this.start, this.buffer, 0, this.count - this.start);
+            this.count -= this.start;
+            this.start = 0;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Compresses UTF-8 encoded output and writes it to an {@link OutputStream}. The {@link Deflater} is applied directly
+ * to the sink's encoding buffer, rather than passing the output through an {@link java.io.OutputStreamWriter
+ * OutputStreamWriter} and a {@link java.util.zip.GZIPOutputStream GZIPOutputStream}. The compressed output can be
+ * written in the gzip, zlib or raw deflate format.
+ *
+ * <p>To use the sink, pass it to the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter
+ * constructor} or the {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. Calling
+ * {@link XmlStreamEmitter#flush() flush} performs a sync flush of the compressor, so that a consumer can decompress all
+ * output written so far. {@link XmlStreamEmitter#endDocument() endDocument} completes the compressed stream. When the
+ * emitter is {@link XmlStreamEmitter#reset() reset} and reused, the next document is written as a new compressed stream
+ * following the previous one (i.e. as a new member of a multi-member gzip file). Call {@link #close() close} to release
+ * the native resources used by the compressor.</p>
+ */
+public final class DeflateSink extends Utf8Sink {
+
+    /**
+     * Formats for the compressed output.
+     */
+    public enum Format {
+        /** Gzip format (RFC 1952). */
+        GZIP,
+
+        /** Zlib format (RFC 1950). */
+        ZLIB,
+
+        /** Raw deflate format without a header or trailer (RFC 1951). */
+        DEFLATE
+    }
+
+    private final OutputStream out;
+    private final Format format;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final byte[] compressed;
+
+    /** Indicates whether output has been written since the compressed stream was started. */
+    private boolean started;
+
+    /**
+     * Creates a sink that writes gzip compressed output to the specified stream using the default compression
+     * level.
+     *
+     * @param out Stream to receive the compressed output
+     */
+    public DeflateSink(final OutputStream out) {
+        this(out, Format.GZIP, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a sink that writes compressed output to the specified stream.
+     *
+     * @param out Stream to receive the compressed output
+     * @param format Format for the compressed output
+     * @param level Compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public DeflateSink(final OutputStream out, final Format format, final int level) {
+        super(DEF_BUFFER_SIZE);
+
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+                && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        this.out = out;
+        this.format = format;
+        this.deflater = new Deflater(level, format != Format.ZLIB);
+        this.crc = new CRC32();
+        this.compressed = new byte[DEF_BUFFER_SIZE];
+    }
+
+    @Override
+    void drainBuffer() throws IOException {
+        if (this.count > 0) {
+            start();
+            if (this.format == Format.GZIP) {
+                this.crc.update(this.buffer, 0, this.count);
+            }
+            this.deflater.setInput(this.buffer, 0, this.count);
+            while (!this.deflater.needsInput()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            this.count = 0;
+        }
+    }
+
+    /**
+     * Compresses all buffered output and performs a sync flush of the compressor, so that all output written so
+     * far can be decompressed by the consumer. The stream is then flushed.
+     *
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+        if (this.started) {
+            int n;
+            do {
+                n = deflate(Deflater.SYNC_FLUSH);
+            } while (n == this.compressed.length);
+        }
+        this.out.flush();
+    }
+
+    /**
+     * Completes the compressed stream, writing the trailer if the format requires one, and flushes the stream.
+     * The compressor is then reset so that a new compressed stream is started by subsequent output.
+     *
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    @Override
+    void finish() throws IOException {
+        finishEncoding();
+        drainBuffer();
+
+        if (this.started) {
+            this.deflater.finish();
+            while (!this.deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+
+            if (this.format == Format.GZIP) {
+                GzipFormat.writeTrailer(this.out, this.crc, this.deflater.getBytesRead());
+            }
+
+            this.deflater.reset();
+            this.crc.reset();
+            this.started = false;
+        }
+
+        this.out.flush();
+    }
+
+    /**
+     * Completes the compressed stream, releases the compressor and closes the stream.
+     *
+     * @throws IOException If there was a problem writing to or closing the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            this.deflater.end();
+        }
+        this.out.close();
+    }
+
+    /**
+     * Starts a new compressed stream, if one has not already been started, by writing the header required by the
+     * format.
+     *
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    private void start() throws IOException {
+        if (!this.started) {
+            this.started = true;
+            if (this.format == Format.GZIP) {
+                GzipFormat.writeHeader(this.out);
+            }
+        }
+    }
+
+    /**
+     * Runs the compressor once and writes the compressed output to the stream.
+     *
+     * @param flushMode Flush mode for the compressor
+     * @return Number of compressed bytes written.
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    private int deflate(final int flushMode) throws IOException {
+        final int n = this.deflater.deflate(this.compressed, 0, this.compressed.length, flushMode);
+        if (n > 0) {
+            this.out.write(this.compressed, 0, n);
+        }
+        return n;
+    }
+}
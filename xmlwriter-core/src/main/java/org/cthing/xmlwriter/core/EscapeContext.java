@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+
+/**
+ * Contexts in which characters are escaped. In every context, '&lt;' and '&amp;' are escaped. Each context escapes
+ * one additional markup significant character, and determines whether tab, newline and carriage return are written
+ * unchanged.
+ */
+enum EscapeContext {
+
+    /**
+     * Character data. Quotes are written unchanged, and '&gt;' is only escaped where it could complete the CDATA
+     * section end delimiter "]]&gt;".
+     */
+    TEXT('>', true),
+
+    /**
+     * Attribute value delimited by double quotes. Tab, newline and carriage return are written as character
+     * references, so that attribute value normalization does not replace them with spaces.
+     */
+    DOUBLE_QUOTED('"', false),
+
+    /**
+     * Attribute value delimited by single quotes. Tab, newline and carriage return are written as character
+     * references, so that attribute value normalization does not replace them with spaces.
+     */
+    SINGLE_QUOTED('\'', false);
+
+    private final char markup;
+    private final boolean rawWhitespace;
+
+    EscapeContext(final char markup, final boolean rawWhitespace) {
+        this.markup = markup;
+        this.rawWhitespace = rawWhitespace;
+    }
+
+    /**
+     * Obtains the markup significant character that is escaped in this context in addition to '&lt;' and '&amp;'.
+     *
+     * @return Additional character to escape.
+     */
+    char getMarkup() {
+        return this.markup;
+    }
+
+    /**
+     * Indicates whether tab, newline and carriage return are written unchanged in this context.
+     *
+     * @return {@code true} if the whitespace control characters are written unchanged, or {@code false} if they are
+     *      written as character references.
+     */
+    boolean isRawWhitespace() {
+        return this.rawWhitespace;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.util.Optional;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Finds runs of characters that can be written without escaping, so that each run can be written to the output in a
+ * single operation. A character is clean if it is written unchanged by the escaper, which means it is not markup
+ * significant in the {@link EscapeContext}, is not a control character other than tab, newline and carriage return
+ * in a context where those are written unchanged, and is not a surrogate or noncharacter. Characters above the ASCII
+ * range are only clean if they are not being escaped. There is one scanner for each context, each with its own table
+ * of the clean ASCII characters.
+ *
+ * <p>This class scans one character at a time. When the {@code jdk.incubator.vector} module is present in the boot
+ * layer (e.g. the JVM was started with {@code --add-modules jdk.incubator.vector}), the scanners provided by
+ * {@link #getInstance} pass long ranges of characters to a subclass that uses the Vector API to scan many characters
+ * at a time. The subclass is compiled separately, so that the library does not depend on the incubator module. It is
+ * loaded reflectively the first time a range long enough to benefit is scanned, so that creating an emitter does not
+ * use reflection.</p>
+ */
+class EscapeScanner {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_SCANNER = "org.cthing.xmlwriter.core.VectorEscapeScanner";
+    private static final char FIRST_CLEAN_NON_ASCII = '\u00A0';
+    private static final char FIRST_NONCHARACTER = '\uFFFE';
+    private static final EscapeContext[] CONTEXTS = EscapeContext.values();
+
+    /** Fewest characters for which the vector scanner is loaded and used. */
+    private static final int MIN_VECTOR_LENGTH = 32;
+
+    private static final EscapeScanner[] SCALAR = new EscapeScanner[CONTEXTS.length];
+    private static final EscapeScanner[] DISPATCHING = new EscapeScanner[CONTEXTS.length];
+
+    static {
+        for (final EscapeContext context : CONTEXTS) {
+            SCALAR[context.ordinal()] = new EscapeScanner(context, false);
+            DISPATCHING[context.ordinal()] = new EscapeScanner(context, true);
+        }
+    }
+
+    /** Indicates which characters in the ASCII range can be written without escaping. */
+    private final boolean[] cleanAscii;
+
+    /** Index of the context, used to find the corresponding vector scanner. */
+    private final int contextIndex;
+
+    /** Indicates whether long ranges of characters are passed to the vector scanner, if it is available. */
+    private final boolean dispatching;
+
+    /**
+     * Creates a scanner for the specified context that scans one character at a time.
+     *
+     * @param context Context in which the characters are escaped
+     */
+    EscapeScanner(final EscapeContext context) {
+        this(context, false);
+    }
+
+    /**
+     * Creates a scanner for the specified context.
+     *
+     * @param context Context in which the characters are escaped
+     * @param dispatching {@code true} to pass long ranges of characters to the vector scanner, if it is available
+     */
+    private EscapeScanner(final EscapeContext context, final boolean dispatching) {
+        this.contextIndex = context.ordinal();
+        this.dispatching = dispatching;
+        this.cleanAscii = new boolean[128];
+        for (char c = ' '; c < '\u007F'; c++) {
+            this.cleanAscii[c] = true;
+        }
+        this.cleanAscii['&'] = false;
+        this.cleanAscii['<'] = false;
+        this.cleanAscii[context.getMarkup()] = false;
+        if (context.isRawWhitespace()) {
+            this.cleanAscii['\t'] = true;
+            this.cleanAscii['\n'] = true;
+            this.cleanAscii['\r'] = true;
+        }
+    }
+
+    /**
+     * Obtains the scanner for the specified context that uses the fastest scan available in the running JVM. Ranges
+     * of characters long enough to benefit are scanned using the Vector API, if it is available. Obtaining the
+     * scanner does not load the Vector API.
+     *
+     * @param context Context in which the characters are escaped
+     * @return Scanner that passes long ranges of characters to the vector scanner.
+     */
+    static EscapeScanner getInstance(final EscapeContext context) {
+        return DISPATCHING[context.ordinal()];
+    }
+
+    /**
+     * Obtains the scanner that checks one character at a time for the specified context.
+     *
+     * @param context Context in which the characters are escaped
+     * @return Scalar scanner.
+     */
+    static EscapeScanner getScalarInstance(final EscapeContext context) {
+        return SCALAR[context.ordinal()];
+    }
+
+    /**
+     * Obtains the scanner that uses the Vector API for the specified context.
+     *
+     * @param context Context in which the characters are escaped
+     * @return Vector scanner, or {@code null} if the Vector API is not available or is not hardware accelerated.
+     */
+    @Nullable
+    static EscapeScanner getVectorInstance(final EscapeContext context) {
+        final EscapeScanner @Nullable [] vector = VectorScanners.SCANNERS;
+        return (vector == null) ? null : vector[context.ordinal()];
+    }
+
+    /**
+     * Indicates whether the scanner examines more than one character at a time.
+     *
+     * @return {@code true} if the scanner is accelerated.
+     */
+    boolean isAccelerated() {
+        return false;
+    }
+
+    /**
+     * Finds the end of the run of clean characters that begins at the specified index.
+     *
+     * @param carr Characters to scan
+     * @param start Index of the first character to scan
+     * @param end Index one past the last character to scan
+     * @param escapeNonAscii {@code true} if characters above the ASCII range are escaped
+     * @return Index of the first character at or after {@code start} that must be escaped, or {@code end} if all the
+     *      characters are clean.
+     */
+    int cleanRun(final char[] carr, final int start, final int end, final boolean escapeNonAscii) {
+        if (this.dispatching && end - start >= MIN_VECTOR_LENGTH) {
+            final EscapeScanner @Nullable [] vector = VectorScanners.SCANNERS;
+            if (vector != null) {
+                return vector[this.contextIndex].cleanRun(carr, start, end, escapeNonAscii);
+            }
+        }
+
+        int i = start;
+        while (i < end && isClean(carr[i], escapeNonAscii)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Indicates whether the specified character can be written without escaping.
+     *
+     * @param c Character to test
+     * @param escapeNonAscii {@code true} if characters above the ASCII range are escaped
+     * @return {@code true} if the character is written unchanged by the escaper.
+     */
+    boolean isClean(final char c, final boolean escapeNonAscii) {
+        if (c < this.cleanAscii.length) {
+            return this.cleanAscii[c];
+        }
+        return !escapeNonAscii
+                && c >= FIRST_CLEAN_NON_ASCII
+                && !Character.isSurrogate(c)
+                && c < FIRST_NONCHARACTER;
+    }
+
+    /**
+     * Holds the scanners that use the Vector API. The scanners are loaded when this class is initialized, which
+     * happens the first time they are needed.
+     */
+    private static final class VectorScanners {
+
+        /** Vector scanner for each context, or {@code null} if the Vector API is not available. */
+        static final EscapeScanner @Nullable [] SCANNERS = createVectorScanners();
+
+        private VectorScanners() {
+        }
+    }
+
+    /**
+     * Loads the scanners that use the Vector API, if the incubator module is present. The module is not read by this
+     * library's module by default, so a read edge is added before the scanners are loaded.
+     *
+     * @return Vector scanner for each context, or {@code null} if the module or the scanner is not available, or the
+     *      scanners would not be hardware accelerated.
+     */
+    private static EscapeScanner @Nullable [] createVectorScanners() {
+        final Optional<Module> module = ModuleLayer.boot().findModule(VECTOR_MODULE);
+        if (module.isEmpty()) {
+            return null;
+        }
+
+        EscapeScanner.class.getModule().addReads(module.get());
+        try {
+            final Class<?> scannerClass = Class.forName(VECTOR_SCANNER);
+            final EscapeScanner[] scanners = new EscapeScanner[CONTEXTS.length];
+            for (final EscapeContext context : CONTEXTS) {
+                final EscapeScanner scanner = (EscapeScanner)scannerClass.getDeclaredConstructor(EscapeContext.class)
+                                                                         .newInstance(context);
+                if (!scanner.isAccelerated()) {
+                    return null;
+                }
+                scanners[context.ordinal()] = scanner;
+            }
+            return scanners;
+        } catch (final ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+}
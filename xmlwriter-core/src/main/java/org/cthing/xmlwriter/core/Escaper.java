@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Escapes character data and attribute values. The escaping follows the XML 1.0 rules:
+ * <ul>
+ *     <li>The markup significant characters of the {@link EscapeContext} are written using the predefined entity
+ *         references</li>
+ *     <li>In attribute values, tab, newline and carriage return are written using numeric character references</li>
+ *     <li>Control characters other than tab, newline and carriage return, unpaired surrogates, and the
+ *         noncharacters U+FFFE and U+FFFF cannot appear in an XML document and are removed</li>
+ *     <li>The discouraged characters U+007F through U+009F are written using numeric character references</li>
+ *     <li>Characters above the ASCII range, including surrogate pairs, are written using numeric character
+ *         references if requested</li>
+ * </ul>
+ *
+ * <p>There is one escaper for each context and combination of the escape settings, created once and shared by all
+ * emitters. The {@link EscapeScanner} for the context finds each run of characters that need no escaping, so that the
+ * run is written in a single operation. Each remaining character is looked up in the context's table for the ASCII
+ * range, so only the characters that are escaped are written individually. Numeric character references are
+ * formatted in a buffer supplied by the caller, because the escapers are shared.</p>
+ */
+final class Escaper {
+
+    /** Length of the longest numeric character reference (i.e. {@code &#1114111;}). */
+    static final int MAX_REFERENCE_LENGTH = 10;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char FIRST_NONCHARACTER = '\uFFFE';
+    private static final String GT_ENTITY = "&gt;";
+    private static final EscapeContext[] CONTEXTS = EscapeContext.values();
+
+    /** Number of combinations of the escape settings. */
+    private static final int NUM_SETTINGS = 4;
+
+    /** Escapers for each context and combination of the escape settings, indexed as described in getInstance. */
+    private static final Escaper[] ESCAPERS = new Escaper[CONTEXTS.length * NUM_SETTINGS];
+
+    static {
+        for (final EscapeContext context : CONTEXTS) {
+            final @Nullable String[] replacements = createReplacements(context);
+            for (int settings = 0; settings < NUM_SETTINGS; settings++) {
+                ESCAPERS[context.ordinal() * NUM_SETTINGS + settings] =
+                        new Escaper(context, replacements, (settings & 1) != 0, (settings & 2) != 0);
+            }
+        }
+    }
+
+    private final EscapeScanner scanner;
+
+    /**
+     * Replacement for each character in the ASCII range. An empty string indicates that the character is removed, and
+     * {@code null} indicates that the character is written as a numeric character reference.
+     */
+    private final @Nullable String[] asciiReplacements;
+
+    /** Escape '&gt;' only where it could complete "]]&gt;", rather than always writing it unchanged. */
+    private final boolean guardCdataEnd;
+
+    private final boolean escapeNonAscii;
+    private final boolean useDecimal;
+
+    private Escaper(final EscapeContext context, final @Nullable String[] asciiReplacements,
+                    final boolean escapeNonAscii, final boolean useDecimal) {
+        this.scanner = EscapeScanner.getInstance(context);
+        this.asciiReplacements = asciiReplacements;
+        this.guardCdataEnd = context.getMarkup() == '>';
+        this.escapeNonAscii = escapeNonAscii;
+        this.useDecimal = useDecimal;
+    }
+
+    /**
+     * Obtains the escaper for the specified context and escape settings.
+     *
+     * @param context Context in which the characters are escaped
+     * @param escapeNonAscii {@code true} to escape characters above the ASCII range
+     * @param useDecimal {@code true} to write numeric character references in decimal rather than hexadecimal
+     * @return Escaper for the context and settings.
+     */
+    static Escaper getInstance(final EscapeContext context, final boolean escapeNonAscii, final boolean useDecimal) {
+        return ESCAPERS[context.ordinal() * NUM_SETTINGS + (escapeNonAscii ? 1 : 0) + (useDecimal ? 2 : 0)];
+    }
+
+    /**
+     * Writes the specified characters to the output, escaping them as necessary.
+     *
+     * @param carr Characters to write
+     * @param start Index of the first character to write
+     * @param length Number of characters to write
+     * @param out Output for the escaped characters
+     * @param referenceBuffer Buffer of at least {@link #MAX_REFERENCE_LENGTH} characters in which numeric character
+     *      references are formatted
+     * @throws IOException If there is an error writing the characters.
+     */
+    void escape(final char[] carr, final int start, final int length, final Writer out, final char[] referenceBuffer)
+            throws IOException {
+        final int end = start + length;
+        int i = this.scanner.cleanRun(carr, start, end, this.escapeNonAscii);
+        if (i > start) {
+            out.write(carr, start, i - start);
+        }
+
+        while (i < end) {
+            final char c = carr[i++];
+            if (c < this.asciiReplacements.length) {
+                @Nullable final String replacement = this.asciiReplacements[c];
+                if (c == '>' && this.guardCdataEnd && mayEndCdataSection(carr, start, i - 1)) {
+                    out.write(GT_ENTITY);
+                } else if (replacement == null) {
+                    writeReference(c, out, referenceBuffer);
+                } else if (!replacement.isEmpty()) {
+                    out.write(replacement);
+                }
+            } else if (Character.isHighSurrogate(c)) {
+                if (i < end && Character.isLowSurrogate(carr[i])) {
+                    if (this.escapeNonAscii) {
+                        writeReference(Character.toCodePoint(c, carr[i]), out, referenceBuffer);
+                    } else {
+                        out.write(carr, i - 1, 2);
+                    }
+                    i++;
+                }
+            } else if (!Character.isLowSurrogate(c) && c < FIRST_NONCHARACTER) {
+                writeReference(c, out, referenceBuffer);
+            }
+
+            final int cleanEnd = this.scanner.cleanRun(carr, i, end, this.escapeNonAscii);
+            if (cleanEnd > i) {
+                out.write(carr, i, cleanEnd - i);
+                i = cleanEnd;
+            }
+        }
+    }
+
+    /**
+     * Creates the table of replacements for the characters in the ASCII range in the specified context.
+     *
+     * @param context Context in which the characters are escaped
+     * @return Replacement for each character in the ASCII range.
+     */
+    private static @Nullable String[] createReplacements(final EscapeContext context) {
+        final @Nullable String[] replacements = new String[128];
+        for (char c = 0; c < ' '; c++) {
+            replacements[c] = "";
+        }
+        for (char c = ' '; c < '\u007F'; c++) {
+            replacements[c] = String.valueOf(c);
+        }
+        if (context.isRawWhitespace()) {
+            replacements['\t'] = "\t";
+            replacements['\n'] = "\n";
+            replacements['\r'] = "\r";
+        } else {
+            replacements['\t'] = null;
+            replacements['\n'] = null;
+            replacements['\r'] = null;
+        }
+        replacements['&'] = "&amp;";
+        replacements['<'] = "&lt;";
+        if (context.getMarkup() == '"') {
+            replacements['"'] = "&quot;";
+        } else if (context.getMarkup() == '\'') {
+            replacements['\''] = "&apos;";
+        }
+        return replacements;
+    }
+
+    /**
+     * Indicates whether the '&gt;' at the specified index could complete the CDATA section end delimiter "]]&gt;".
+     * The characters preceding the start of the range were written by an earlier call and are not known, so they are
+     * assumed to be ']'.
+     *
+     * @param carr Characters being escaped
+     * @param start Index of the first character being escaped
+     * @param pos Index of the '&gt;' character
+     * @return {@code true} if the character could complete "]]&gt;" and must be escaped.
+     */
+    private static boolean mayEndCdataSection(final char[] carr, final int start, final int pos) {
+        return (pos - 1 < start || carr[pos - 1] == ']') && (pos - 2 < start || carr[pos - 2] == ']');
+    }
+
+    /**
+     * Formats the specified code point as a numeric character reference at the end of the specified buffer.
+     *
+     * @param codePoint Code point to format
+     * @param useDecimal {@code true} to format the reference in decimal rather than hexadecimal
+     * @param buf Buffer of at least {@link #MAX_REFERENCE_LENGTH} characters in which the reference is formatted
+     * @return Index in the buffer of the first character of the reference. The reference extends to index
+     *         {@link #MAX_REFERENCE_LENGTH}.
+     */
+    static int formatReference(final int codePoint, final boolean useDecimal, final char[] buf) {
+        int pos = MAX_REFERENCE_LENGTH;
+        int value = codePoint;
+
+        buf[--pos] = ';';
+        if (useDecimal) {
+            do {
+                buf[--pos] = (char)('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+        } else {
+            do {
+                buf[--pos] = HEX_DIGITS[value & 0xF];
+                value >>>= 4;
+            } while (value != 0);
+            buf[--pos] = 'x';
+        }
+        buf[--pos] = '#';
+        buf[--pos] = '&';
+
+        return pos;
+    }
+
+    /**
+     * Writes the specified code point as a numeric character reference.
+     *
+     * @param codePoint Code point to write
+     * @param out Output for the reference
+     * @param buf Buffer in which the reference is formatted
+     * @throws IOException If there is an error writing the reference.
+     */
+    private void writeReference(final int codePoint, final Writer out, final char[] buf) throws IOException {
+        final int pos = formatReference(codePoint, this.useDecimal, buf);
+        out.write(buf, pos, MAX_REFERENCE_LENGTH - pos);
+    }
+}
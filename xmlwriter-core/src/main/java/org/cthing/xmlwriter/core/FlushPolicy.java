@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.time.Duration;
+
+
+/**
+ * Determines when the {@link XmlStreamEmitter} automatically flushes its output. A policy is consulted after each
+ * element is closed and after each block of character data is written. If the policy indicates that the output should
+ * be flushed, the emitter calls its {@link XmlStreamEmitter#flush() flush} method. Policies are only consulted when
+ * events occur; the emitter does not use a timer thread.
+ *
+ * <p>Policies for common situations are provided by the static methods of this interface, and policies can be
+ * combined using the {@link #or(FlushPolicy) or} method. For example, to flush after each child of the root element
+ * or when output has been waiting for more than 100 milliseconds:</p>
+ * <pre>
+ * writer.setFlushPolicy(FlushPolicy.atDepth(2).or(FlushPolicy.maxAge(Duration.ofMillis(100))));
+ * </pre>
+ */
+@FunctionalInterface
+public interface FlushPolicy {
+
+    /**
+     * Indicates whether the output should be flushed.
+     *
+     * @param depth Nesting level of the element that was closed, where the root element is at level 1. If the
+     *      policy is being consulted after character data has been written, the level is zero.
+     * @param unflushedChars Number of characters written since the output was last flushed. Characters that are
+     *      escaped are counted once.
+     * @param unflushedNanos Number of nanoseconds since output was first written after the output was last flushed,
+     *      or zero if no output has been written since the last flush.
+     * @return {@code true} if the output should be flushed.
+     */
+    boolean shouldFlush(int depth, long unflushedChars, long unflushedNanos);
+
+    /**
+     * Creates a policy that flushes the output when either this policy or the specified policy indicates that
+     * the output should be flushed.
+     *
+     * @param other Policy to combine with this policy
+     * @return Combined policy.
+     */
+    default FlushPolicy or(final FlushPolicy other) {
+        return (depth, unflushedChars, unflushedNanos) -> shouldFlush(depth, unflushedChars, unflushedNanos)
+                || other.shouldFlush(depth, unflushedChars, unflushedNanos);
+    }
+
+    /**
+     * Creates a policy that flushes the output once at least the specified number of characters have been written
+     * since the last flush.
+     *
+     * @param chars Number of characters. Must be greater than zero.
+     * @return Policy that flushes based on the amount of output.
+     */
+    static FlushPolicy everyChars(final long chars) {
+        if (chars <= 0) {
+            throw new IllegalArgumentException("Number of characters must be greater than zero");
+        }
+        return (depth, unflushedChars, unflushedNanos) -> unflushedChars >= chars;
+    }
+
+    /**
+     * Creates a policy that flushes the output each time an element at the specified nesting level is closed. For
+     * example, a level of 2 flushes the output after each child of the root element.
+     *
+     * @param level Nesting level of the elements, where the root element is at level 1. Must be greater than zero.
+     * @return Policy that flushes based on the structure of the document.
+     */
+    static FlushPolicy atDepth(final int level) {
+        if (level <= 0) {
+            throw new IllegalArgumentException("Level must be greater than zero");
+        }
+        return (depth, unflushedChars, unflushedNanos) -> depth == level && unflushedChars > 0;
+    }
+
+    /**
+     * Creates a policy that flushes the output once it has been waiting for at least the specified length of
+     * time. Because policies are only consulted when events occur, output may wait longer than the specified
+     * time if no further events occur.
+     *
+     * @param age Maximum length of time output should wait to be flushed. Must be greater than zero.
+     * @return Policy that flushes based on the age of the output.
+     */
+    static FlushPolicy maxAge(final Duration age) {
+        if (age.isNegative() || age.isZero()) {
+            throw new IllegalArgumentException("Age must be greater than zero");
+        }
+        final long nanos = age.toNanos();
+        return (depth, unflushedChars, unflushedNanos) -> unflushedNanos >= nanos;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Writes the header and trailer that frame the deflate compressed data of a gzip member (RFC 1952). Used by the
+ * output destinations that write gzip compressed output.
+ */
+final class GzipFormat {
+
+    /** Size of the gzip member header. */
+    static final int HEADER_SIZE = 10;
+
+    /** Size of the gzip member trailer. */
+    static final int TRAILER_SIZE = 8;
+
+    /** Gzip member header: magic number, deflate method, no flags, no modification time, unknown OS. */
+    private static final byte[] HEADER = { 0x1F, (byte)0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xFF };
+
+    private GzipFormat() {
+    }
+
+    /**
+     * Writes the header that starts a gzip member.
+     *
+     * @param out Stream to receive the header
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    static void writeHeader(final OutputStream out) throws IOException {
+        out.write(HEADER);
+    }
+
+    /**
+     * Writes the trailer that ends a gzip member.
+     *
+     * @param out Stream to receive the trailer
+     * @param crc Checksum of the uncompressed data of the member
+     * @param length Number of bytes of uncompressed data in the member. Only the low 32 bits are written.
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    static void writeTrailer(final OutputStream out, final CRC32 crc, final long length) throws IOException {
+        final byte[] trailer = new byte[TRAILER_SIZE];
+        writeIntLE(trailer, 0, (int)crc.getValue());
+        writeIntLE(trailer, 4, (int)length);
+        out.write(trailer);
+    }
+
+    /**
+     * Stores an integer in little endian byte order.
+     *
+     * @param buf Array in which to store the integer
+     * @param off Offset in the array
+     * @param value Integer to store
+     */
+    private static void writeIntLE(final byte[] buf, final int off, final int value) {
+        buf[off] = (byte)value;
+        buf[off + 1] = (byte)(value >> 8);
+        buf[off + 2] = (byte)(value >> 16);
+        buf[off + 3] = (byte)(value >> 24);
+    }
+}
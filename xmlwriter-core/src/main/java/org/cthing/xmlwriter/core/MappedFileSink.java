@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Writes UTF-8 encoded output directly into memory mapped regions of a file. This output destination is intended
+ * for very large documents, where letting the operating system page cache write the file is more efficient than
+ * copying the output through layers of stream buffers. The file is mapped in fixed size regions starting at the
+ * channel's position when the sink is created. A new region is mapped each time the previous one fills, and the
+ * filled region is forced to the storage device before it is released.
+ *
+ * <p>To use the sink, pass it to the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter
+ * constructor} or the {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. The file is truncated to the
+ * actual length of the output when {@link XmlStreamEmitter#endDocument() endDocument} is called. Calling
+ * {@link XmlStreamEmitter#flush() flush} forces the mapped output to the storage device. When the emitter is
+ * {@link XmlStreamEmitter#reset() reset} and reused, the next document is written following the previous document.</p>
+ *
+ * <p><strong>Note:</strong> A mapped region remains valid until it is garbage collected. Some platforms (e.g.
+ * Windows) do not allow a file to be truncated while it is mapped.</p>
+ */
+public final class MappedFileSink extends Utf8Sink {
+
+    /** Default size of each mapped region of the file (64MB). */
+    public static final long DEF_REGION_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long regionSize;
+
+    @Nullable
+    private MappedByteBuffer region;
+
+    /** File position at which the next byte will be written. */
+    private long position;
+
+    /** File position up to which the output has been forced to the storage device. */
+    private long forcedPosition;
+
+    /**
+     * Creates a sink that writes to the specified file channel using the default region size.
+     *
+     * @param channel File channel to write. The channel must be open for reading and writing. Output is written
+     *      starting at the channel's current position.
+     * @throws IOException If there was a problem obtaining the channel's position.
+     */
+    public MappedFileSink(final FileChannel channel) throws IOException {
+        this(channel, DEF_REGION_SIZE);
+    }
+
+    /**
+     * Creates a sink that writes to the specified file channel using the specified region size.
+     *
+     * @param channel File channel to write. The channel must be open for reading and writing. Output is written
+     *      starting at the channel's current position.
+     * @param regionSize Number of bytes in each mapped region of the file. The size must be greater than zero and
+     *      no larger than {@link Integer#MAX_VALUE}.
+     * @throws IOException If there was a problem obtaining the channel's position.
+     */
+    public MappedFileSink(final FileChannel channel, final long regionSize) throws IOException {
+        super(DEF_BUFFER_SIZE);
+
+        if (regionSize <= 0 || regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region size must be greater than zero and at most "
+                                                       + Integer.MAX_VALUE);
+        }
+
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.position = channel.position();
+        this.forcedPosition = this.position;
+    }
+
+    /**
+     * Provides the file position at which the next byte of output will be written. Output that is still buffered
+     * by the sink is not reflected in the position.
+     *
+     * @return File position for the next byte of output.
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Provides the file position up to which the output has been forced to the storage device.
+     *
+     * @return File position following the last byte of output that has been forced.
+     */
+    long getForcedPosition() {
+        return this.forcedPosition;
+    }
+
+    @Override
+    void drainBuffer() throws IOException {
+        int offset = 0;
+        while (offset < this.count) {
+            MappedByteBuffer mapped = this.region;
+            if (mapped == null || !mapped.hasRemaining()) {
+                if (mapped != null) {
+                    mapped.force();
+                    this.forcedPosition = this.position;
+                }
+                mapped = this.channel.map(FileChannel.MapMode.READ_WRITE, this.position, this.regionSize);
+                this.region = mapped;
+            }
+
+            final int n = Math.min(this.count - offset, mapped.remaining());
+            mapped.put(this.buffer, offset, n);
+            offset += n;
+            this.position += n;
+        }
+        this.count = 0;
+    }
+
+    /**
+     * Writes any buffered output to the mapped file and forces the mapped output to the storage device.
+     *
+     * @throws IOException If there was a problem writing the output.
+     */
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+        if (this.region != null) {
+            this.region.force();
+        }
+        this.forcedPosition = this.position;
+    }
+
+    /**
+     * Writes any buffered output, forces it to the storage device and truncates the file to the length of the
+     * output. Subsequent output is written following the current output.
+     *
+     * @throws IOException If there was a problem completing the output.
+     */
+    @Override
+    void finish() throws IOException {
+        super.finish();
+        this.region = null;
+        this.channel.truncate(this.position);
+        this.channel.position(this.position);
+    }
+
+    /**
+     * Completes the output and closes the file channel.
+     *
+     * @throws IOException If there was a problem completing the output or closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        this.channel.close();
+    }
+}
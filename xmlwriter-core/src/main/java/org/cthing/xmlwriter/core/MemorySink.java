@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Collects UTF-8 encoded output in memory. This output destination is intended for small documents that are
+ * generated in memory and then sent elsewhere. Unlike a {@link java.io.StringWriter StringWriter}, the sink is not
+ * synchronized and characters are encoded directly into a growable byte array, so the output can be obtained as
+ * bytes without a further encoding step.
+ *
+ * <p>Use {@link XmlStreamEmitter#toMemory()} to direct the output of an emitter to a memory sink, or pass the sink to
+ * the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter constructor} or the
+ * {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. The contents of the sink are discarded when the
+ * emitter is {@link XmlStreamEmitter#reset() reset}, so that the sink can be reused for the next document.</p>
+ */
+public final class MemorySink extends Utf8Sink {
+
+    /** Default initial capacity of the sink in bytes. */
+    public static final int DEF_CAPACITY = 1024;
+
+    /**
+     * Creates a sink with the default initial capacity.
+     */
+    public MemorySink() {
+        this(DEF_CAPACITY);
+    }
+
+    /**
+     * Creates a sink with the specified initial capacity. Specifying a capacity close to the expected size of the
+     * output avoids growing the sink as the output is written.
+     *
+     * @param capacity Initial capacity of the sink in bytes. Must be at least 4.
+     */
+    public MemorySink(final int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Provides the number of bytes of output held by the sink.
+     *
+     * @return Number of bytes of output.
+     */
+    public int getSize() {
+        return this.count;
+    }
+
+    /**
+     * Provides the number of bytes the sink can hold before it must grow.
+     *
+     * @return Capacity of the sink in bytes.
+     */
+    public int getCapacity() {
+        return this.buffer.length;
+    }
+
+    /**
+     * Ensures that the sink can hold at least the specified number of bytes without growing.
+     *
+     * @param capacity Minimum capacity of the sink in bytes
+     */
+    public void ensureCapacity(final int capacity) {
+        if (capacity > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, capacity);
+        }
+    }
+
+    /**
+     * Provides a copy of the output.
+     *
+     * @return UTF-8 encoded output.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.count);
+    }
+
+    /**
+     * Writes the output to the specified stream.
+     *
+     * @param stream Stream to write. The stream will not be flushed or closed.
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    public void writeTo(final OutputStream stream) throws IOException {
+        stream.write(this.buffer, 0, this.count);
+    }
+
+    /**
+     * Provides the output as a string.
+     *
+     * @return Output decoded from UTF-8.
+     */
+    @Override
+    public String toString() {
+        return new String(this.buffer, 0, this.count, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ensures that the sink can hold at least the specified number of bytes. The sink never shrinks.
+     *
+     * @param size Minimum capacity of the sink in bytes
+     */
+    @Override
+    void setBufferSize(final int size) {
+        ensureCapacity(checkBufferSize(size));
+    }
+
+    @Override
+    void drainBuffer() {
+        final int length = this.buffer.length;
+        this.buffer = Arrays.copyOf(this.buffer, (length > Integer.MAX_VALUE / 2) ? Integer.MAX_VALUE : length * 2);
+    }
+
+    /**
+     * The output is held in memory, so flushing the sink has no effect.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    void finish() throws IOException {
+        finishEncoding();
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        this.count = 0;
+    }
+
+    /**
+     * Closing the sink has no effect. The output remains available.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.util.Arrays;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Stack of namespace scopes used in place of the SAX {@code NamespaceSupport} class. The prefix and URI of every
+ * declaration in effect are held in flat parallel arrays, with the declarations of the innermost scope at the end. A
+ * scope is marked by the index of its first declaration, so pushing and popping a scope does not allocate. Lookups scan
+ * the declarations from the innermost scope outward, which is effectively constant time for the handful of namespaces
+ * declared by typical documents.
+ *
+ * <p>The declarations of each scope are kept sorted by prefix so that they can be written in a stable order without
+ * being copied and sorted. As with NamespaceSupport, the "xml" prefix is always bound to the XML namespace. This
+ * class is not thread safe.</p>
+ */
+final class NamespaceStack {
+
+    private static final int INIT_DECLS = 8;
+    private static final int INIT_SCOPES = 16;
+
+    private String[] prefixes;
+    private String[] uris;
+    private int size;
+
+    /** Index of the first declaration in each scope. */
+    private int[] scopeStarts;
+    private int depth;
+
+    /**
+     * Creates a stack with a single, empty scope.
+     */
+    NamespaceStack() {
+        this.prefixes = new String[INIT_DECLS];
+        this.uris = new String[INIT_DECLS];
+        this.scopeStarts = new int[INIT_SCOPES];
+    }
+
+    /**
+     * Removes all scopes and declarations, leaving a single, empty scope.
+     */
+    void reset() {
+        Arrays.fill(this.prefixes, 0, this.size, null);
+        Arrays.fill(this.uris, 0, this.size, null);
+        this.size = 0;
+        this.depth = 0;
+    }
+
+    /**
+     * Starts a new scope for namespace declarations.
+     */
+    void pushContext() {
+        if (this.depth == this.scopeStarts.length) {
+            this.scopeStarts = Arrays.copyOf(this.scopeStarts, this.depth * 2);
+        }
+        this.scopeStarts[this.depth++] = this.size;
+    }
+
+    /**
+     * Ends the innermost scope, discarding its declarations.
+     *
+     * @return {@code true} if the scope contained any declarations.
+     */
+    boolean popContext() {
+        if (this.depth == 0) {
+            throw new IllegalStateException("No namespace scope to pop");
+        }
+
+        final int start = this.scopeStarts[--this.depth];
+        if (start == this.size) {
+            return false;
+        }
+
+        Arrays.fill(this.prefixes, start, this.size, null);
+        Arrays.fill(this.uris, start, this.size, null);
+        this.size = start;
+        return true;
+    }
+
+    /**
+     * Declares a namespace prefix in the innermost scope. A prefix declared more than once in the same scope is bound
+     * to the last URI declared for it. The "xml" and "xmlns" prefixes cannot be declared.
+     *
+     * @param prefix Namespace prefix to declare. Specify the empty string to declare the default namespace.
+     * @param uri Namespace URI bound to the prefix
+     * @return {@code true} if the prefix was declared, {@code false} if the prefix cannot be declared.
+     */
+    boolean declarePrefix(final String prefix, final String uri) {
+        if (XmlConstants.XML_NS_PREFIX.equals(prefix) || XmlConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+            return false;
+        }
+
+        // Find the position of the prefix in the sorted declarations of the innermost scope.
+        final int start = getScopeStart();
+        int pos = this.size;
+        while (pos > start) {
+            final int cmp = this.prefixes[pos - 1].compareTo(prefix);
+            if (cmp == 0) {
+                this.uris[pos - 1] = uri;
+                return true;
+            }
+            if (cmp < 0) {
+                break;
+            }
+            pos--;
+        }
+
+        if (this.size == this.prefixes.length) {
+            this.prefixes = Arrays.copyOf(this.prefixes, this.size * 2);
+            this.uris = Arrays.copyOf(this.uris, this.size * 2);
+        }
+        System.arraycopy(this.prefixes, pos, this.prefixes, pos + 1, this.size - pos);
+        System.arraycopy(this.uris, pos, this.uris, pos + 1, this.size - pos);
+        this.prefixes[pos] = prefix;
+        this.uris[pos] = uri;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Obtains the namespace URI bound to the specified prefix.
+     *
+     * @param prefix Namespace prefix to look up. Specify the empty string to look up the default namespace.
+     * @return Namespace URI bound to the prefix, or {@code null} if the prefix is not bound.
+     */
+    @Nullable
+    String getURI(final String prefix) {
+        for (int i = this.size - 1; i >= 0; i--) {
+            if (this.prefixes[i].equals(prefix)) {
+                final String uri = this.uris[i];
+                return uri.isEmpty() ? null : uri;
+            }
+        }
+        return XmlConstants.XML_NS_PREFIX.equals(prefix) ? XmlConstants.XML_NS_URI : null;
+    }
+
+    /**
+     * Obtains a prefix bound to the specified namespace URI. The default namespace prefix is never returned. If more
+     * than one prefix is bound to the URI, the prefix declared in the innermost scope is returned.
+     *
+     * @param uri Namespace URI to look up
+     * @return Prefix bound to the namespace URI, or {@code null} if no non-default prefix is bound to the URI.
+     */
+    @Nullable
+    String getPrefix(final String uri) {
+        if (XmlConstants.XML_NS_URI.equals(uri)) {
+            return XmlConstants.XML_NS_PREFIX;
+        }
+
+        for (int i = this.size - 1; i >= 0; i--) {
+            final String prefix = this.prefixes[i];
+            if (!prefix.isEmpty() && this.uris[i].equals(uri) && uri.equals(getURI(prefix))) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtains the index of the first declaration in the innermost scope. The declarations of the innermost scope
+     * are those from this index up to, but not including, {@link #getSize()}, sorted by prefix.
+     *
+     * @return Index of the first declaration in the innermost scope.
+     */
+    int getScopeStart() {
+        return (this.depth == 0) ? 0 : this.scopeStarts[this.depth - 1];
+    }
+
+    /**
+     * Obtains the total number of declarations in all scopes.
+     *
+     * @return Number of declarations.
+     */
+    int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Obtains the prefix of the specified declaration.
+     *
+     * @param index Index of the declaration
+     * @return Prefix of the declaration. The default namespace is declared using the empty string.
+     */
+    String getDeclaredPrefix(final int index) {
+        return this.prefixes[index];
+    }
+
+    /**
+     * Obtains the namespace URI of the specified declaration.
+     *
+     * @param index Index of the declaration
+     * @return Namespace URI of the declaration.
+     */
+    String getDeclaredURI(final int index) {
+        return this.uris[index];
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Base class for the buffered destinations that the {@link XmlStreamEmitter} writes its output to. All markup and
+ * character data produced by the emitter is appended to a sink, which only passes the output on to its
+ * destination in bulk when its buffer fills or when the sink is flushed. Sinks are not thread safe.
+ */
+abstract class OutputSink extends Writer {
+
+    /** Default size of the sink buffer. */
+    static final int DEF_BUFFER_SIZE = 8192;
+
+    /** Minimum size of the sink buffer. This is large enough to hold any UTF-8 encoded character. */
+    static final int MIN_BUFFER_SIZE = 4;
+
+    /**
+     * Changes the size of the buffer used by the sink. Any buffered output is retained. If the buffer currently
+     * holds more output than the specified size, the buffer is sized to hold the existing output.
+     *
+     * @param size New size for the buffer
+     */
+    abstract void setBufferSize(int size);
+
+    /**
+     * Called when the document is complete to write any remaining output and flush the destination. Sinks that
+     * need to finalize their destination (e.g. set its final length) do so here. By default, the sink is flushed.
+     * The sink must be usable for another document after this method returns.
+     *
+     * @throws IOException If there was a problem completing the output.
+     */
+    void finish() throws IOException {
+        flush();
+    }
+
+    /**
+     * Called when the {@link XmlStreamEmitter} is reset so that it can be reused. Sinks that hold the complete output
+     * discard it here. By default, nothing is done.
+     */
+    void reset() {
+    }
+
+    /**
+     * Indicates whether the sink is holding more output than its destination can currently accept. By default,
+     * sinks never report backpressure.
+     *
+     * @return {@code true} if generation of output should pause until the destination catches up.
+     */
+    boolean isBackpressured() {
+        return false;
+    }
+
+    /**
+     * Verifies that the specified buffer size is usable.
+     *
+     * @param size Buffer size to check
+     * @return The specified buffer size.
+     * @throws IllegalArgumentException if the size is less than {@link #MIN_BUFFER_SIZE}.
+     */
+    static int checkBufferSize(final int size) {
+        if (size < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE);
+        }
+        return size;
+    }
+}
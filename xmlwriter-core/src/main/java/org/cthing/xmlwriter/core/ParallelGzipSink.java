@@ -0,0 +1,214 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Compresses UTF-8 encoded output using multiple threads and writes it to an {@link OutputStream} in the gzip
+ * format. The output is divided into fixed size blocks, each of which is compressed as a separate gzip member by a
+ * task running in a {@link ForkJoinPool}. The compressed members are written to the stream in order, producing a
+ * valid multi-member gzip stream that can be read by any gzip decompressor, including
+ * {@link java.util.zip.GZIPInputStream GZIPInputStream}. This output destination is intended for very large
+ * documents, where the compression rather than the generation of the XML limits the rate at which the document
+ * can be written.
+ *
+ * <p>Memory use is bounded by the number of blocks that may be compressed at the same time. When that many blocks
+ * are being compressed, the thread generating the XML waits for the oldest block to be compressed and written
+ * before starting a new block. Because each block is compressed independently, the compression ratio is slightly
+ * lower than compressing the output as a single stream.</p>
+ *
+ * <p>To use the sink, pass it to the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter
+ * constructor} or the {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. Calling
+ * {@link XmlStreamEmitter#flush() flush} or {@link XmlStreamEmitter#endDocument() endDocument} compresses any partial
+ * block and waits for all blocks to be written. The block size is fixed when the sink is created and is not affected by
+ * {@link XmlStreamEmitter#setBufferSize(int) setBufferSize}.</p>
+ */
+public final class ParallelGzipSink extends Utf8Sink {
+
+    /** Default size of each block of output (128KB). */
+    public static final int DEF_BLOCK_SIZE = 128 * 1024;
+
+    /**
+     * Block of output being compressed.
+     *
+     * @param input Uncompressed output, which is reused once the block has been compressed
+     * @param result Compressed gzip member
+     */
+    private record Block(byte[] input, Future<byte[]> result) {
+    }
+
+    private final OutputStream out;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final int level;
+    private final ArrayDeque<Block> inFlight;
+    private final ArrayDeque<byte[]> freeBuffers;
+
+    /**
+     * Creates a sink that compresses output to the specified stream using the common fork join pool, the default
+     * block size and compression level, and allowing as many blocks in flight as there are processors.
+     *
+     * @param out Stream to receive the compressed output
+     */
+    public ParallelGzipSink(final OutputStream out) {
+        this(out, ForkJoinPool.commonPool(), DEF_BLOCK_SIZE, Runtime.getRuntime().availableProcessors(),
+             Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a sink that compresses output to the specified stream.
+     *
+     * @param out Stream to receive the compressed output
+     * @param pool Pool whose threads compress the blocks
+     * @param blockSize Number of bytes of uncompressed output in each block. Must be at least 4.
+     * @param maxInFlight Maximum number of blocks being compressed at the same time. Must be at least 1.
+     * @param level Compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public ParallelGzipSink(final OutputStream out, final ForkJoinPool pool, final int blockSize,
+                            final int maxInFlight, final int level) {
+        super(blockSize);
+
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Maximum blocks in flight must be at least 1");
+        }
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+                && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        this.out = out;
+        this.pool = pool;
+        this.maxInFlight = maxInFlight;
+        this.level = level;
+        this.inFlight = new ArrayDeque<>();
+        this.freeBuffers = new ArrayDeque<>();
+    }
+
+    /**
+     * The block size is fixed when the sink is created, so the requested size is only validated.
+     *
+     * @param size Requested buffer size
+     */
+    @Override
+    void setBufferSize(final int size) {
+        checkBufferSize(size);
+    }
+
+    /**
+     * Submits the current block for compression and starts a new block. If the maximum number of blocks are
+     * already being compressed, waits for the oldest block to be compressed and writes it.
+     *
+     * @throws IOException If there was a problem compressing or writing a block.
+     */
+    @Override
+    void drainBuffer() throws IOException {
+        if (this.count == 0) {
+            return;
+        }
+
+        if (this.inFlight.size() >= this.maxInFlight) {
+            writeOldest();
+        }
+
+        final byte[] input = this.buffer;
+        final int length = this.count;
+        final int compressionLevel = this.level;
+        this.inFlight.addLast(new Block(input, this.pool.submit(() -> compress(input, length, compressionLevel))));
+
+        final byte[] next = this.freeBuffers.pollFirst();
+        this.buffer = (next == null) ? new byte[input.length] : next;
+        this.count = 0;
+    }
+
+    /**
+     * Compresses any partial block, waits for all blocks to be compressed and written, and flushes the stream.
+     *
+     * @throws IOException If there was a problem compressing or writing a block.
+     */
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+        while (!this.inFlight.isEmpty()) {
+            writeOldest();
+        }
+        this.out.flush();
+    }
+
+    /**
+     * Writes all remaining output and closes the stream.
+     *
+     * @throws IOException If there was a problem compressing or writing a block, or closing the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        this.out.close();
+    }
+
+    /**
+     * Waits for the oldest block to be compressed and writes it to the stream.
+     *
+     * @throws IOException If there was a problem compressing or writing the block.
+     */
+    private void writeOldest() throws IOException {
+        final Block block = this.inFlight.removeFirst();
+        final byte[] member;
+        try {
+            member = block.result().get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a block to be compressed");
+        } catch (final ExecutionException ex) {
+            throw new IOException("Could not compress block", ex.getCause());
+        }
+
+        this.out.write(member);
+        this.freeBuffers.addLast(block.input());
+    }
+
+    /**
+     * Compresses a block of output as a complete gzip member.
+     *
+     * @param input Block of output to compress
+     * @param length Number of bytes in the block
+     * @param level Compression level
+     * @return Gzip member containing the compressed block.
+     * @throws IOException If there was a problem writing the member.
+     */
+    private static byte[] compress(final byte[] input, final int length, final int level) throws IOException {
+        final ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + GzipFormat.HEADER_SIZE
+                                                                               + GzipFormat.TRAILER_SIZE);
+        GzipFormat.writeHeader(member);
+
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            final byte[] compressed = new byte[Math.max(length / 2, MIN_BUFFER_SIZE)];
+            while (!deflater.finished()) {
+                final int n = deflater.deflate(compressed);
+                member.write(compressed, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(input, 0, length);
+        GzipFormat.writeTrailer(member, crc, length);
+        return member.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+
+/**
+ * Pool of equally sized direct {@link ByteBuffer} segments used by {@link SegmentSink}. Allocating direct buffers
+ * is expensive, so segments are returned to the pool once their contents have been written and are reused for
+ * subsequent output. The pool is thread safe so that segments can be released by a thread other than the one
+ * that generated the output.
+ */
+public final class SegmentPool {
+
+    /** Default size of each segment (64KB). */
+    public static final int DEF_SEGMENT_SIZE = 64 * 1024;
+
+    /** Default maximum number of idle segments retained by the pool. */
+    public static final int DEF_MAX_IDLE = 64;
+
+    private final int segmentSize;
+    private final int maxIdle;
+    private final ArrayDeque<ByteBuffer> idle;
+
+    /**
+     * Creates a pool using the default segment size and maximum number of idle segments.
+     */
+    public SegmentPool() {
+        this(DEF_SEGMENT_SIZE, DEF_MAX_IDLE);
+    }
+
+    /**
+     * Creates a pool using the specified segment size and maximum number of idle segments.
+     *
+     * @param segmentSize Size of each segment in bytes. Must be greater than zero.
+     * @param maxIdle Maximum number of released segments retained for reuse. Segments released when the pool
+     *      already holds this many segments are left to the garbage collector. Must not be negative.
+     */
+    public SegmentPool(final int segmentSize, final int maxIdle) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be greater than zero");
+        }
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("Maximum idle segments must not be negative");
+        }
+
+        this.segmentSize = segmentSize;
+        this.maxIdle = maxIdle;
+        this.idle = new ArrayDeque<>();
+    }
+
+    /**
+     * Provides the size of the segments in the pool.
+     *
+     * @return Size of each segment in bytes.
+     */
+    public int getSegmentSize() {
+        return this.segmentSize;
+    }
+
+    /**
+     * Obtains an empty segment from the pool, allocating a new segment if no idle segment is available.
+     *
+     * @return Empty segment ready to be written.
+     */
+    public ByteBuffer acquire() {
+        final ByteBuffer segment;
+        synchronized (this.idle) {
+            segment = this.idle.pollFirst();
+        }
+        return (segment == null) ? ByteBuffer.allocateDirect(this.segmentSize) : segment.clear();
+    }
+
+    /**
+     * Returns a segment to the pool for reuse. The segment must not be used after it has been released. Buffers
+     * that were not obtained from a pool with the same segment size are ignored.
+     *
+     * @param segment Segment to return to the pool
+     */
+    public void release(final ByteBuffer segment) {
+        if (segment.isDirect() && segment.capacity() == this.segmentSize) {
+            synchronized (this.idle) {
+                if (this.idle.size() < this.maxIdle) {
+                    this.idle.addFirst(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Provides the number of idle segments held by the pool.
+     *
+     * @return Number of segments available for reuse.
+     */
+    public int getIdleCount() {
+        synchronized (this.idle) {
+            return this.idle.size();
+        }
+    }
+}
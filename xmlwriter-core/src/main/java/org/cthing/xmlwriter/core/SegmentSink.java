@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Collects UTF-8 encoded output in a list of direct {@link ByteBuffer} segments obtained from a
+ * {@link SegmentPool}. Once the document is complete, the segments can be written to a channel with a single
+ * gathering write using {@link #writeTo(GatheringByteChannel) writeTo}, or obtained using
+ * {@link #getSegments() getSegments} and passed to another I/O layer without copying the output. Call
+ * {@link #release() release} when the segments have been written to return them to the pool. The segments are
+ * also returned to the pool when the emitter is {@link XmlStreamEmitter#reset() reset}.
+ *
+ * <p>To use the sink, pass it to the {@link XmlStreamEmitter#XmlStreamEmitter(java.io.Writer) XmlStreamEmitter
+ * constructor} or the {@link XmlStreamEmitter#setOutput(java.io.Writer) setOutput} method. Output is moved into the
+ * segments when the internal encoding buffer fills, and when {@link XmlStreamEmitter#flush() flush} or
+ * {@link XmlStreamEmitter#endDocument() endDocument} is called.</p>
+ */
+public final class SegmentSink extends Utf8Sink {
+
+    private final SegmentPool pool;
+    private final List<ByteBuffer> segments;
+
+    /**
+     * Creates a sink that obtains its segments from a new pool with the default segment size.
+     */
+    public SegmentSink() {
+        this(new SegmentPool());
+    }
+
+    /**
+     * Creates a sink that obtains its segments from the specified pool. The pool can be shared by multiple sinks.
+     *
+     * @param pool Provides the segments
+     */
+    public SegmentSink(final SegmentPool pool) {
+        super(DEF_BUFFER_SIZE);
+        this.pool = pool;
+        this.segments = new ArrayList<>();
+    }
+
+    /**
+     * Provides the output collected by the sink. Each returned buffer is a view of a segment, positioned at
+     * the start of its output and limited to the end of its output. The views share the contents of the segments
+     * and are only valid until {@link #release() release} is called. Output that has not yet been moved into the
+     * segments is not included, so call {@link XmlStreamEmitter#flush() flush} or {@link XmlStreamEmitter#endDocument()
+     * endDocument} first.
+     *
+     * @return Views of the segments containing the output, in order.
+     */
+    public ByteBuffer[] getSegments() {
+        final ByteBuffer[] views = new ByteBuffer[this.segments.size()];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = this.segments.get(i).duplicate().flip();
+        }
+        return views;
+    }
+
+    /**
+     * Provides the number of bytes of output collected in the segments.
+     *
+     * @return Number of bytes in the segments.
+     */
+    public long getSize() {
+        long size = 0;
+        for (final ByteBuffer segment : this.segments) {
+            size += segment.position();
+        }
+        return size;
+    }
+
+    /**
+     * Writes all output collected in the segments to the specified channel using gathering writes. The method
+     * returns once all output has been written or the channel does not accept any more bytes.
+     *
+     * @param channel Channel to write. The channel will not be closed.
+     * @return Number of bytes written to the channel.
+     * @throws IOException If there was a problem writing to the channel.
+     */
+    public long writeTo(final GatheringByteChannel channel) throws IOException {
+        final ByteBuffer[] views = getSegments();
+        final long size = getSize();
+        long total = 0;
+        while (total < size) {
+            final long written = channel.write(views);
+            if (written <= 0) {
+                break;
+            }
+            total += written;
+        }
+        return total;
+    }
+
+    /**
+     * Returns all segments to the pool. Any views previously obtained from {@link #getSegments() getSegments}
+     * must no longer be used. The sink can then be used to write another document.
+     */
+    public void release() {
+        for (final ByteBuffer segment : this.segments) {
+            this.pool.release(segment);
+        }
+        this.segments.clear();
+    }
+
+    /**
+     * Discards any buffered output and returns all segments to the pool, so that the sink can be reused for the
+     * next document.
+     */
+    @Override
+    void reset() {
+        super.reset();
+        this.count = 0;
+        release();
+    }
+
+    @Override
+    void drainBuffer() throws IOException {
+        int off = 0;
+        while (off < this.count) {
+            ByteBuffer segment = this.segments.isEmpty() ? null : this.segments.get(this.segments.size() - 1);
+            if (segment == null || !segment.hasRemaining()) {
+                segment = this.pool.acquire();
+                this.segments.add(segment);
+            }
+            final int n = Math.min(this.count - off, segment.remaining());
+            segment.put(this.buffer, off, n);
+            off += n;
+        }
+        this.count = 0;
+    }
+
+    /**
+     * Moves all buffered output into the segments.
+     *
+     * @throws IOException If there was a problem moving the output.
+     */
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+    }
+
+    /**
+     * Returns all segments to the pool, discarding the output.
+     */
+    @Override
+    public void close() {
+        this.count = 0;
+        release();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Writes UTF-8 encoded output to an {@link OutputStream}. Characters are encoded into an internal byte buffer, which
+ * is written to the stream in bulk when it fills or when the sink is flushed.
+ */
+final class StreamSink extends Utf8Sink {
+
+    private final OutputStream out;
+
+    /**
+     * Creates a sink that writes to the specified stream.
+     *
+     * @param out Stream to receive the UTF-8 encoded output
+     * @param bufferSize Size of the byte buffer
+     */
+    StreamSink(final OutputStream out, final int bufferSize) {
+        super(bufferSize);
+        this.out = out;
+    }
+
+    @Override
+    void drainBuffer() throws IOException {
+        if (this.count > 0) {
+            this.out.write(this.buffer, 0, this.count);
+            this.count = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        this.out.close();
+    }
+}
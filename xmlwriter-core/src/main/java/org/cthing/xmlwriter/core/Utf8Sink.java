@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Base class for output destinations that encode characters directly into a UTF-8 byte buffer. The encoding is
+ * performed by hand rather than by a {@link java.nio.charset.CharsetEncoder CharsetEncoder} so that characters are
+ * converted to bytes as they are written by the escaping and writing code. Runs of ASCII characters, which make up
+ * the bulk of most XML, are copied straight into the buffer. Subclasses determine what happens to the encoded bytes
+ * when the buffer fills.
+ *
+ * <p>Malformed surrogate sequences are encoded as '?', which matches the replacement behavior of the JDK UTF-8
+ * encoder. This class is not thread safe.</p>
+ */
+abstract class Utf8Sink extends OutputSink {
+
+    /** Maximum number of bytes written for a single character (a pending high surrogate plus a BMP character). */
+    private static final int MAX_BYTES_PER_CHAR = MIN_BUFFER_SIZE;
+
+    /** Number of characters copied from a string at a time. */
+    private static final int STRING_CHUNK_SIZE = 1024;
+
+    /** Replacement byte for malformed surrogate sequences. */
+    private static final byte REPLACEMENT = '?';
+
+    /** Encoded bytes waiting to be drained. */
+    byte[] buffer;
+
+    /** Number of valid bytes in the buffer. */
+    int count;
+
+    /** High surrogate waiting for its low surrogate, or zero if none is pending. */
+    private char highSurrogate;
+
+    /** Scratch array used when writing strings. */
+    private char @Nullable [] chunk;
+
+    /**
+     * Creates the sink with the specified buffer size.
+     *
+     * @param bufferSize Size of the byte buffer
+     */
+    Utf8Sink(final int bufferSize) {
+        this.buffer = new byte[checkBufferSize(bufferSize)];
+    }
+
+    @Override
+    void setBufferSize(final int size) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(checkBufferSize(size), this.count));
+    }
+
+    /**
+     * Empties the byte buffer so that more characters can be encoded. On return, there must be room in the buffer
+     * for at least 4 more bytes.
+     *
+     * @throws IOException If there was a problem writing the bytes.
+     */
+    abstract void drainBuffer() throws IOException;
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (this.count + MAX_BYTES_PER_CHAR > this.buffer.length) {
+            drainBuffer();
+        }
+        encode((char)c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        final int end = off + len;
+        int i = off;
+
+        while (i < end) {
+            if (this.highSurrogate == 0) {
+                // ASCII fast path, limited by the space remaining in the buffer.
+                final byte[] buf = this.buffer;
+                int pos = this.count;
+                final int limit = Math.min(end, i + (buf.length - pos));
+                while (i < limit) {
+                    final char c = cbuf[i];
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    buf[pos++] = (byte)c;
+                    i++;
+                }
+                this.count = pos;
+                if (i == end) {
+                    break;
+                }
+            }
+
+            if (this.count + MAX_BYTES_PER_CHAR > this.buffer.length) {
+                drainBuffer();
+            }
+            encode(cbuf[i++]);
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        if (this.chunk == null) {
+            this.chunk = new char[STRING_CHUNK_SIZE];
+        }
+        final char[] chars = this.chunk;
+
+        int start = off;
+        final int end = off + len;
+        while (start < end) {
+            final int n = Math.min(end - start, chars.length);
+            str.getChars(start, start + n, chars, 0);
+            write(chars, 0, n);
+            start += n;
+        }
+    }
+
+    @Override
+    void finish() throws IOException {
+        finishEncoding();
+        flush();
+    }
+
+    /**
+     * Discards a high surrogate waiting for its low surrogate, so that it is not combined with the first character
+     * written for the next document.
+     */
+    @Override
+    void reset() {
+        this.highSurrogate = 0;
+    }
+
+    /**
+     * Writes a replacement for a high surrogate that will never be completed. Called when the output is finished.
+     *
+     * @throws IOException If there was a problem writing the replacement.
+     */
+    void finishEncoding() throws IOException {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            if (this.count + MAX_BYTES_PER_CHAR > this.buffer.length) {
+                drainBuffer();
+            }
+            this.buffer[this.count++] = REPLACEMENT;
+        }
+    }
+
+    /**
+     * Encodes the specified character into the buffer. The caller must ensure there is room in the buffer for at
+     * least 4 bytes.
+     *
+     * @param c Character to encode
+     */
+    private void encode(final char c) {
+        final byte[] buf = this.buffer;
+        int pos = this.count;
+
+        if (this.highSurrogate != 0) {
+            final char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                final int cp = Character.toCodePoint(high, c);
+                buf[pos++] = (byte)(0xF0 | (cp >> 18));
+                buf[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte)(0x80 | (cp & 0x3F));
+                this.count = pos;
+                return;
+            }
+            buf[pos++] = REPLACEMENT;
+        }
+
+        if (c < 0x80) {
+            buf[pos++] = (byte)c;
+        } else if (c < 0x800) {
+            buf[pos++] = (byte)(0xC0 | (c >> 6));
+            buf[pos++] = (byte)(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buf[pos++] = REPLACEMENT;
+        } else {
+            buf[pos++] = (byte)(0xE0 | (c >> 12));
+            buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte)(0x80 | (c & 0x3F));
+        }
+
+        this.count = pos;
+    }
+}
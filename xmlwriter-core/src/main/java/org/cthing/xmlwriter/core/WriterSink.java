@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+
+/**
+ * Stages output in a reusable character buffer before passing it to a {@link Writer}. The many small writes made
+ * while writing tags (e.g. '&lt;', prefix, ':', name) are coalesced so that the destination writer only sees a
+ * small number of bulk writes. Writes larger than the buffer bypass it.
+ */
+final class WriterSink extends OutputSink {
+
+    private final Writer out;
+    private char[] buffer;
+    private int count;
+
+    /**
+     * Creates a sink that stages output for the specified writer.
+     *
+     * @param out Destination for the output
+     * @param bufferSize Size of the staging buffer in characters
+     */
+    WriterSink(final Writer out, final int bufferSize) {
+        this.out = out;
+        this.buffer = new char[checkBufferSize(bufferSize)];
+    }
+
+    @Override
+    void setBufferSize(final int size) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(checkBufferSize(size), this.count));
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (this.count == this.buffer.length) {
+            drainBuffer();
+        }
+        this.buffer[this.count++] = (char)c;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len > this.buffer.length - this.count) {
+            drainBuffer();
+            if (len >= this.buffer.length) {
+                this.out.write(cbuf, off, len);
+                return;
+            }
+        }
+        System.arraycopy(cbuf, off, this.buffer, this.count, len);
+        this.count += len;
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        if (len > this.buffer.length - this.count) {
+            drainBuffer();
+            if (len >= this.buffer.length) {
+                this.out.write(str, off, len);
+                return;
+            }
+        }
+        str.getChars(off, off + len, this.buffer, this.count);
+        this.count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drainBuffer();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drainBuffer();
+        this.out.close();
+    }
+
+    /**
+     * Passes the buffered output to the destination writer.
+     *
+     * @throws IOException If there was a problem writing the output.
+     */
+    private void drainBuffer() throws IOException {
+        if (this.count > 0) {
+            this.out.write(this.buffer, 0, this.count);
+            this.count = 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+/**
+ * Namespace constants defined by the XML and Namespaces in XML specifications. These are the values of the
+ * corresponding constants in {@code javax.xml.XMLConstants}, which are repeated here so that the core module does
+ * not require the {@code java.xml} module.
+ */
+final class XmlConstants {
+
+    /** Namespace URI used to represent the absence of a namespace. */
+    static final String NULL_NS_URI = "";
+
+    /** Prefix used to represent the default namespace. */
+    static final String DEFAULT_NS_PREFIX = "";
+
+    /** Namespace URI bound to the "xml" prefix. */
+    static final String XML_NS_URI = "http://www.w3.org/XML/1998/namespace";
+
+    /** Prefix bound to the XML namespace. */
+    static final String XML_NS_PREFIX = "xml";
+
+    /** Attribute name used to declare a namespace. */
+    static final String XMLNS_ATTRIBUTE = "xmlns";
+
+    private XmlConstants() {
+    }
+}
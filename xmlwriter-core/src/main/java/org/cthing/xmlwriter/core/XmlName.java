@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.util.Objects;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Precompiled name of an element or attribute. Applications that write documents using a fixed vocabulary can
+ * create the names once and reuse them with the {@link XmlStreamEmitter#startElement(XmlName) startElement},
+ * {@link XmlStreamEmitter#emptyElement(XmlName) emptyElement} and {@link XmlStreamEmitter#addAttribute(XmlName, String)
+ * addAttribute} methods. The emitter caches the namespace prefix it resolves for a name along with the qualified
+ * form of the name, so that the name can be written again without looking up its namespace prefix, as long as the
+ * namespace declarations in effect have not changed.
+ *
+ * <p>Names are immutable from the application's perspective and can be shared between threads and writers. Names
+ * are equal if their namespace URIs and local names are equal.</p>
+ */
+public final class XmlName {
+
+    /**
+     * Resolved form of a name for a particular set of namespace declarations.
+     *
+     * @param epoch Identifies the namespace declarations in effect when the name was resolved
+     * @param qualified Qualified form of the name (i.e. prefix:localName)
+     */
+    record Resolved(long epoch, char[] qualified) {
+    }
+
+    private final String uri;
+    private final String localName;
+    private final String qName;
+
+    /** Qualified form of a name without a namespace, which never needs to be resolved. */
+    private final char @Nullable [] unqualified;
+
+    /** Resolved form of the name when used for an element. */
+    @Nullable
+    private Resolved elementForm;
+
+    /** Resolved form of the name when used for an attribute. */
+    @Nullable
+    private Resolved attributeForm;
+
+    /**
+     * Creates a name that is not in a namespace.
+     *
+     * @param localName Local name. Must not be empty.
+     */
+    public XmlName(final String localName) {
+        this(XmlConstants.NULL_NS_URI, localName, "");
+    }
+
+    /**
+     * Creates a name in the specified namespace.
+     *
+     * @param uri Namespace URI, or the empty string if the name is not in a namespace
+     * @param localName Local name. Must not be empty.
+     */
+    public XmlName(final String uri, final String localName) {
+        this(uri, localName, "");
+    }
+
+    /**
+     * Creates a name in the specified namespace with a qualified name that is used as a template for the namespace
+     * prefix if one must be generated.
+     *
+     * @param uri Namespace URI, or the empty string if the name is not in a namespace
+     * @param localName Local name. Must not be empty.
+     * @param qName Qualified (prefixed) name, or the empty string if none is available
+     */
+    public XmlName(final String uri, final String localName, final String qName) {
+        if (localName.isEmpty()) {
+            throw new IllegalArgumentException("Local name must not be empty");
+        }
+
+        this.uri = uri;
+        this.localName = localName;
+        this.qName = qName;
+        this.unqualified = uri.isEmpty() ? localName.toCharArray() : null;
+    }
+
+    /**
+     * Provides the namespace URI of the name.
+     *
+     * @return Namespace URI, or the empty string if the name is not in a namespace.
+     */
+    public String getUri() {
+        return this.uri;
+    }
+
+    /**
+     * Provides the local name.
+     *
+     * @return Local name.
+     */
+    public String getLocalName() {
+        return this.localName;
+    }
+
+    /**
+     * Provides the qualified name used as a template for the namespace prefix.
+     *
+     * @return Qualified name, or the empty string if none was specified.
+     */
+    public String getQName() {
+        return this.qName;
+    }
+
+    /**
+     * Obtains the cached qualified form of the name if it is valid for the specified namespace declarations.
+     *
+     * @param epoch Identifies the namespace declarations currently in effect
+     * @param isElement {@code true} if the name is being used for an element, {@code false} for an attribute
+     * @return Qualified form of the name, or {@code null} if the name must be resolved.
+     */
+    char @Nullable [] getQualified(final long epoch, final boolean isElement) {
+        if (this.unqualified != null) {
+            return this.unqualified;
+        }
+        final Resolved resolved = isElement ? this.elementForm : this.attributeForm;
+        return (resolved != null && resolved.epoch() == epoch) ? resolved.qualified() : null;
+    }
+
+    /**
+     * Caches the qualified form of the name for the specified namespace declarations. Because the cached form is
+     * immutable and replaced as a whole, names can be safely shared between threads. A race between threads only
+     * results in a name being resolved again.
+     *
+     * @param epoch Identifies the namespace declarations in effect when the name was resolved
+     * @param isElement {@code true} if the name was resolved for an element, {@code false} for an attribute
+     * @param prefix Namespace prefix resolved for the name
+     * @return Qualified form of the name.
+     */
+    char[] setQualified(final long epoch, final boolean isElement, final String prefix) {
+        final char[] qualified = prefix.isEmpty() ? this.localName.toCharArray()
+                                                  : (prefix + ':' + this.localName).toCharArray();
+        final Resolved resolved = new Resolved(epoch, qualified);
+        if (isElement) {
+            this.elementForm = resolved;
+        } else {
+            this.attributeForm = resolved;
+        }
+        return qualified;
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final XmlName other = (XmlName)obj;
+        return this.uri.equals(other.uri) && this.localName.equals(other.localName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.uri, this.localName);
+    }
+
+    @Override
+    public String toString() {
+        return this.uri.isEmpty() ? this.localName : "{" + this.uri + "}" + this.localName;
+    }
+}
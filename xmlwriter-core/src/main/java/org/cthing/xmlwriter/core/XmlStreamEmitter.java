@@ -0,0 +1,2601 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cthing.annotations.AccessForTesting;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Writes XML as a stream of events without any dependency on SAX or the {@code java.xml} module. The emitter is the
+ * engine behind the {@code org.cthing.xmlwriter.XmlWriter} class in the xmlwriter-sax module, which adapts it to
+ * the SAX filter interfaces. Applications that write XML directly, rather than in a SAX filter chain, can use the
+ * emitter to avoid the SAX event forwarding and exception wrapping performed by the XmlWriter, and to run without
+ * the {@code java.xml} module.
+ *
+ * <p>The emitter provides the same events, formatting options, namespace support and output destinations as the
+ * XmlWriter, which are described in the XmlWriter class documentation. The differences are:</p>
+ * <ul>
+ *     <li>Methods that write output throw {@link IOException} rather than wrapping it in a SAX exception</li>
+ *     <li>An event that is not allowed in the current state of the emitter (e.g. adding an attribute after
+ *         character data), or a duplicate streamed attribute, throws an {@link IllegalStateException}</li>
+ *     <li>Attributes are added using the {@link #addAttribute(String, String) addAttribute} methods. The emitter
+ *         does not accept SAX attribute lists.</li>
+ *     <li>In stream mode, the root start tag is written when the output is {@link #flush() flushed}, so that
+ *         attributes can be added to the root element after it is started</li>
+ * </ul>
+ *
+ * <p>The following is an example of using an emitter to write a simple XML document to the standard output:</p>
+ * <pre>
+ * XmlStreamEmitter e = new XmlStreamEmitter();
+ *
+ * e.startDocument(null, true, false);
+ * e.startElement("elem1");
+ * e.characters("Hello World");
+ * e.endElement();
+ * e.endDocument();
+ * </pre>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+@SuppressWarnings("UnusedReturnValue")
+public class XmlStreamEmitter {
+
+    /**
+     * When pretty printing, certain XML constructs can be written either
+     * inline or in a block format. These hints indicate which formatting
+     * should be used, when possible.
+     */
+    public enum FormattingHint {
+        /** Use inline layout where appropriate. */
+        INLINE,
+
+        /** Use block layout where appropriate. */
+        BLOCK
+    }
+
+
+    /**
+     * Represents the state of the emitter.
+     */
+    private enum State {
+        BEFORE_DOC_STATE,
+        BEFORE_ROOT_STATE,
+        IN_START_TAG_STATE,
+        IN_CDATA_STATE,
+        IN_DTD_STATE,
+        AFTER_TAG_STATE,
+        AFTER_DATA_STATE,
+        AFTER_ROOT_STATE,
+        AFTER_DOC_STATE
+    }
+
+
+    /**
+     * Represents a state transition event.
+     */
+    private enum Event {
+        ATTRIBUTE_EVENT,
+        INLINE_REF_EVENT,
+        BLOCK_REF_EVENT,
+        CHARACTERS_EVENT,
+        COMMENT_EVENT,
+        END_CDATA_EVENT,
+        END_DOCUMENT_EVENT,
+        END_DTD_EVENT,
+        END_ELEMENT_EVENT,
+        NEWLINE_EVENT,
+        PI_EVENT,
+        START_CDATA_EVENT,
+        START_DOCUMENT_EVENT,
+        START_DTD_EVENT,
+        START_ELEMENT_EVENT,
+        STREAM_FLUSH_EVENT
+    }
+
+
+    /**
+     * Name of the system property that, when set to "true", forces full validation of the events even when
+     * unchecked mode has been requested using {@link #setUnchecked(boolean) setUnchecked}. Set the property when
+     * running test suites so that misuse of the emitter is caught while production code uses the unchecked mode.
+     */
+    public static final String FORCE_CHECKED_PROPERTY = "org.cthing.xmlwriter.forceChecked";
+
+    private static final String DEFAULT_XML_VERSION = "1.0";
+    private static final String EMPTY_STR = "";
+    private static final String DEF_INDENT = "    ";
+    private static final String DEF_OFFSET = "";
+    private static final String SYNTH_NS_PREFIX = "__NS";
+    private static final char[] EMPTY_CHARS = new char[0];
+
+    /** Initial capacity of the buffer into which strings are copied for escaping. */
+    private static final int INIT_VALUE_CAP = 128;
+
+    /** Number of indentation levels initially cached. */
+    private static final int INIT_INDENT_LEVELS = 16;
+
+    /**
+     * Source of namespace epochs. The source is shared by all emitters, so that an epoch identifies both an emitter
+     * and the namespace declarations in effect for that emitter.
+     */
+    private static final AtomicLong NS_EPOCHS = new AtomicLong();
+
+    private static final State[] STATES = State.values();
+    private static final Event[] EVENTS = Event.values();
+
+    /*
+     * State machine actions. The actions are int constants rather than an enum so that dispatching an action is a
+     * single table switch.
+     */
+    private static final int NO_ACTION = 0;
+    private static final int WRITE_START_TAG_ACTION = 1;
+    private static final int WRITE_EMPTY_TAG_ACTION = 2;
+    private static final int CLOSE_DOC_IN_START_TAG_ACTION = 3;
+    private static final int WRITE_END_TAG_ACTION = 4;
+
+    /*
+     * Layout of an entry in the transition table. The low bits hold the ordinal of the next state, followed by the
+     * ordinal of the next state when the root element has been closed (i.e. the element level is zero after the
+     * action), followed by the action.
+     */
+    private static final int STATE_BITS = 4;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+    private static final int ACTION_SHIFT = STATE_BITS * 2;
+    private static final int INVALID_TRANSITION = -1;
+
+    /**
+     * State machine transition table indexed by {@code state.ordinal() * EVENTS.length + event.ordinal()}. The table
+     * is the implementation of the transitions documented in {@code dev/docs/StateMachine.md}, and is checked against
+     * that document by the tests.
+     */
+    private static final int[] TRANSITIONS = new int[STATES.length * EVENTS.length];
+
+    /**
+     * Transition table used in unchecked mode. The table is identical to the {@link #TRANSITIONS} table except that
+     * events that are not allowed leave the emitter in its current state rather than throwing an exception.
+     */
+    private static final int[] UNCHECKED_TRANSITIONS;
+
+    static {
+        Arrays.fill(TRANSITIONS, INVALID_TRANSITION);
+
+        transition(State.BEFORE_DOC_STATE, State.BEFORE_ROOT_STATE, NO_ACTION, Event.START_DOCUMENT_EVENT);
+
+        transition(State.BEFORE_ROOT_STATE, State.BEFORE_ROOT_STATE, NO_ACTION,
+                   Event.INLINE_REF_EVENT, Event.BLOCK_REF_EVENT, Event.CHARACTERS_EVENT, Event.COMMENT_EVENT,
+                   Event.NEWLINE_EVENT, Event.PI_EVENT);
+        transition(State.BEFORE_ROOT_STATE, State.IN_START_TAG_STATE, NO_ACTION, Event.START_ELEMENT_EVENT);
+        transition(State.BEFORE_ROOT_STATE, State.IN_DTD_STATE, NO_ACTION, Event.START_DTD_EVENT);
+        transition(State.BEFORE_ROOT_STATE, State.AFTER_DOC_STATE, NO_ACTION, Event.END_DOCUMENT_EVENT);
+
+        transition(State.IN_START_TAG_STATE, State.IN_START_TAG_STATE, NO_ACTION, Event.ATTRIBUTE_EVENT);
+        transition(State.IN_START_TAG_STATE, State.AFTER_DATA_STATE, WRITE_START_TAG_ACTION,
+                   Event.INLINE_REF_EVENT, Event.CHARACTERS_EVENT);
+        transition(State.IN_START_TAG_STATE, State.AFTER_TAG_STATE, WRITE_START_TAG_ACTION,
+                   Event.NEWLINE_EVENT, Event.PI_EVENT, Event.BLOCK_REF_EVENT, Event.COMMENT_EVENT);
+        transition(State.IN_START_TAG_STATE, State.IN_START_TAG_STATE, WRITE_START_TAG_ACTION,
+                   Event.START_ELEMENT_EVENT);
+        transition(State.IN_START_TAG_STATE, State.IN_CDATA_STATE, WRITE_START_TAG_ACTION, Event.START_CDATA_EVENT);
+        transition(State.IN_START_TAG_STATE, State.AFTER_TAG_STATE, State.AFTER_ROOT_STATE, WRITE_EMPTY_TAG_ACTION,
+                   Event.END_ELEMENT_EVENT);
+        transition(State.IN_START_TAG_STATE, State.AFTER_DOC_STATE, CLOSE_DOC_IN_START_TAG_ACTION,
+                   Event.END_DOCUMENT_EVENT);
+        transition(State.IN_START_TAG_STATE, State.AFTER_TAG_STATE, WRITE_START_TAG_ACTION, Event.STREAM_FLUSH_EVENT);
+
+        transition(State.IN_CDATA_STATE, State.IN_CDATA_STATE, NO_ACTION,
+                   Event.INLINE_REF_EVENT, Event.BLOCK_REF_EVENT, Event.CHARACTERS_EVENT, Event.COMMENT_EVENT,
+                   Event.NEWLINE_EVENT);
+        transition(State.IN_CDATA_STATE, State.AFTER_DATA_STATE, NO_ACTION, Event.END_CDATA_EVENT);
+
+        transition(State.IN_DTD_STATE, State.IN_DTD_STATE, NO_ACTION,
+                   Event.CHARACTERS_EVENT, Event.COMMENT_EVENT, Event.NEWLINE_EVENT);
+        transition(State.IN_DTD_STATE, State.BEFORE_ROOT_STATE, NO_ACTION, Event.END_DTD_EVENT);
+
+        transition(State.AFTER_TAG_STATE, State.AFTER_DATA_STATE, NO_ACTION,
+                   Event.INLINE_REF_EVENT, Event.CHARACTERS_EVENT);
+        transition(State.AFTER_TAG_STATE, State.AFTER_TAG_STATE, NO_ACTION,
+                   Event.BLOCK_REF_EVENT, Event.COMMENT_EVENT, Event.NEWLINE_EVENT, Event.PI_EVENT);
+        transition(State.AFTER_TAG_STATE, State.IN_CDATA_STATE, NO_ACTION, Event.START_CDATA_EVENT);
+        transition(State.AFTER_TAG_STATE, State.IN_START_TAG_STATE, NO_ACTION, Event.START_ELEMENT_EVENT);
+        transition(State.AFTER_TAG_STATE, State.AFTER_TAG_STATE, State.AFTER_ROOT_STATE, WRITE_END_TAG_ACTION,
+                   Event.END_ELEMENT_EVENT);
+
+        transition(State.AFTER_DATA_STATE, State.AFTER_DATA_STATE, NO_ACTION,
+                   Event.INLINE_REF_EVENT, Event.BLOCK_REF_EVENT, Event.CHARACTERS_EVENT, Event.COMMENT_EVENT,
+                   Event.NEWLINE_EVENT, Event.PI_EVENT);
+        transition(State.AFTER_DATA_STATE, State.IN_CDATA_STATE, NO_ACTION, Event.START_CDATA_EVENT);
+        transition(State.AFTER_DATA_STATE, State.IN_START_TAG_STATE, NO_ACTION, Event.START_ELEMENT_EVENT);
+        transition(State.AFTER_DATA_STATE, State.AFTER_TAG_STATE, State.AFTER_ROOT_STATE, WRITE_END_TAG_ACTION,
+                   Event.END_ELEMENT_EVENT);
+
+        transition(State.AFTER_ROOT_STATE, State.AFTER_ROOT_STATE, NO_ACTION,
+                   Event.INLINE_REF_EVENT, Event.BLOCK_REF_EVENT, Event.CHARACTERS_EVENT, Event.COMMENT_EVENT,
+                   Event.NEWLINE_EVENT, Event.PI_EVENT);
+        transition(State.AFTER_ROOT_STATE, State.AFTER_DOC_STATE, NO_ACTION, Event.END_DOCUMENT_EVENT);
+
+        UNCHECKED_TRANSITIONS = TRANSITIONS.clone();
+        for (int i = 0; i < UNCHECKED_TRANSITIONS.length; i++) {
+            if (UNCHECKED_TRANSITIONS[i] == INVALID_TRANSITION) {
+                final int state = i / EVENTS.length;
+                UNCHECKED_TRANSITIONS[i] = (state << STATE_BITS) | state;
+            }
+        }
+    }
+
+    /** Output destination. */
+    private Writer out;
+
+    /** All output is staged in this sink before it reaches the output destination. */
+    private OutputSink sink;
+
+    /** Size of the output staging buffer. */
+    private int bufferSize;
+
+    /** Determines when the output is flushed automatically, or {@code null} to only flush when requested. */
+    @Nullable
+    private FlushPolicy flushPolicy;
+
+    /** Number of characters written since the output was last flushed. */
+    private long unflushedChars;
+
+    /** Time, in nanoseconds, at which output was first written after the output was last flushed. */
+    private long unflushedSince;
+
+    /** Should output be formatted. */
+    private boolean prettyPrint;
+
+    /** Escape characters above the ASCII range. */
+    private boolean escapeNonAscii;
+
+    /** Use decimal rather than hexadecimal numerical character references. */
+    private boolean useDecimal;
+
+    /** Escaper for character data, specialized for the current escape settings. */
+    private Escaper textEscaper;
+
+    /** Escaper for values delimited by double quotes, specialized for the current escape settings. */
+    private Escaper doubleQuotedEscaper;
+
+    /** Escaper for values delimited by single quotes, specialized for the current escape settings. */
+    private Escaper singleQuotedEscaper;
+
+    /** Storage into which strings are copied for escaping. The storage is retained and grows as needed. */
+    private char[] valueBuffer;
+
+    /** Storage in which numeric character references are formatted by the escapers. */
+    private final char[] referenceBuffer;
+
+    /** Indent string. */
+    private String indentStr;
+
+    /** Indent string repeated for as many levels as have been written, or empty until an indent is written. */
+    private char[] indentChars;
+
+    /** Indent offset string. */
+    private String offsetStr;
+
+    /** Has an offset string been specified. */
+    private boolean haveOffsetStr;
+
+    /** Turn &lt;foo&gt;&lt;/foo&gt; into &lt;foo/&gt;. */
+    private boolean minimize;
+
+    /** Write one attribute per line. */
+    private boolean attrPerLine;
+
+    /** Write the root start tag when flushed and flush the output after each child of the root element. */
+    private boolean streamMode;
+
+    /** Write attributes as soon as they are added. */
+    private boolean streamAttributes;
+
+    /** Skip validation of the events. */
+    private boolean unchecked;
+
+    /** State machine transition table in use. */
+    private int[] transitions;
+
+    /** Version of XML being used. The default is 1.0. */
+    private String xmlVersion;
+
+    /** Current processing state. */
+    private State currentState;
+
+    /** Stack of open elements. */
+    private final ElementStack elementStack;
+
+    /** Namespace management. */
+    private final NamespaceStack nsStack;
+
+    /** Used in creating a namespace prefix. */
+    private int nsPrefixCounter;
+
+    /**
+     * Identifies the namespace declarations currently in effect. A new epoch is obtained whenever a namespace is
+     * declared or a namespace declaration goes out of scope. Used to validate the prefixes cached by {@link XmlName}.
+     */
+    private long nsEpoch;
+
+    /** Maps namespace URI to a prefix. */
+    private final Map<String, String> nsPrefixMap;
+
+    /** Prefix to namespace URI mapping. */
+    private final Map<String, String> nsDeclMap;
+
+    /** Sets of namespace URIs to declare on the root element. */
+    private final Set<String> nsRootDeclSet;
+
+
+    /**
+     * Represents an XML entity.
+     */
+    public static class Entity {
+        private final String name;
+        @Nullable
+        private final String value;
+        @Nullable
+        private final String publicId;
+        @Nullable
+        private final String systemId;
+        @Nullable
+        private final String notationName;
+
+        /**
+         * Defines an internal general entity. A collection of instances of this class can be passed to the
+         * {@link XmlStreamEmitter#doctype(String, String, String, Collection, Collection) doctype} method to declare
+         * the entities using an internal DTD subset.
+         *
+         * @param entName Specifies the name for the entity
+         * @param entValue Specifies the value for the entity
+         */
+        public Entity(final String entName, final String entValue) {
+            this.name = entName;
+            this.value = entValue;
+            this.publicId = null;
+            this.systemId = null;
+            this.notationName = null;
+        }
+
+        /**
+         * Defines an external general entity.
+         *
+         * @param entName Specifies the name for the entity
+         * @param entPublicId Specifies the public ID for the entity or {@code null} if a public ID is not available.
+         * @param entSystemId Specifies the system ID for the entity (cannot be {@code null}).
+         * @param entNotationName Specifies the name of a notation or {@code null} if there is no notation reference.
+         */
+        public Entity(final String entName, @Nullable final String entPublicId, final String entSystemId,
+                      @Nullable final String entNotationName) {
+            this.name = entName;
+            this.value = null;
+            this.publicId = entPublicId;
+            this.systemId = entSystemId;
+            this.notationName = entNotationName;
+        }
+
+        /**
+         * Provides the name for the entity.
+         *
+         * @return Returns the entity name.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Provides the name of the notation, if any.
+         *
+         * @return Returns the notationName.
+         */
+        @Nullable
+        public String getNotationName() {
+            return this.notationName;
+        }
+
+        /**
+         * Provides the public identifier.
+         *
+         * @return Returns the public identifier.
+         */
+        @Nullable
+        public String getPublicId() {
+            return this.publicId;
+        }
+
+        /**
+         * Provides the system identifier.
+         *
+         * @return Returns the system identifier.
+         */
+        @Nullable
+        public String getSystemId() {
+            return this.systemId;
+        }
+
+        /**
+         * Provides the entity value.
+         *
+         * @return Returns the entity value.
+         */
+        @Nullable
+        public String getValue() {
+            return this.value;
+        }
+    }
+
+
+    /**
+     * Represents an XML notation. A collection of instances of this class can be passed to the
+     * {@link XmlStreamEmitter#doctype(String, String, String, Collection, Collection) doctype} method
+     * to declare the notations using an internal DTD subset.
+     *
+     * @param name Specifies the name for the notation
+     * @param publicId Specifies the public ID for the notation or {@code null} if a public ID is not available.
+     * @param systemId Specifies the system ID for the notation or {@code null} if a system ID is not available.
+     */
+    public record Notation(String name, @Nullable String publicId, @Nullable String systemId) {
+    }
+
+
+    /**
+     * Creates an emitter that writes to the standard output.
+     */
+    public XmlStreamEmitter() {
+        this((Writer)null);
+    }
+
+    /**
+     * Creates an emitter that writes to the specified writer.
+     *
+     * @param writer Output destination or {@code null} to use the standard output. The writer will not be closed.
+     */
+    public XmlStreamEmitter(@Nullable final Writer writer) {
+        this.elementStack = new ElementStack();
+        this.nsStack = new NamespaceStack();
+        this.nsPrefixMap = new HashMap<>();
+        this.nsDeclMap = new HashMap<>();
+        this.nsRootDeclSet = new HashSet<>();
+        this.nsEpoch = NS_EPOCHS.incrementAndGet();
+        this.prettyPrint = false;
+        this.escapeNonAscii = false;
+        this.useDecimal = false;
+        this.textEscaper = Escaper.getInstance(EscapeContext.TEXT, false, false);
+        this.doubleQuotedEscaper = Escaper.getInstance(EscapeContext.DOUBLE_QUOTED, false, false);
+        this.singleQuotedEscaper = Escaper.getInstance(EscapeContext.SINGLE_QUOTED, false, false);
+        this.minimize = true;
+        this.valueBuffer = new char[INIT_VALUE_CAP];
+        this.referenceBuffer = new char[Escaper.MAX_REFERENCE_LENGTH];
+        this.indentStr = DEF_INDENT;
+        this.indentChars = EMPTY_CHARS;
+        this.offsetStr = DEF_OFFSET;
+        //noinspection ConstantConditions
+        this.haveOffsetStr = DEF_OFFSET.isEmpty();
+        this.attrPerLine = false;
+        this.streamMode = false;
+        this.streamAttributes = false;
+        this.unchecked = false;
+        this.transitions = TRANSITIONS;
+        this.xmlVersion = DEFAULT_XML_VERSION;
+        this.currentState = State.BEFORE_DOC_STATE;
+        this.bufferSize = OutputSink.DEF_BUFFER_SIZE;
+        this.out = setOutput(writer);
+    }
+
+    /**
+     * Creates an emitter that writes UTF-8 encoded output to the specified stream. Characters are encoded directly
+     * into an internal byte buffer as they are escaped. Output is not guaranteed to reach the stream until
+     * {@link #flush() flush} or {@link #endDocument() endDocument} is called.
+     *
+     * @param stream Output destination. The stream will not be closed.
+     */
+    public XmlStreamEmitter(final OutputStream stream) {
+        this(new StreamSink(stream, OutputSink.DEF_BUFFER_SIZE));
+    }
+
+    /**
+     * Resets the emitter to its initial state so that it can be reused. After {@link #endDocument() endDocument},
+     * the reset method must be called before the emitter can be reused for output.
+     */
+    public final void reset() {
+        this.elementStack.clear();
+        this.nsStack.reset();
+        this.nsPrefixCounter = 0;
+        this.nsEpoch = NS_EPOCHS.incrementAndGet();
+        this.currentState = State.BEFORE_DOC_STATE;
+        this.unflushedChars = 0;
+        this.sink.reset();
+    }
+
+    /**
+     * Flushes the output. In stream mode, if the start tag of the root element has not yet been written, it is
+     * written before the output is flushed. Once the start tag has been written, attributes can no longer be added
+     * to the root element.
+     *
+     * <p>The output is flushed automatically by the {@link #endDocument endDocument} method.
+     *
+     * @throws IOException If a problem occurred while flushing the output.
+     */
+    public void flush() throws IOException {
+        if (this.streamMode && this.currentState == State.IN_START_TAG_STATE && getElementLevel() == 1
+                && !topElement().isEmpty) {
+            handleEvent(Event.STREAM_FLUSH_EVENT);
+        }
+        flushOutput();
+    }
+
+    /**
+     * Sets a new output destination for the emitter. Output is staged in an internal buffer and is not guaranteed
+     * to reach the writer until {@link #flush() flush} or {@link #endDocument() endDocument} is called. Output
+     * that has been buffered for the previous destination, but not yet flushed, is discarded.
+     *
+     * @param writer New output writer to set. If the value of this parameter is {@code null}, the standard
+     *         output is used. The writer will not be closed.
+     * @return The newly set writer.
+     */
+    public final Writer setOutput(@Nullable final Writer writer) {
+        this.out = (writer == null) ? new StreamSink(System.out, this.bufferSize) : writer;
+        this.sink = (this.out instanceof final OutputSink outputSink)
+                    ? outputSink : new WriterSink(this.out, this.bufferSize);
+        this.unflushedChars = 0;
+        return this.out;
+    }
+
+    /**
+     * Sets a new output destination for the emitter. The output is encoded as UTF-8 directly into an internal byte
+     * buffer as it is escaped. Output is not guaranteed to reach the stream until {@link #flush() flush} or
+     * {@link #endDocument() endDocument} is called. Output that has been buffered for the previous destination,
+     * but not yet flushed, is discarded.
+     *
+     * @param stream New output stream to set. The stream will not be closed.
+     * @return The writer that encodes the output to the stream.
+     */
+    public final Writer setOutput(final OutputStream stream) {
+        return setOutput(new StreamSink(stream, this.bufferSize));
+    }
+
+    /**
+     * Directs the output to a new {@link MemorySink}. The output is encoded as UTF-8 and collected in memory
+     * without synchronization, and can be obtained from the returned sink once {@link #endDocument() endDocument}
+     * has been called. The sink is cleared when the emitter is {@link #reset() reset}, so the same sink can be
+     * used for each document written with the emitter.
+     *
+     * @return Sink collecting the output.
+     */
+    public final MemorySink toMemory() {
+        final MemorySink memorySink = new MemorySink(Math.max(this.bufferSize, MemorySink.DEF_CAPACITY));
+        setOutput(memorySink);
+        return memorySink;
+    }
+
+    /**
+     * Returns the output destination. Because output is buffered by the emitter, call {@link #flush() flush}
+     * before writing directly to the destination.
+     *
+     * @return Output destination for the emitter.
+     */
+    public Writer getOutput() {
+        return this.out;
+    }
+
+    /**
+     * Sets the size of the buffer used to stage output before it is passed to the output destination. The size is
+     * in characters for a {@link Writer} destination and in bytes for an {@link OutputStream} destination. The
+     * default size is 8192. Output that is already buffered is retained.
+     *
+     * @param size Size of the output buffer. Must be at least 4.
+     */
+    public void setBufferSize(final int size) {
+        this.bufferSize = OutputSink.checkBufferSize(size);
+        this.sink.setBufferSize(size);
+    }
+
+    /**
+     * Provides the size of the buffer used to stage output before it is passed to the output destination.
+     *
+     * @return Size of the output buffer.
+     */
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    /**
+     * Sets the policy that determines when the output is flushed automatically. The policy is consulted after each
+     * element is closed and after each block of character data is written. By default, there is no flush policy
+     * and the output is only flushed when {@link #flush() flush} or {@link #endDocument() endDocument} is called.
+     *
+     * @param policy Policy that determines when to flush the output, or {@code null} to only flush the output
+     *      when requested
+     */
+    public void setFlushPolicy(@Nullable final FlushPolicy policy) {
+        this.flushPolicy = policy;
+        this.unflushedSince = System.nanoTime();
+    }
+
+    /**
+     * Provides the policy that determines when the output is flushed automatically.
+     *
+     * @return Policy that determines when to flush the output, or {@code null} if the output is only flushed when
+     *      requested.
+     */
+    @Nullable
+    public FlushPolicy getFlushPolicy() {
+        return this.flushPolicy;
+    }
+
+    /**
+     * Indicates whether the output destination is holding more output than it can currently accept. Applications
+     * that write to a destination with limited capacity, such as a {@link ChannelSink}, should call this method
+     * after generating events and pause until the destination has been drained.
+     *
+     * @return {@code true} if the generation of output should be paused.
+     */
+    public boolean isBackpressured() {
+        return this.sink.isBackpressured();
+    }
+
+    /**
+     * Adds the specified prefix for the specified namespace URI. Note that this method does not force the namespace
+     * to be declared on the root element. To do that use the {@link #addNSRootDecl(String) addNSRootDecl} method.
+     *
+     * @param prefix Prefix for the namespace URI. Use an empty string ("") to specify the default namespace.
+     * @param uri URI to be represented by the specified prefix
+     * @return This class instance
+     */
+    public XmlStreamEmitter addNSPrefix(final String prefix, final String uri) {
+        this.nsPrefixMap.put(uri, prefix);
+        return this;
+    }
+
+    /**
+     * Forces the specified namespace to be declared on the root element.
+     *
+     * @param uri The namespace URI to declare on the root element.
+     * @return This class instance
+     */
+    public XmlStreamEmitter addNSRootDecl(final String uri) {
+        this.nsRootDeclSet.add(uri);
+        return this;
+    }
+
+    /**
+     * Adds the specified prefix for the specified namespace URI and forces the namespace to be declared on the root
+     * element.
+     *
+     * @param prefix Prefix for the namespace URI. Use an empty string ("") to specify the default namespace.
+     * @param uri The namespace URI to declare on the root element.
+     * @return This class instance
+     */
+    public XmlStreamEmitter addNSRootDecl(final String prefix, final String uri) {
+        addNSPrefix(prefix, uri);
+        addNSRootDecl(uri);
+        return this;
+    }
+
+    /**
+     * Enables or disables automatic output formatting. Pretty printing is disabled by default.
+     *
+     * @param enable {@code true} to enable automatic output formatting.
+     */
+    public void setPrettyPrint(final boolean enable) {
+        this.prettyPrint = enable;
+    }
+
+    /**
+     * Indicates whether automatic formatting is enabled.
+     *
+     * @return Whether automatic output formatting is enabled or disabled.
+     */
+    public boolean getPrettyPrint() {
+        return this.prettyPrint;
+    }
+
+    /**
+     * Enables or disables stream mode. Stream mode is intended for long-lived documents whose root element remains
+     * open while a series of independent records are written as its children (e.g. an XMPP stream). In stream mode,
+     * the root start tag is written by the first call to {@link #flush() flush} after the root element is started,
+     * or by the first event that writes content into the root element. Each child of the root element is flushed as
+     * soon as it is closed, as is character data written directly within the root element. Stream mode is disabled
+     * by default.
+     *
+     * @param enable {@code true} to enable stream mode
+     */
+    public void setStreamMode(final boolean enable) {
+        this.streamMode = enable;
+    }
+
+    /**
+     * Indicates whether stream mode is enabled.
+     *
+     * @return Whether stream mode is enabled or disabled.
+     */
+    public boolean getStreamMode() {
+        return this.streamMode;
+    }
+
+    /**
+     * Enables or disables streaming attributes. Normally, the attributes of an element are held until the start tag
+     * is complete. When streaming attributes are enabled, each attribute is written to the output as soon as it is
+     * added, and only its name is retained to detect duplicates. When streaming attributes, adding a duplicate
+     * attribute or clearing the attributes using {@link #clearAttributes() clearAttributes} throws an exception.
+     * Streaming attributes are disabled by default.
+     *
+     * @param enable {@code true} to write attributes as soon as they are added
+     */
+    public void setStreamAttributes(final boolean enable) {
+        this.streamAttributes = enable;
+    }
+
+    /**
+     * Indicates whether streaming attributes are enabled.
+     *
+     * @return Whether attributes are written as soon as they are added.
+     */
+    public boolean getStreamAttributes() {
+        return this.streamAttributes;
+    }
+
+    /**
+     * Enables or disables unchecked mode. Normally, every event is validated against the emitter's state and an
+     * exception is thrown for an event that is not allowed. In unchecked mode, the emitter only tracks the state it
+     * needs to format the output, and does not check that events are allowed or that streamed attributes are
+     * unique. The output for an event sequence that is not allowed is undefined. Unchecked mode is disabled by
+     * default, and cannot be enabled if the {@link #FORCE_CHECKED_PROPERTY} system property is set to "true".
+     *
+     * @param enable {@code true} to skip validation of the events
+     */
+    public void setUnchecked(final boolean enable) {
+        this.unchecked = enable && !Boolean.getBoolean(FORCE_CHECKED_PROPERTY);
+        this.transitions = this.unchecked ? UNCHECKED_TRANSITIONS : TRANSITIONS;
+    }
+
+    /**
+     * Indicates whether unchecked mode is in effect.
+     *
+     * @return Whether validation of the events is skipped. Returns {@code false} if unchecked mode was requested
+     *         but validation is forced by the {@link #FORCE_CHECKED_PROPERTY} system property.
+     */
+    public boolean getUnchecked() {
+        return this.unchecked;
+    }
+
+    /**
+     * Escape characters above the ASCII range (i.e. ch &gt; 0x7F). By default, only ASCII control characters
+     * and markup-significant ASCII characters are escaped.
+     *
+     * @param enable {@code true} to escape characters outside the ASCII range using numerical entity references
+     */
+    public void setEscapeNonAscii(final boolean enable) {
+        this.escapeNonAscii = enable;
+        updateEscapers();
+    }
+
+    /**
+     * Indicates whether characters above the ASCII range (i.e. ch &gt; 0x7F) are escaped.
+     *
+     * @return {@code true} if characters outside the ASCII range are being escaped.
+     */
+    public boolean getEscapeNonAscii() {
+        return this.escapeNonAscii;
+    }
+
+    /**
+     * Use decimal for numerical character entities (i.e. &amp;#DDDD;). By default, hexadecimal
+     * (i.e. &amp;#xHHH;) is used for numerical character entities.
+     *
+     * @param enable {@code true} to use decimal rather than hexadecimal for numerical character entities
+     */
+    public void setUseDecimal(final boolean enable) {
+        this.useDecimal = enable;
+        updateEscapers();
+    }
+
+    /**
+     * Indicates whether decimal is being used for numerical character entities rather than hexadecimal.
+     *
+     * @return {@code true} if decimal is being used for numerical character entities.
+     */
+    public boolean getUseDecimal() {
+        return this.useDecimal;
+    }
+
+    /**
+     * Sets the whitespace string to use for indentation when automatic formatting is enabled. The default
+     * indentation string is four spaces.
+     *
+     * @param indent Whitespace string to use for indentation
+     */
+    public void setIndentString(@Nullable final String indent) {
+        this.indentStr = (indent == null) ? "" : indent;
+        this.indentChars = EMPTY_CHARS;
+    }
+
+    /**
+     * Sets the whitespace string to use for indentation and constant offset when automatic formatting is enabled.
+     * The default offset is the empty string and the default indentation string is four spaces.
+     *
+     * @param offset Whitespace string to use as offset
+     * @param indent Whitespace string to use for indentation
+     */
+    public void setIndentString(@Nullable final String offset, @Nullable final String indent) {
+        this.offsetStr = (offset == null) ? DEF_OFFSET : offset;
+        this.haveOffsetStr = !this.offsetStr.isEmpty();
+        setIndentString(indent);
+    }
+
+    /**
+     * Returns the string used for indenting.
+     *
+     * @return The string used for indenting when automatic formatting is enabled.
+     */
+    public String getIndentString() {
+        return this.indentStr;
+    }
+
+    /**
+     * Returns the string used for line offsetting.
+     *
+     * @return The string used to offset a line when automatic formatting is enabled.
+     */
+    public String getOffsetString() {
+        return this.offsetStr;
+    }
+
+    /**
+     * Indicates whether a start tag followed immediately by an end tag should be consolidated into a single empty
+     * tag. By default, tag minimization is enabled.
+     *
+     * @param minimizeEmpty {@code true} indicates that empty start/end tags should be consolidated into a single
+     *         empty tag.
+     */
+    public void setMinimizeEmpty(final boolean minimizeEmpty) {
+        this.minimize = minimizeEmpty;
+    }
+
+    /**
+     * Indicates whether empty tag minimization is enabled.
+     *
+     * @return Indicates whether a start tag followed immediately by an end tag is consolidated into a single empty tag.
+     */
+    public boolean getMinimizeEmpty() {
+        return this.minimize;
+    }
+
+    /**
+     * Attributes can be written all on one line or each on a separate line. By default, all attributes appear on the
+     * same line as the start tag.
+     *
+     * @param separateLine {@code true} if attributes should each be placed on a separate line.
+     */
+    public void setAttrPerLine(final boolean separateLine) {
+        this.attrPerLine = separateLine;
+    }
+
+    /**
+     * Indicates whether all attributes are written on one line.
+     *
+     * @return Indicates whether attributes are written all on one line or each on a separate line.
+     */
+    public boolean getAttrPerLine() {
+        return this.attrPerLine;
+    }
+
+    /**
+     * Obtains the version of XML used by the document.
+     *
+     * @return Version of XML used by the document. The default is 1.0.
+     */
+    public String getXmlVersion() {
+        return this.xmlVersion;
+    }
+
+    /**
+     * Sets the version of XML used by the document.
+     *
+     * @param xmlVersion  Version of XML used by the document.
+     */
+    public void setXmlVersion(final String xmlVersion) {
+        this.xmlVersion = xmlVersion;
+    }
+
+    /**
+     * Returns the element nesting depth.
+     *
+     * @return The depth of element nesting. Zero is the level outside the root element.
+     */
+    public int getElementLevel() {
+        return this.elementStack.depth();
+    }
+
+    /**
+     * Provides the namespace URI of the innermost open element.
+     *
+     * @return Namespace URI specified when the element was started.
+     * @throws NoSuchElementException If there is no open element.
+     */
+    public String getElementURI() {
+        return topElement().uri;
+    }
+
+    /**
+     * Provides the local name of the innermost open element.
+     *
+     * @return Local name specified when the element was started.
+     * @throws NoSuchElementException If there is no open element.
+     */
+    public String getElementLocalName() {
+        return topElement().localName;
+    }
+
+    /**
+     * Provides the qualified name of the innermost open element.
+     *
+     * @return Qualified name specified when the element was started, or the empty string if none was specified.
+     * @throws NoSuchElementException If there is no open element.
+     */
+    public String getElementQName() {
+        return topElement().qName;
+    }
+
+    /**
+     * Starts an XML document by writing the XML header. This method must be called before any other event method
+     * is called.
+     *
+     * @param encoding The encoding for the document or {@code null} if the encoding should not be specified in the
+     *         XML header.
+     * @param sa Specify {@code true} if the document does not contain any external markup declarations.
+     * @param isFragment Specify {@code true} if the document is only a fragment of a larger XML document in which
+     *         case the XML header is not written.
+     * @return This class instance
+     * @throws IOException If there is a problem writing the XML header.
+     */
+    public XmlStreamEmitter startDocument(@Nullable final String encoding, final boolean sa, final boolean isFragment)
+            throws IOException {
+        handleEvent(Event.START_DOCUMENT_EVENT);
+
+        if (!isFragment) {
+            writeRaw("<?xml version=");
+            writeQuoted(this.xmlVersion);
+            if (encoding != null) {
+                writeRaw(" encoding=");
+                writeQuoted(encoding);
+            }
+            writeRaw(" standalone=");
+            writeQuoted(sa ? "yes" : "no");
+            writeRaw("?>");
+            writeNewline();
+        }
+
+        return this;
+    }
+
+    /**
+     * Ends the XML output. This method must be called to properly terminate the XML document. Before the emitter
+     * can be reused, the {@link #reset() reset} method must be called. This method does not close the underlying
+     * writer object.
+     *
+     * @throws IOException If there is a problem ending the XML output.
+     */
+    public void endDocument() throws IOException {
+        handleEvent(Event.END_DOCUMENT_EVENT);
+
+        writeNewline();
+        this.sink.finish();
+        this.unflushedChars = 0;
+    }
+
+    /**
+     * Writes a Document Type Declaration.
+     *
+     * @param name Root element name
+     * @param publicId Public identifier or {@code null} if no public identifier is available.
+     * @param systemId System identifier (must be specified).
+     * @return This class instance
+     * @throws IOException If there is a problem writing the DOCTYPE.
+     */
+    public XmlStreamEmitter doctype(final String name, @Nullable final String publicId, final String systemId)
+            throws IOException {
+        startDTD(name, publicId, systemId);
+        endDTD();
+        return this;
+    }
+
+    /**
+     * Writes a Document Type Declaration.
+     *
+     * @param name Root element name
+     * @param publicId Public identifier of {@code null} if no public identifier is available.
+     * @param systemId System identified (must be specified).
+     * @param entities Collection of Entity objects to declare in an internal subset. Specify {@code null} or a
+     *         zero size collection if there are no entities to declare.
+     * @param notations Collection of Notation objects to declare in an internal subset. Specify {@code null} or a
+     *         zero size collection if there are no notations to declare.
+     * @return This class instance
+     * @throws IOException If there is a problem writing the DOCTYPE.
+     */
+    public XmlStreamEmitter doctype(final String name, @Nullable final String publicId, final String systemId,
+                                    @Nullable final Collection<? extends Entity> entities,
+                                    @Nullable final Collection<Notation> notations) throws IOException {
+        startDTD(name, publicId, systemId);
+        if ((entities != null && !entities.isEmpty()) || (notations != null && !notations.isEmpty())) {
+            writeRaw(" [");
+            if (entities != null) {
+                for (final Entity entity : entities) {
+                    writeNewline();
+                    writeRaw(this.offsetStr + this.indentStr);
+                    writeEntityDecl(entity);
+                }
+            }
+            if (notations != null) {
+                for (final Notation notation : notations) {
+                    writeNewline();
+                    writeRaw(this.offsetStr + this.indentStr);
+                    writeNotationDecl(notation);
+                }
+            }
+            writeNewline();
+            writeRaw(']');
+        }
+        endDTD();
+        return this;
+    }
+
+    /**
+     * Begins a DTD declaration.
+     *
+     * @param name Root element name
+     * @param publicId Public identifier
+     * @param systemId System identifier
+     * @throws IOException If there is a problem writing the DTD
+     */
+    public void startDTD(final String name, @Nullable final String publicId, final String systemId)
+            throws IOException {
+        handleEvent(Event.START_DTD_EVENT);
+
+        writeRaw("<!DOCTYPE ");
+        writeRaw(name);
+
+        if (publicId != null) {
+            writeRaw(" PUBLIC \"" + publicId + '"');
+        } else {
+            writeRaw(" SYSTEM");
+        }
+        writeRaw(" \"" + systemId + '"');
+    }
+
+    /**
+     * Ends a DTD declaration.
+     *
+     * @throws IOException If there is an error while writing the DTD
+     */
+    public void endDTD() throws IOException {
+        handleEvent(Event.END_DTD_EVENT);
+
+        writeRaw('>');
+        writeNewline();
+        writeNewline();
+    }
+
+    /**
+     * Starts a new element. Attributes for the element can be specified using the
+     * {@link #addAttribute(String, String) addAttribute} methods. Each call to startElement requires a
+     * corresponding call to {@link #endElement() endElement}.
+     *
+     * @param uri The element's namespace URI
+     * @param localName The element's local name
+     * @param qName The element's qualified (prefixed) name, or the empty string if none is available. This method
+     *         will use the qName as a template for generating a prefix if necessary, but it is not guaranteed
+     *         to use the same qName.
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     */
+    public XmlStreamEmitter startElement(final String uri, final String localName, final String qName)
+            throws IOException {
+        pushElement(uri, localName, qName, null, false);
+        return this;
+    }
+
+    /**
+     * Starts a new element with an empty qualified name.
+     *
+     * @param uri The element's namespace URI
+     * @param localName The element's local name
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     * @see #startElement(String, String, String)
+     */
+    public XmlStreamEmitter startElement(final String uri, final String localName) throws IOException {
+        pushElement(uri, localName, EMPTY_STR, null, false);
+        return this;
+    }
+
+    /**
+     * Starts a new element that is not in a namespace.
+     *
+     * @param localName The element's local name
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     * @see #startElement(String, String, String)
+     */
+    public XmlStreamEmitter startElement(final String localName) throws IOException {
+        pushElement(XmlConstants.NULL_NS_URI, localName, EMPTY_STR, null, false);
+        return this;
+    }
+
+    /**
+     * Starts a new element using a precompiled name. The namespace prefix resolved for the name is cached by the
+     * name and reused while the namespace declarations in effect are unchanged.
+     *
+     * @param name The element's name
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     * @see #startElement(String, String, String)
+     */
+    public XmlStreamEmitter startElement(final XmlName name) throws IOException {
+        pushElement(name.getUri(), name.getLocalName(), name.getQName(), name, false);
+        return this;
+    }
+
+    /**
+     * Writes an end tag for the element that is open at the current level. <strong>Since empty elements do not have
+     * closing tags, do not call this method to close an {@link #emptyElement(String) emptyElement}.</strong>
+     *
+     * @throws IOException If there is an error writing the tag.
+     */
+    public void endElement() throws IOException {
+        handleEvent(Event.END_ELEMENT_EVENT);
+    }
+
+    /**
+     * Creates an empty element. Attributes for the element can be specified using the
+     * {@link #addAttribute(String, String) addAttribute} methods. <strong>Since empty elements do not have closing
+     * tags, do not call {@link #endElement() endElement} to close this element.</strong>
+     *
+     * @param uri The element's namespace URI
+     * @param localName The element's local name
+     * @param qName The element's qualified (prefixed) name, or the empty string if none is available.
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     */
+    public XmlStreamEmitter emptyElement(final String uri, final String localName, final String qName)
+            throws IOException {
+        pushElement(uri, localName, qName, null, true);
+        return this;
+    }
+
+    /**
+     * Creates an empty element with an empty qualified name.
+     *
+     * @param uri The element's namespace URI
+     * @param localName The element's local name
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     * @see #emptyElement(String, String, String)
+     */
+    public XmlStreamEmitter emptyElement(final String uri, final String localName) throws IOException {
+        pushElement(uri, localName, EMPTY_STR, null, true);
+        return this;
+    }
+
+    /**
+     * Creates an empty element that is not in a namespace.
+     *
+     * @param localName The element's local name
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     * @see #emptyElement(String, String, String)
+     */
+    public XmlStreamEmitter emptyElement(final String localName) throws IOException {
+        pushElement(XmlConstants.NULL_NS_URI, localName, EMPTY_STR, null, true);
+        return this;
+    }
+
+    /**
+     * Creates an empty element using a precompiled name.
+     *
+     * @param name The element's name
+     * @return This class instance
+     * @throws IOException If there is an error writing a tag.
+     * @see #emptyElement(String, String, String)
+     */
+    public XmlStreamEmitter emptyElement(final XmlName name) throws IOException {
+        pushElement(name.getUri(), name.getLocalName(), name.getQName(), name, true);
+        return this;
+    }
+
+    /**
+     * Removes the attributes already added to the current start tag.
+     *
+     * @return This class instance
+     * @throws IllegalStateException If attributes cannot be added in the current state, or the attributes have
+     *         already been written because they are being streamed.
+     * @throws IOException If there is a problem writing the output.
+     */
+    public XmlStreamEmitter clearAttributes() throws IOException {
+        handleEvent(Event.ATTRIBUTE_EVENT);
+
+        final Element element = topElement();
+        if (element.tagOpened) {
+            throw new IllegalStateException("Attributes cannot be replaced once they have been written");
+        }
+        element.attrs.clear();
+        return this;
+    }
+
+    /**
+     * Adds an attribute to the current start tag.
+     *
+     * @param uri The attribute's namespace URI
+     * @param localName The attribute's local name
+     * @param qName The attribute's qualified (prefixed) name, or the empty string if none is available. This method
+     *         will use the qName as a template for generating a prefix if necessary, but it is not guaranteed to use the
+     *         same qName.
+     * @param value The attribute's value
+     * @return This class instance
+     * @throws IOException If there is an error writing the attribute.
+     */
+    public XmlStreamEmitter addAttribute(final String uri, final String localName, final String qName,
+                                         final String value) throws IOException {
+        handleEvent(Event.ATTRIBUTE_EVENT);
+
+        final Element element = topElement();
+        if (element.tagOpened) {
+            writeStreamedAttribute(uri, localName, qName, null, value);
+        } else {
+            element.attrs.addAttribute(uri, localName, qName, value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds an attribute with an empty qualified name to the current start tag.
+     *
+     * @param uri The attribute's namespace URI
+     * @param localName The attribute's local name
+     * @param value The attribute's value
+     * @return This class instance
+     * @throws IOException If there is an error writing the attribute.
+     * @see #addAttribute(String, String, String, String)
+     */
+    public XmlStreamEmitter addAttribute(final String uri, final String localName, final String value)
+            throws IOException {
+        return addAttribute(uri, localName, EMPTY_STR, value);
+    }
+
+    /**
+     * Adds an attribute that is not in a namespace to the current start tag.
+     *
+     * @param localName The attribute's local name
+     * @param value The attribute's value
+     * @return This class instance
+     * @throws IOException If there is an error writing the attribute.
+     * @see #addAttribute(String, String, String, String)
+     */
+    public XmlStreamEmitter addAttribute(final String localName, final String value) throws IOException {
+        return addAttribute(XmlConstants.NULL_NS_URI, localName, EMPTY_STR, value);
+    }
+
+    /**
+     * Adds an attribute with a precompiled name to the current start tag. The namespace prefix resolved for the
+     * name is cached by the name and reused while the namespace declarations in effect are unchanged.
+     *
+     * @param name The attribute's name
+     * @param value The attribute's value
+     * @return This class instance
+     * @throws IOException If there is an error writing the attribute.
+     */
+    public XmlStreamEmitter addAttribute(final XmlName name, final String value) throws IOException {
+        handleEvent(Event.ATTRIBUTE_EVENT);
+
+        final Element element = topElement();
+        if (element.tagOpened) {
+            writeStreamedAttribute(name.getUri(), name.getLocalName(), name.getQName(), name, value);
+        } else {
+            element.attrs.addAttribute(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the specified character array as escaped XML data. Within a CDATA section, the characters are written
+     * without escaping.
+     *
+     * @param carr Character array to write
+     * @param start Starting index in the array
+     * @param length Number of characters to write
+     * @throws IOException If there is an error writing the characters.
+     */
+    public void characters(final char[] carr, final int start, final int length) throws IOException {
+        handleEvent(Event.CHARACTERS_EVENT);
+        writeCharacters(carr, start, length);
+    }
+
+    /**
+     * Writes the specified string as escaped XML data.
+     *
+     * @param data String to write. If {@code null} is specified, nothing is written.
+     * @return This class instance
+     * @throws IOException If there is a problem writing the data.
+     * @see #characters(char[], int, int)
+     */
+    public XmlStreamEmitter characters(@Nullable final String data) throws IOException {
+        if (data != null) {
+            handleEvent(Event.CHARACTERS_EVENT);
+
+            // The string is copied after the event is handled, because handling it can write attribute values.
+            writeCharacters(copyValue(data), 0, data.length());
+        }
+        return this;
+    }
+
+    /**
+     * Writes the specified character array as character data and applies the flush policy.
+     *
+     * @param carr Character array to write
+     * @param start Starting index in the array
+     * @param length Number of characters to write
+     * @throws IOException If there is an error writing the characters.
+     */
+    private void writeCharacters(final char[] carr, final int start, final int length) throws IOException {
+        if (this.currentState == State.IN_CDATA_STATE) {
+            writeRaw(carr, start, length);
+        } else {
+            writeEscaped(carr, start, length);
+        }
+
+        if (this.streamMode && getElementLevel() == 1) {
+            flushOutput();
+        } else {
+            applyFlushPolicy(0);
+        }
+    }
+
+    /**
+     * Writes the specified string as unescaped XML data.
+     *
+     * @param data String to write
+     * @return This class instance
+     * @throws IOException If there is a problem writing the data.
+     */
+    public XmlStreamEmitter data(final String data) throws IOException {
+        handleEvent(Event.CHARACTERS_EVENT);
+
+        writeRaw(data);
+        return this;
+    }
+
+    /**
+     * Begins a CDATA section.
+     *
+     * @throws IOException If there is a problem starting the section
+     */
+    public void startCDATA() throws IOException {
+        handleEvent(Event.START_CDATA_EVENT);
+
+        writeRaw("<![CDATA[");
+    }
+
+    /**
+     * Ends a CDATA section.
+     *
+     * @throws IOException If there is a problem ending the section
+     */
+    public void endCDATA() throws IOException {
+        handleEvent(Event.END_CDATA_EVENT);
+
+        writeRaw("]]>");
+    }
+
+    /**
+     * Writes a CDATA section that consists of the CDATA start tag, the specified data, and the CDATA end tag.
+     *
+     * @param data Data for the CDATA section
+     * @return This class instance
+     * @throws IOException If there is a problem writing the CDATA section.
+     */
+    public XmlStreamEmitter cdataSection(final String data) throws IOException {
+        startCDATA();
+        characters(data);
+        endCDATA();
+        return this;
+    }
+
+    /**
+     * Writes the specified character array as an XML comment. Comments within a DTD are not written.
+     *
+     * @param carr Comment as a character array
+     * @param start Starting index into the array
+     * @param length Number of character to write from the array
+     * @throws IOException If there is a problem writing the comment
+     */
+    public void comment(final char[] carr, final int start, final int length) throws IOException {
+        handleEvent(Event.COMMENT_EVENT);
+        writeComment(carr, start, length);
+    }
+
+    /**
+     * Writes the specified string as an XML comment. Comments are always written in-line regardless of pretty
+     * printing. To place a comment on its own line, use the {@link #newline() newline} method.
+     *
+     * @param info Comment to write
+     * @return This class instance
+     * @throws IOException If there is a problem writing the comment.
+     */
+    public XmlStreamEmitter comment(final String info) throws IOException {
+        handleEvent(Event.COMMENT_EVENT);
+
+        // The string is copied after the event is handled, because handling it can write attribute values.
+        writeComment(copyValue(info), 0, info.length());
+        return this;
+    }
+
+    /**
+     * Writes the specified character array as an XML comment unless the comment is within a DTD.
+     *
+     * @param carr Comment as a character array
+     * @param start Starting index into the array
+     * @param length Number of character to write from the array
+     * @throws IOException If there is a problem writing the comment
+     */
+    private void writeComment(final char[] carr, final int start, final int length) throws IOException {
+        if (this.currentState != State.IN_DTD_STATE) {
+            writeRaw("<!--");
+            writeRaw(carr, start, length);
+            writeRaw("-->");
+        }
+    }
+
+    /**
+     * Writes a processing instruction. Processing instructions (PI) are always written in-line regardless of
+     * pretty printing. To place a PI on its own line, use the {@link #newline() newline} method.
+     *
+     * @param target Target command for the instruction
+     * @param data Data for the command
+     * @throws IOException If there is a problem writing the processing instruction.
+     */
+    public void processingInstruction(final String target, final String data) throws IOException {
+        handleEvent(Event.PI_EVENT);
+
+        writeRaw("<?");
+        writeRaw(target);
+        writeRaw(' ');
+        writeRaw(data);
+        writeRaw("?>");
+    }
+
+    /**
+     * Writes the specified entity as an entity reference inline with element and character data.
+     *
+     * @param entityName Name of the entity to write as an entity reference
+     * @return This class instance
+     * @throws IOException If there is a problem writing the entity reference.
+     * @see #entityRef(String, FormattingHint)
+     */
+    public XmlStreamEmitter entityRef(final String entityName) throws IOException {
+        return entityRef(entityName, FormattingHint.INLINE);
+    }
+
+    /**
+     * Writes the specified entity as an entity reference. For example, the entity name "amp" is written as the
+     * entity reference &amp;amp;. When {@link #setPrettyPrint(boolean) pretty printing} is enabled, this method
+     * attempts to write the entity references either inline with element and character data, or as a standalone
+     * block.
+     *
+     * @param entityName Name of the entity to write as an entity reference
+     * @param hint Hint to indicate if the entity reference should be written inline with element and character
+     *         data, or as a standalone block. The hint is ignored when not in pretty printing mode.
+     * @return This class instance
+     * @throws IOException If there is a problem writing the entity reference.
+     */
+    public XmlStreamEmitter entityRef(final String entityName, final FormattingHint hint) throws IOException {
+        handleEvent((hint == FormattingHint.INLINE) ? Event.INLINE_REF_EVENT : Event.BLOCK_REF_EVENT);
+
+        if (this.prettyPrint && hint == FormattingHint.BLOCK) {
+            writeNewline();
+            writeIndent(1);
+        }
+
+        writeRaw('&');
+        writeRaw(entityName);
+        writeRaw(';');
+
+        if (this.prettyPrint && hint == FormattingHint.BLOCK) {
+            writeNewline();
+            writeIndent(1);
+        }
+
+        return this;
+    }
+
+    /**
+     * Write the specified character as a character reference. For example, the character 'a' is written as the
+     * character reference &amp;#97;.
+     *
+     * @param ch Character to write as a character reference
+     * @return This class instance
+     * @throws IOException If there is a problem writing the character reference.
+     */
+    public XmlStreamEmitter characterRef(final char ch) throws IOException {
+        handleEvent(Event.INLINE_REF_EVENT);
+
+        final int pos = Escaper.formatReference(ch, true, this.referenceBuffer);
+        writeRaw(this.referenceBuffer, pos, Escaper.MAX_REFERENCE_LENGTH - pos);
+
+        return this;
+    }
+
+    /**
+     * Writes a newline. If pretty printing is enabled and a CDATA section is not open, the new line begins at the
+     * current indentation.
+     *
+     * @return This class instance
+     * @throws IOException If there is a problem writing the newline.
+     */
+    public XmlStreamEmitter newline() throws IOException {
+        handleEvent(Event.NEWLINE_EVENT);
+
+        writeNewline();
+        if (this.prettyPrint && this.currentState != State.IN_CDATA_STATE) {
+            writeIndent(1);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Internal representation of an element. Elements are mutable frames that are reused by the
+     * {@link ElementStack}, so that pushing an element does not allocate memory once the stack has reached its
+     * working depth and the attribute storage of each frame has grown to its working size.
+     */
+    private static final class Element {
+
+        /** Initial capacity of the resolved name buffer. */
+        private static final int INIT_NAME_CAP = 32;
+
+        /** Namespace URI for the element. */
+        String uri;
+
+        /** Local name for the element. */
+        String localName;
+
+        /** Qualified name for the element. */
+        String qName;
+
+        /** Precompiled name for the element, or {@code null} if the element was not started using one. */
+        @Nullable
+        XmlName name;
+
+        /** Element attributes. The storage is retained when the frame is reused. */
+        final AttributeStore attrs;
+
+        /** Indicates if the element can contain content. */
+        boolean isEmpty;
+
+        /** Emitter state in which this element is being written. */
+        State containingState;
+
+        /** Indicates whether the start tag has been written up to its attributes. */
+        boolean tagOpened;
+
+        /** Names of the attributes written as soon as they were added. Not maintained in unchecked mode. */
+        final AttributeNameSet attrNames;
+
+        /** Number of attributes written as soon as they were added. */
+        int streamedCount;
+
+        /**
+         * Qualified name written in the start tag, which is reused to write the end tag. Refers to either the name
+         * buffer or the qualified form cached by the precompiled name.
+         */
+        char[] resolvedName;
+
+        /** Number of characters in the resolved name. */
+        int resolvedLength;
+
+        /** Storage for the resolved name. The storage is retained when the frame is reused. */
+        char[] nameBuffer;
+
+        Element() {
+            this.uri = EMPTY_STR;
+            this.localName = EMPTY_STR;
+            this.qName = EMPTY_STR;
+            this.attrs = new AttributeStore();
+            this.containingState = State.BEFORE_DOC_STATE;
+            this.attrNames = new AttributeNameSet();
+            this.nameBuffer = new char[INIT_NAME_CAP];
+            this.resolvedName = this.nameBuffer;
+        }
+    }
+
+
+    /**
+     * A stack for elements. The stack is an array of reusable {@link Element} frames. A popped frame remains valid
+     * until the next push.
+     */
+    private static final class ElementStack {
+
+        /**
+         * Initial capacity of the stack.
+         */
+        private static final int INIT_CAP = 20;
+
+        private Element[] elements;
+
+        private int depth;
+
+        private ElementStack() {
+            this.elements = new Element[INIT_CAP];
+            allocateFrames(0);
+        }
+
+        /**
+         * Returns the top element off of this stack without removing it.
+         *
+         * @return The top element on the stack
+         */
+        public Element peek() {
+            if (this.depth == 0) {
+                throw new NoSuchElementException();
+            }
+            return this.elements[this.depth - 1];
+        }
+
+        /**
+         * Pops the top element off of this stack. The frame of the popped element is not modified until the next
+         * element is pushed.
+         */
+        public void pop() {
+            if (this.depth == 0) {
+                throw new NoSuchElementException();
+            }
+            this.depth--;
+        }
+
+        /**
+         * Pushes a new element onto the top of this stack. The frame at the top of the stack is reused if one is
+         * available, and its attributes are cleared.
+         *
+         * @param namespaceUri Namespace URI or empty string
+         * @param name Local name for the element
+         * @param qualifiedName Qualified name for the element or empty string
+         * @param xmlName Precompiled name for the element or {@code null}
+         * @param empty Indicates if the element was created as an empty element
+         * @param state State in which element is started
+         */
+        public void push(final String namespaceUri, final String name, final String qualifiedName,
+                         @Nullable final XmlName xmlName, final boolean empty, final State state) {
+            if (this.depth == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, this.depth * 2);
+                allocateFrames(this.depth);
+            }
+
+            final Element element = this.elements[this.depth++];
+
+            element.uri = namespaceUri;
+            element.localName = name;
+            element.qName = qualifiedName;
+            element.name = xmlName;
+            element.isEmpty = empty;
+            element.containingState = state;
+            element.tagOpened = false;
+            element.attrNames.clear();
+            element.streamedCount = 0;
+            element.attrs.clear();
+        }
+
+        /**
+         * Provides the current depth of the stack.
+         *
+         * @return Depth of the stack.
+         */
+        public int depth() {
+            return this.depth;
+        }
+
+        /**
+         * Removes all elements from the stack.
+         */
+        public void clear() {
+            this.depth = 0;
+        }
+
+        /**
+         * Creates the frames for the stack starting at the specified index.
+         *
+         * @param start Index of the first frame to create
+         */
+        private void allocateFrames(final int start) {
+            for (int i = start; i < this.elements.length; i++) {
+                this.elements[i] = new Element();
+            }
+        }
+    }
+
+
+    /**
+     * Adds entries to the state machine transition table for events whose next state does not depend on the element
+     * level.
+     *
+     * @param state Current state
+     * @param nextState State following the events
+     * @param action Action performed for the events
+     * @param events Events allowed in the current state
+     */
+    private static void transition(final State state, final State nextState, final int action,
+                                   final Event... events) {
+        transition(state, nextState, nextState, action, events);
+    }
+
+    /**
+     * Adds entries to the state machine transition table.
+     *
+     * @param state Current state
+     * @param nextState State following the events
+     * @param rootClosedState State following the events if the root element has been closed
+     * @param action Action performed for the events
+     * @param events Events allowed in the current state
+     */
+    private static void transition(final State state, final State nextState, final State rootClosedState,
+                                   final int action, final Event... events) {
+        for (final Event event : events) {
+            TRANSITIONS[state.ordinal() * EVENTS.length + event.ordinal()] =
+                    (action << ACTION_SHIFT) | (rootClosedState.ordinal() << STATE_BITS) | nextState.ordinal();
+        }
+    }
+
+    /**
+     * Provides the next state in the transition table for the specified state and event. The names of the states
+     * and events are those used in {@code dev/docs/StateMachine.md} (i.e. without the "_STATE" and "_EVENT"
+     * suffixes).
+     *
+     * @param state Name of the current state
+     * @param event Name of the event
+     * @param rootClosed {@code true} to obtain the next state if the root element has been closed
+     * @return Name of the next state, or "THROW" if the event is not allowed in the state.
+     */
+    @AccessForTesting
+    static String getNextState(final String state, final String event, final boolean rootClosed) {
+        final State current = State.valueOf(state + "_STATE");
+        final int transition = TRANSITIONS[current.ordinal() * EVENTS.length + Event.valueOf(event + "_EVENT").ordinal()];
+        if (transition == INVALID_TRANSITION) {
+            return "THROW";
+        }
+        final String next = STATES[(rootClosed ? transition >>> STATE_BITS : transition) & STATE_MASK].name();
+        return next.substring(0, next.length() - "_STATE".length());
+    }
+
+    /**
+     * Provides the number of entries in the transition table (i.e. the number of states times the number of events).
+     *
+     * @return Number of entries in the transition table.
+     */
+    @AccessForTesting
+    static int getTransitionCount() {
+        return TRANSITIONS.length;
+    }
+
+    /**
+     * Selects the escapers corresponding to the current escape settings.
+     */
+    private void updateEscapers() {
+        this.textEscaper = Escaper.getInstance(EscapeContext.TEXT, this.escapeNonAscii, this.useDecimal);
+        this.doubleQuotedEscaper = Escaper.getInstance(EscapeContext.DOUBLE_QUOTED, this.escapeNonAscii,
+                                                       this.useDecimal);
+        this.singleQuotedEscaper = Escaper.getInstance(EscapeContext.SINGLE_QUOTED, this.escapeNonAscii,
+                                                       this.useDecimal);
+    }
+
+    /**
+     * Heart of the emitter state machine. Based on the current state and the specified event, an action is fired,
+     * if any, and the next state is set. The transitions are looked up in a precomputed table so that handling an
+     * event is a table load and, for the few transitions that write a tag, a table switch.
+     *
+     * @param event The event to handle
+     * @return Previous state
+     * @throws IOException If there is a problem writing a tag.
+     * @throws IllegalStateException If the event is illegal given the current state.
+     */
+    private State handleEvent(final Event event) throws IOException {
+        final State previousState = this.currentState;
+        final int transition = this.transitions[previousState.ordinal() * EVENTS.length + event.ordinal()];
+
+        if (transition == INVALID_TRANSITION) {
+            throw new IllegalStateException("Event " + event + " not allowed in state " + previousState);
+        }
+
+        final int action = transition >>> ACTION_SHIFT;
+        if (action == NO_ACTION) {
+            this.currentState = STATES[transition & STATE_MASK];
+        } else {
+            performAction(action);
+            this.currentState = STATES[((getElementLevel() == 0) ? transition >>> STATE_BITS : transition) & STATE_MASK];
+        }
+
+        return previousState;
+    }
+
+    /**
+     * Performs a state machine action. Actions are performed before the writer moves to the next state.
+     *
+     * @param action The action to perform
+     * @throws IOException If there is a problem writing a tag.
+     */
+    private void performAction(final int action) throws IOException {
+        switch (action) {
+            case WRITE_START_TAG_ACTION:
+                writeStartElement(false);
+                break;
+            case WRITE_EMPTY_TAG_ACTION:
+                writeEmptyElement();
+                break;
+            case CLOSE_DOC_IN_START_TAG_ACTION:
+                closeDocumentInStartTag();
+                break;
+            case WRITE_END_TAG_ACTION:
+                writeEndElement();
+                break;
+            default:
+                throw new IllegalStateException("Unrecognized action: " + action);
+        }
+    }
+
+    /**
+     * Writes the start tag of an element that is ended before it has any content. If empty elements are minimized,
+     * a single empty tag is written. Otherwise, a start tag and an end tag are written.
+     *
+     * @throws IOException If there is a problem writing the tags.
+     */
+    private void writeEmptyElement() throws IOException {
+        final Element element = topElement();
+        writeStartElement(this.minimize);
+        if (element.isEmpty || !this.minimize) {
+            writeEndElement();
+        }
+    }
+
+    /**
+     * Writes the start tag of the root element when the document is ended before the root element has any content.
+     *
+     * @throws IOException If there is a problem writing the tags.
+     */
+    private void closeDocumentInStartTag() throws IOException {
+        writeStartElement(this.minimize);
+        if (!this.minimize) {
+            writeEndElement();
+        }
+    }
+
+    /**
+     * Handles the start of an element by pushing a new element onto the element stack and opening a new namespace
+     * context. If attributes are being streamed, the beginning of the start tag is written immediately.
+     *
+     * @param uri The element's namespace URI
+     * @param localName The element's local name
+     * @param qName The element's qualified name
+     * @param name The element's precompiled name, or {@code null} if it does not have one
+     * @param isEmpty Indicates if the element was created as an empty element
+     * @throws IOException If there is a problem writing a tag.
+     */
+    private void pushElement(final String uri, final String localName, final String qName,
+                             @Nullable final XmlName name, final boolean isEmpty) throws IOException {
+        final State previousState = handleEvent(Event.START_ELEMENT_EVENT);
+
+        this.nsStack.pushContext();
+
+        this.elementStack.push(uri, localName, qName, name, isEmpty, previousState);
+
+        if (getElementLevel() == 1) {
+            setNSRootDecls();
+        }
+
+        if (this.streamAttributes) {
+            writeStartTagOpen(topElement());
+        }
+    }
+
+    /**
+     * Returns the top element on the stack.
+     *
+     * @return Top element on the element stack.
+     */
+    private Element topElement() {
+        return this.elementStack.peek();
+    }
+
+    /**
+     * Determines a namespace prefix for the specified namespace URI.
+     *
+     * @param uri Namespace URI for which a prefix is to be determined
+     * @param qName A qualified name to be used as a template to help determine a namespace prefix. Specifying a
+     *         qualified name does not guarantee that its prefix will be used. Specify {@code null} or the empty string
+     *         if a qualified name is not available.
+     * @param isElement Specify {@code true} if the prefix is for use on an element. Specify {@code false} if the
+     *         prefix is for use on an attribute.
+     * @return The prefix for the specified namespace. The method will never return null.
+     */
+    private String findNSPrefix(final String uri, @Nullable final String qName, final boolean isElement) {
+        final String defaultNS = this.nsStack.getURI(XmlConstants.DEFAULT_NS_PREFIX);
+        final boolean haveDefaultNS = (defaultNS != null);
+        final boolean isAttribute = !isElement;
+
+        /*
+         * If no namespace URI has been specified assume there is no prefix.
+         */
+        if (XmlConstants.NULL_NS_URI.equals(uri)) {
+            return XmlConstants.DEFAULT_NS_PREFIX;
+        }
+
+        /*
+         * If the namespace is for an element and the specified URI is
+         * the default namespace URI, return the default prefix (i.e. "").
+         * Otherwise, try to get the prefix corresponding to the specified URI.
+         */
+        if (isElement && haveDefaultNS && uri.equals(defaultNS)) {
+            return XmlConstants.DEFAULT_NS_PREFIX;
+        }
+
+        String prefix = this.nsStack.getPrefix(uri);
+
+        if (prefix != null) {
+            return prefix;
+        }
+
+        /*
+         * If we get this far, try to obtain the prefix from the table of
+         * previously declared namespaces. If a prefix is obtained from the
+         * declaration map, it must be checked to see if it can be used. If
+         * the prefix is the empty string, it cannot be used for an attribute
+         * or if a default namespace is in effect for the context. Further, the
+         * prefix cannot be used if it is already in use by another namespace URI.
+         */
+        prefix = this.nsDeclMap.get(uri);
+        if (prefix != null && (((isAttribute || haveDefaultNS) && XmlConstants.DEFAULT_NS_PREFIX.equals(prefix))
+                || nsPrefixInUse(prefix))) {
+            prefix = null;
+        }
+
+        /*
+         * If we did not obtain a prefix from the previously declared namespaces,
+         * try to get one from the prefix mappings defined by the user through
+         * calls to addNSPrefix. As before, if the prefix is the empty string, it
+         * cannot be used for an attribute or if a default namespace is in effect
+         * for the context. Further, the prefix cannot be used if it is already
+         * in use by another namespace URI.
+         */
+        if (prefix == null) {
+            prefix = this.nsPrefixMap.get(uri);
+            if (prefix != null && (((isAttribute || haveDefaultNS) && XmlConstants.DEFAULT_NS_PREFIX.equals(prefix))
+                    || nsPrefixInUse(prefix))) {
+                prefix = null;
+            }
+        }
+
+        /*
+         * If we still don't have a prefix try to get one off the qualified
+         * name, if one has been specified.
+         */
+        if (prefix == null && qName != null && !qName.isEmpty()) {
+            final int i = qName.indexOf(':');
+            if (i == -1) {
+                if (isElement && !haveDefaultNS) {
+                    prefix = XmlConstants.DEFAULT_NS_PREFIX;
+                }
+            } else {
+                prefix = qName.substring(0, i);
+            }
+        }
+
+        /*
+         * As a last resort, synthesize a namespace prefix that is guaranteed
+         * not to be in use.
+         */
+        if (prefix == null) {
+            prefix = createNSPrefix();
+        }
+
+        /*
+         * Before returning the prefix to the caller, register it with the
+         * namespace context and with our map of declared namespaces.
+         */
+        this.nsStack.declarePrefix(prefix, uri);
+        this.nsDeclMap.put(uri, prefix);
+        this.nsEpoch = NS_EPOCHS.incrementAndGet();
+
+        return prefix;
+    }
+
+    /**
+     * Indicates whether the specified namespace is in use.
+     *
+     * @param prefix Namespace prefix to test
+     * @return {@code true} if the namespace prefix is not in use in the current namespace context.
+     */
+    private boolean nsPrefixInUse(final String prefix) {
+        return this.nsStack.getURI(prefix) != null;
+    }
+
+    /**
+     * Creates a namespace prefix.
+     *
+     * @return A synthesized namespace prefix and ensures that it is not already in use in the current namespace context.
+     */
+    private String createNSPrefix() {
+        String prefix;
+
+        do {
+            prefix = SYNTH_NS_PREFIX + (++this.nsPrefixCounter);
+        } while (nsPrefixInUse(prefix));
+
+        return prefix;
+    }
+
+    /**
+     * Force all namespaces that were specified in calls to the {@link #addNSRootDecl(String) addNSRootDecl} methods
+     * to be declared. This method is called when the root element is started to ensure that the pre-declared
+     * namespaces all appear on that element.
+     */
+    private void setNSRootDecls() {
+        for (final String uri : this.nsRootDeclSet) {
+            findNSPrefix(uri, null, true);
+        }
+    }
+
+    /**
+     * Write a start tag and handle the case where the element is empty.
+     *
+     * @param isEmpty {@code true} to write start element as if it were empty
+     * @throws IOException If there is a problem writing the tag.
+     */
+    private void writeStartElement(final boolean isEmpty) throws IOException {
+        final Element element = topElement();
+
+        if (!element.tagOpened) {
+            writeStartTagOpen(element);
+        }
+        final int numDecls = writeNSDecls();
+        if (this.attrPerLine && ((element.attrs.getLength() + element.streamedCount + numDecls) > 0)) {
+            writeNewline();
+            writeIndent();
+        }
+        writeRaw((element.isEmpty || isEmpty) ? "/>" : ">");
+
+        /*
+         * If this is an empty tag, act like an end tag has been specified.
+         */
+        if (element.isEmpty || isEmpty) {
+            closeElement(element);
+        }
+    }
+
+    /**
+     * Writes the beginning of a start tag, consisting of the element name and the attributes that have been added
+     * so far. Namespace declarations and the end of the tag are written by {@link #writeStartElement(boolean)}.
+     *
+     * @param element Element whose start tag is to be written
+     * @throws IOException If there is a problem writing the tag.
+     */
+    private void writeStartTagOpen(final Element element) throws IOException {
+        if (this.prettyPrint && (element.containingState != State.AFTER_DATA_STATE) && (getElementLevel() > 1)) {
+            writeNewline();
+            writeIndent();
+        }
+
+        writeRaw('<');
+        resolveElementName(element);
+        writeRaw(element.resolvedName, 0, element.resolvedLength);
+        writeAttributes(element.attrs);
+        element.tagOpened = true;
+    }
+
+    /**
+     * Writes an end tag.
+     *
+     * @throws IOException If there is a problem writing the tag.
+     */
+    private void writeEndElement() throws IOException {
+        final Element element = topElement();
+
+        if (this.prettyPrint && this.currentState != State.AFTER_DATA_STATE) {
+            writeNewline();
+            writeIndent();
+        }
+        writeRaw("</");
+        writeRaw(element.resolvedName, 0, element.resolvedLength);
+        writeRaw('>');
+
+        closeElement(element);
+    }
+
+    /**
+     * Performs cleanup when an element ends either due to an explicit call to endElement or because the
+     * element is empty.
+     *
+     * @param element Element to close
+     * @throws IOException If there is a problem closing the element.
+     */
+    private void closeElement(final Element element) throws IOException {
+        final int level = getElementLevel();
+
+        this.elementStack.pop();
+        if (this.nsStack.popContext()) {
+            this.nsEpoch = NS_EPOCHS.incrementAndGet();
+        }
+
+        if (this.streamMode && level == 2) {
+            flushOutput();
+        } else {
+            applyFlushPolicy(level);
+        }
+    }
+
+    /**
+     * Passes the output to the output destination.
+     *
+     * @throws IOException If there is a problem flushing the output.
+     */
+    private void flushOutput() throws IOException {
+        this.sink.flush();
+        this.unflushedChars = 0;
+    }
+
+    /**
+     * Flushes the output if the flush policy indicates that it should be flushed.
+     *
+     * @param level Nesting level of the element that was closed, or zero if character data was written
+     * @throws IOException If there is a problem flushing the output.
+     */
+    private void applyFlushPolicy(final int level) throws IOException {
+        if (this.flushPolicy != null && this.unflushedChars > 0
+                && this.flushPolicy.shouldFlush(level, this.unflushedChars, System.nanoTime() - this.unflushedSince)) {
+            flushOutput();
+        }
+    }
+
+    /**
+     * Records that output has been written for use by the flush policy.
+     *
+     * @param length Number of characters written
+     */
+    private void countOutput(final int length) {
+        if (this.unflushedChars == 0) {
+            this.unflushedSince = System.nanoTime();
+        }
+        this.unflushedChars += length;
+    }
+
+    /**
+     * Write out an attribute list, quoting and escaping values. The names will have namespace prefixes added
+     * to them as appropriate. The attributes will be written all on one line or on separate lines depending on
+     * the attrPerLine flag.
+     *
+     * @param attrs The attribute list to write.
+     * @throws IOException If there is an error writing the attribute list.
+     */
+    private void writeAttributes(final AttributeStore attrs) throws IOException {
+        final int len = attrs.getLength();
+
+        for (int i = 0; i < len; i++) {
+            writeAttribute(attrs.getURI(i), attrs.getLocalName(i), attrs.getQName(i), attrs.getName(i),
+                           attrs.getValue(i));
+        }
+    }
+
+    /**
+     * Writes an attribute as soon as it is added to an element whose start tag has been opened. Only the name of
+     * the attribute is retained, to detect duplicates.
+     *
+     * @param uri The attribute's namespace URI
+     * @param localName The attribute's local name
+     * @param qName The attribute's qualified name
+     * @param name The attribute's precompiled name, or {@code null} if it does not have one
+     * @param value The attribute's value
+     * @throws IOException If there is an error writing the attribute.
+     * @throws IllegalStateException If the attribute is a duplicate.
+     */
+    private void writeStreamedAttribute(final String uri, final String localName, final String qName,
+                                        @Nullable final XmlName name, @Nullable final String value)
+            throws IOException {
+        final Element element = topElement();
+        if (!this.unchecked) {
+            final String key = localName.isEmpty() ? qName : localName;
+            if (!element.attrNames.add(uri, key)) {
+                throw new IllegalStateException("Duplicate attribute: " + key);
+            }
+        }
+        element.streamedCount++;
+        writeAttribute(uri, localName, qName, name, value);
+    }
+
+    /**
+     * Writes a single attribute, quoting and escaping its value.
+     *
+     * @param uri The attribute's namespace URI
+     * @param localName The attribute's local name
+     * @param qName The attribute's qualified name
+     * @param name The attribute's precompiled name, or {@code null} if it does not have one
+     * @param value The attribute's value
+     * @throws IOException If there is an error writing the attribute.
+     */
+    private void writeAttribute(final String uri, final String localName, final String qName,
+                                @Nullable final XmlName name, @Nullable final String value) throws IOException {
+        if (this.attrPerLine) {
+            writeNewline();
+            writeIndent();
+            writeRaw(this.indentStr);
+        } else {
+            writeRaw(' ');
+        }
+        if (name == null) {
+            writeName(uri, localName, qName, false);
+        } else {
+            writeName(name, false);
+        }
+        writeRaw('=');
+        writeQuoted((value == null) ? EMPTY_STR : value);
+    }
+
+    /**
+     * Writes an entity declaration in the DTD internal subset.
+     *
+     * @param decl Entity to declare
+     * @throws IOException If there is a problem writing the declaration.
+     */
+    private void writeEntityDecl(final Entity decl) throws IOException {
+        writeRaw("<!ENTITY ");
+        writeRaw(decl.name);
+
+        if (decl.value != null) {
+            writeRaw(" \"");
+            writeRaw(decl.value);
+            writeRaw('"');
+        } else {
+            if (decl.publicId != null) {
+                writeRaw(" PUBLIC \"");
+                writeRaw(decl.publicId);
+                writeRaw("\" \"");
+                writeRaw(decl.systemId == null ? "" : decl.systemId);
+                writeRaw('"');
+            } else {
+                writeRaw(" SYSTEM \"");
+                writeRaw(decl.systemId == null ? "" : decl.systemId);
+                writeRaw('"');
+            }
+
+            if (decl.notationName != null) {
+                writeRaw(" NDATA ");
+                writeRaw(decl.notationName);
+            }
+        }
+        writeRaw('>');
+    }
+
+    /**
+     * Write a notation declaration in the DTD internal subset.
+     *
+     * @param decl Notation to declare
+     * @throws IOException If there is a problem writing the declaration.
+     */
+    private void writeNotationDecl(final Notation decl) throws IOException {
+        writeRaw("<!NOTATION ");
+        writeRaw(decl.name);
+        if (decl.publicId != null && decl.systemId != null) {
+            writeRaw(" PUBLIC \"");
+            writeRaw(decl.publicId);
+            writeRaw("\" \"");
+            writeRaw(decl.systemId);
+            writeRaw('"');
+        } else if (decl.publicId != null) {
+            writeRaw(" PUBLIC \"");
+            writeRaw(decl.publicId);
+            writeRaw('"');
+        } else if (decl.systemId != null) {
+            writeRaw(" SYSTEM \"");
+            writeRaw(decl.systemId);
+            writeRaw('"');
+        }
+        writeRaw('>');
+    }
+
+    /**
+     * Write an element or attribute name.
+     *
+     * @param uri The namespace URI.
+     * @param localName The local name.
+     * @param qName The prefixed name, if available, or the empty string.
+     * @param isElement {@code true} if this is an element name, {@code false} if it is an attribute name.
+     * @throws IOException If there is an error writing the name.
+     */
+    private void writeName(final String uri, final String localName, final String qName, final boolean isElement)
+            throws IOException {
+        final String prefix = findNSPrefix(uri, qName, isElement);
+        if (!XmlConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+            writeRaw(prefix);
+            writeRaw(':');
+        }
+        if (localName.isEmpty()) {
+            writeRaw(qName);
+        } else {
+            writeRaw(localName);
+        }
+    }
+
+    /**
+     * Write a precompiled element or attribute name. The qualified form cached by the name is written if it was
+     * resolved under the namespace declarations currently in effect. Otherwise, the name is resolved and its
+     * qualified form cached for subsequent use.
+     *
+     * @param name The precompiled name.
+     * @param isElement {@code true} if this is an element name, {@code false} if it is an attribute name.
+     * @throws IOException If there is an error writing the name.
+     */
+    private void writeName(final XmlName name, final boolean isElement) throws IOException {
+        final char[] qualified = resolveName(name, isElement);
+        writeRaw(qualified, 0, qualified.length);
+    }
+
+    /**
+     * Obtains the qualified form of a precompiled name for the namespace declarations currently in effect.
+     *
+     * @param name The precompiled name.
+     * @param isElement {@code true} if this is an element name, {@code false} if it is an attribute name.
+     * @return Qualified form of the name.
+     */
+    private char[] resolveName(final XmlName name, final boolean isElement) {
+        final char[] qualified = name.getQualified(this.nsEpoch, isElement);
+        if (qualified != null) {
+            return qualified;
+        }
+        final String prefix = findNSPrefix(name.getUri(), name.getQName(), isElement);
+        return name.setQualified(this.nsEpoch, isElement, prefix);
+    }
+
+    /**
+     * Resolves the qualified name of an element and records it in the element's frame. The recorded name is written
+     * in both the start and end tags of the element, so that the namespace prefix of the element is only determined
+     * once.
+     *
+     * @param element Element whose name is to be resolved
+     */
+    private void resolveElementName(final Element element) {
+        if (element.name != null) {
+            final char[] qualified = resolveName(element.name, true);
+            element.resolvedName = qualified;
+            element.resolvedLength = qualified.length;
+            return;
+        }
+
+        final String prefix = findNSPrefix(element.uri, element.qName, true);
+        final String name = element.localName.isEmpty() ? element.qName : element.localName;
+        final int prefixLength = prefix.isEmpty() ? 0 : prefix.length() + 1;
+        final int length = prefixLength + name.length();
+
+        if (element.nameBuffer.length < length) {
+            element.nameBuffer = new char[Math.max(length, element.nameBuffer.length * 2)];
+        }
+        final char[] buffer = element.nameBuffer;
+        if (prefixLength > 0) {
+            prefix.getChars(0, prefix.length(), buffer, 0);
+            buffer[prefixLength - 1] = ':';
+        }
+        name.getChars(0, name.length(), buffer, prefixLength);
+
+        element.resolvedName = buffer;
+        element.resolvedLength = length;
+    }
+
+    /**
+     * Writes the namespace declarations for the current namespace context.
+     *
+     * @return Number of namespace declaration attributes written
+     * @throws IOException If there is a problem writing the namespaces.
+     */
+    private int writeNSDecls() throws IOException {
+        // The declarations of a namespace context are maintained in prefix order, so the output is stable.
+        final int start = this.nsStack.getScopeStart();
+        final int end = this.nsStack.getSize();
+        for (int i = start; i < end; i++) {
+            final String prefix = this.nsStack.getDeclaredPrefix(i);
+            if (this.attrPerLine) {
+                writeNewline();
+                writeIndent();
+                writeRaw(this.indentStr);
+            } else {
+                writeRaw(' ');
+            }
+
+            writeRaw(XmlConstants.XMLNS_ATTRIBUTE);
+            if (!XmlConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+                writeRaw(':');
+                writeRaw(prefix);
+            }
+            writeRaw('=');
+
+            writeQuoted(this.nsStack.getDeclaredURI(i));
+        }
+
+        return end - start;
+    }
+
+    /**
+     * Writes a newline to the output.
+     *
+     * @throws IOException If there is an error writing the newline character.
+     */
+    private void writeNewline() throws IOException {
+        final String lineSeparator = System.lineSeparator();
+        this.sink.write(lineSeparator);
+        countOutput(lineSeparator.length());
+    }
+
+    /**
+     * Indents the output based on the element nesting level.
+     *
+     * @throws IOException If there is a problem writing the indent.
+     */
+    private void writeIndent() throws IOException {
+        writeIndent(0);
+    }
+
+    /**
+     * Indents the output based on the element nesting level plus the specified level.
+     *
+     * @param levelAdjust Add or subtract from the current level for indentation purposes only.
+     * @throws IOException If there is a problem writing the indent.
+     */
+    private void writeIndent(final int levelAdjust) throws IOException {
+        if (this.haveOffsetStr) {
+            writeRaw(this.offsetStr);
+        }
+
+        final int level = getElementLevel() - 1 + levelAdjust;
+        final int length = level * this.indentStr.length();
+        if (length <= 0) {
+            return;
+        }
+        if (this.indentChars.length < length) {
+            this.indentChars = this.indentStr.repeat(Math.max(level * 2, INIT_INDENT_LEVELS)).toCharArray();
+        }
+        writeRaw(this.indentChars, 0, length);
+    }
+
+    /**
+     * Selects the quote character that requires the fewest escapes to delimit the specified characters. Double quotes
+     * are used unless the characters contain more double quotes than single quotes.
+     *
+     * @param carr Character array to test
+     * @param start Starting index in the array
+     * @param length Number of characters in the array to test
+     * @return Quote character with which to delimit the characters.
+     */
+    private static char selectQuote(final char[] carr, final int start, final int length) {
+        int doubleQuotes = 0;
+        int singleQuotes = 0;
+        final int end = start + length;
+        for (int i = start; i < end; i++) {
+            final char c = carr[i];
+            if (c == '"') {
+                doubleQuotes++;
+            } else if (c == '\'') {
+                singleQuotes++;
+            }
+        }
+        return (doubleQuotes > singleQuotes) ? '\'' : '"';
+    }
+
+    /**
+     * Write the specified string to the output as an escaped string surrounded by quotes. The quote character is
+     * selected as described in {@link #writeQuoted(char[], int, int)}.
+     *
+     * @param s String to write
+     * @throws IOException If there is an error writing the string.
+     */
+    @AccessForTesting
+    void writeQuoted(final String s) throws IOException {
+        writeQuoted(copyValue(s), 0, s.length());
+    }
+
+    /**
+     * Copies the specified string into the value buffer, growing the buffer if necessary.
+     *
+     * @param s String to copy
+     * @return Value buffer whose leading characters are the characters of the string.
+     */
+    private char[] copyValue(final String s) {
+        final int length = s.length();
+        if (this.valueBuffer.length < length) {
+            this.valueBuffer = new char[Math.max(length, this.valueBuffer.length * 2)];
+        }
+        s.getChars(0, length, this.valueBuffer, 0);
+        return this.valueBuffer;
+    }
+
+    /**
+     * Write the specified character array to the output as an escaped string surrounded by quotes. Double quotes are
+     * used unless the characters contain more double quotes than single quotes, in which case single quotes are used.
+     * In addition to '&amp;' and '&lt;', occurrences of the quote character are escaped, and tab, newline and carriage
+     * return are written as character references so that attribute value normalization preserves them.
+     *
+     * @param carr Character array to write
+     * @param start Starting index in the array
+     * @param length Number of characters to write
+     * @throws IOException If there is an error writing the characters.
+     */
+    @AccessForTesting
+    void writeQuoted(final char[] carr, final int start, final int length) throws IOException {
+        final char quote = selectQuote(carr, start, length);
+        final Escaper escaper = (quote == '"') ? this.doubleQuotedEscaper : this.singleQuotedEscaper;
+        writeRaw(quote);
+        escaper.escape(carr, start, length, this.sink, this.referenceBuffer);
+        countOutput(length);
+        writeRaw(quote);
+    }
+
+    /**
+     * Writes the specified character array to the output as character data, escaping the '&amp;' and '&lt;'
+     * characters using the standard XML escape sequences. The '&gt;' character is only escaped where it could
+     * complete the sequence "]]&gt;", and quotes are not escaped. Characters above the ASCII range are escaped using
+     * numeric character references if requested.
+     *
+     * @param carr Character array to write
+     * @param start Starting index in the array
+     * @param length Number of characters to write
+     * @throws IOException If there is an error writing the characters.
+     */
+    @AccessForTesting
+    void writeEscaped(final char[] carr, final int start, final int length) throws IOException {
+        this.textEscaper.escape(carr, start, length, this.sink, this.referenceBuffer);
+        countOutput(length);
+    }
+
+    /**
+     * Writes the specified string to the output without escaping.
+     *
+     * @param s String to write
+     * @throws IOException If there is an error writing the string.
+     */
+    @AccessForTesting
+    void writeRaw(final String s) throws IOException {
+        this.sink.write(s);
+        countOutput(s.length());
+    }
+
+    /**
+     * Writes the specified character array to the output without escaping.
+     *
+     * @param carr Character array to write
+     * @param start Starting index in the array
+     * @param length Number of characters to write
+     * @throws IOException If there is an error writing the characters.
+     */
+    @AccessForTesting
+    void writeRaw(final char[] carr, final int start, final int length) throws IOException {
+        this.sink.write(carr, start, length);
+        countOutput(length);
+    }
+
+    /**
+     * Writes the specified character to the output without escaping.
+     *
+     * @param c Character to write
+     * @throws IOException If there is an error writing the character.
+     */
+    @AccessForTesting
+    void writeRaw(final char c) throws IOException {
+        this.sink.write(c);
+        countOutput(1);
+    }
+}
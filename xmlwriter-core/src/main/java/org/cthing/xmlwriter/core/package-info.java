@@ -0,0 +1,12 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+/**
+ * Classes for writing XML without a dependency on SAX or the {@code java.xml} module.
+ */
+@NullMarked
+package org.cthing.xmlwriter.core;
+
+import org.jspecify.annotations.NullMarked;
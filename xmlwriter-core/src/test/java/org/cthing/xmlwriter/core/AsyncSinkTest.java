@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+
+@SuppressWarnings("UnnecessaryUnicodeEscape")
+class AsyncSinkTest {
+
+    @Test
+    @DisplayName("Write a document spanning many buffer swaps")
+    void testDocument() throws Exception {
+        final StringWriter stringWriter = new StringWriter();
+        final XmlStreamEmitter writer = new XmlStreamEmitter(new AsyncSink(stringWriter, 8));
+
+        final StringBuilder expected = new StringBuilder("<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>");
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        for (int i = 0; i < 100; i++) {
+            writer.startElement("elem");
+            writer.characters("text " + i);
+            writer.endElement();
+            expected.append("<elem>text ").append(i).append("</elem>");
+        }
+        writer.endElement();
+        writer.endDocument();
+        expected.append("</root>\n");
+
+        assertThat(stringWriter).hasToString(expected.toString());
+    }
+
+    @Test
+    @DisplayName("Flush waits for all output to be written")
+    void testFlush() throws Exception {
+        final StringWriter stringWriter = new StringWriter();
+        final AsyncSink sink = new AsyncSink(stringWriter, 4);
+
+        sink.write("Hello World");
+        sink.flush();
+        assertThat(stringWriter).hasToString("Hello World");
+
+        sink.write('!');
+        sink.write("abcdef".toCharArray(), 1, 4);
+        sink.close();
+        assertThat(stringWriter).hasToString("Hello World!bcde");
+    }
+
+    @Test
+    @DisplayName("Encode output for a stream on the I/O thread")
+    void testOutputStream() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final XmlStreamEmitter writer = new XmlStreamEmitter(new AsyncSink(bytes));
+
+        writer.startDocument("UTF-8", true, false);
+        writer.emptyElement("caf\u00E9");
+        writer.endDocument();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8))
+                .isEqualTo("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<caf\u00E9/>\n");
+    }
+
+    @Test
+    @DisplayName("Report errors from the I/O thread")
+    void testError() throws Exception {
+        final Writer failingWriter = new Writer() {
+            @Override
+            public void write(final char[] cbuf, final int off, final int len) throws IOException {
+                throw new IOException("write failed");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final XmlStreamEmitter writer = new XmlStreamEmitter(new AsyncSink(failingWriter, 64));
+
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> writer.characters("Hello World".repeat(20)));
+        assertThatExceptionOfType(IOException.class).isThrownBy(writer::flush);
+    }
+
+    @Test
+    @DisplayName("Report an error from the I/O thread on the next write")
+    void testErrorOnNextWrite() throws Exception {
+        final CountDownLatch attempted = new CountDownLatch(1);
+        final Writer failingWriter = new Writer() {
+            @Override
+            public void write(final char[] cbuf, final int off, final int len) throws IOException {
+                attempted.countDown();
+                throw new IOException("write failed");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final AsyncSink sink = new AsyncSink(failingWriter, 64);
+
+        // Fill the buffer and start writing it on the I/O thread.
+        sink.write("x".repeat(65));
+        assertThat(attempted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Each write fits in the buffer, so the error must be reported without waiting for a buffer swap.
+        boolean reported = false;
+        for (int i = 0; i < 60 && !reported; i++) {
+            try {
+                sink.write('x');
+                Thread.sleep(50);
+            } catch (final IOException ex) {
+                assertThat(ex).hasMessage("write failed");
+                reported = true;
+            }
+        }
+        assertThat(reported).isTrue();
+        assertThatExceptionOfType(IOException.class).isThrownBy(sink::flush);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+class AttributeStoreTest {
+
+    @Test
+    @DisplayName("Add and look up attributes")
+    void testAddAttribute() {
+        final AttributeStore attrs = new AttributeStore();
+        assertThat(attrs.getLength()).isZero();
+
+        for (int i = 0; i < 10; i++) {
+            attrs.addAttribute("urn:test", "a" + i, "t:a" + i, "v" + i);
+        }
+        attrs.addAttribute("", "id", "id", "x");
+
+        assertThat(attrs.getLength()).isEqualTo(11);
+        assertThat(attrs.getURI(3)).isEqualTo("urn:test");
+        assertThat(attrs.getLocalName(3)).isEqualTo("a3");
+        assertThat(attrs.getQName(3)).isEqualTo("t:a3");
+        assertThat(attrs.getValue(3)).isEqualTo("v3");
+        assertThat(attrs.getValue("t:a9")).isEqualTo("v9");
+        assertThat(attrs.getIndex("urn:test", "a9")).isEqualTo(9);
+        assertThat(attrs.getIndex("", "id")).isEqualTo(10);
+        assertThat(attrs.getIndex("missing")).isEqualTo(-1);
+        assertThat(attrs.getValue(11)).isNull();
+        assertThat(attrs.getQName(-1)).isNull();
+        assertThat(attrs.getName(0)).isNull();
+    }
+
+    @Test
+    @DisplayName("Clear attributes, reusing the storage")
+    void testClear() {
+        final XmlName name = new XmlName("urn:test", "a");
+
+        final AttributeStore attrs = new AttributeStore();
+        attrs.addAttribute("", "id", "id", "x");
+        attrs.addAttribute(name, "1");
+        assertThat(attrs.getName(1)).isSameAs(name);
+        assertThat(attrs.getLocalName(1)).isEqualTo("a");
+
+        attrs.clear();
+        assertThat(attrs.getLength()).isZero();
+        assertThat(attrs.getValue("id")).isNull();
+
+        attrs.addAttribute("", "b", "b", "2");
+        assertThat(attrs.getLength()).isEqualTo(1);
+        assertThat(attrs.getValue("b")).isEqualTo("2");
+        assertThat(attrs.getName(0)).isNull();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+
+class ChannelSinkTest {
+
+    /**
+     * Channel that accepts a limited number of bytes per write, like a non-blocking socket channel.
+     */
+    private static final class LimitedChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int limit;
+
+        LimitedChannel(final int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            final int n = Math.min(src.remaining(), this.limit);
+            for (int i = 0; i < n; i++) {
+                this.bytes.write(src.get());
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        String getOutput() {
+            return this.bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Drain a document in partial writes")
+    void testDrain() throws Exception {
+        final ChannelSink sink = new ChannelSink();
+        final LimitedChannel channel = new LimitedChannel(7);
+        final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+
+        assertThat(sink.hasPendingOutput()).isFalse();
+        assertThat(sink.drainTo(channel)).isZero();
+
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        writer.characters("Hello World");
+        writer.endElement();
+        writer.endDocument();
+
+        assertThat(sink.hasPendingOutput()).isTrue();
+        assertThat(channel.getOutput()).isEqualTo("");
+
+        int total = 0;
+        while (sink.hasPendingOutput()) {
+            total += sink.drainTo(channel);
+        }
+
+        final String expected = "<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>Hello World</root>\n";
+        assertThat(channel.getOutput()).isEqualTo(expected);
+        assertThat(total).isEqualTo(expected.length());
+        assertThat(sink.getPendingSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("Report backpressure at the high water mark")
+    void testBackpressure() throws Exception {
+        final ChannelSink sink = new ChannelSink(16, 1024);
+        final LimitedChannel channel = new LimitedChannel(1024);
+        final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+
+        writer.startDocument(null, true, false);
+        sink.drainTo(channel);
+        writer.startElement("root");
+        assertThat(writer.isBackpressured()).isFalse();
+        writer.characters("0123456789");
+        assertThat(writer.isBackpressured()).isTrue();
+
+        sink.drainTo(channel);
+        assertThat(writer.isBackpressured()).isFalse();
+
+        writer.endElement();
+        writer.endDocument();
+        sink.drainTo(channel);
+        assertThat(channel.getOutput()).isEqualTo("<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>0123456789</root>\n");
+    }
+
+    @Test
+    @DisplayName("Reuse space freed by draining")
+    void testCompact() throws Exception {
+        final ChannelSink sink = new ChannelSink(16, 16);
+        final LimitedChannel channel = new LimitedChannel(6);
+
+        sink.write("abcdefghijkl");
+        sink.drainTo(channel);
+        sink.write("mnopqr");
+        while (sink.hasPendingOutput()) {
+            sink.drainTo(channel);
+        }
+
+        assertThat(channel.getOutput()).isEqualTo("abcdefghijklmnopqr");
+    }
+
+    @Test
+    @DisplayName("Fail when the maximum pending output is exceeded")
+    void testMaxPending() throws Exception {
+        final XmlStreamEmitter writer = new XmlStreamEmitter(new ChannelSink(16, 64));
+
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> writer.characters("x".repeat(40)));
+    }
+
+    @Test
+    @DisplayName("Reject bad limits")
+    void testBadLimits() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new ChannelSink(0, 16));
+        assertThatIllegalArgumentException().isThrownBy(() -> new ChannelSink(32, 16));
+        assertThatIllegalArgumentException().isThrownBy(() -> new ChannelSink(2, 2));
+    }
+}
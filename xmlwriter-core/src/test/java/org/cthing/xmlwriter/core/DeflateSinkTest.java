@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+
+@SuppressWarnings("UnnecessaryUnicodeEscape")
+class DeflateSinkTest {
+
+    private static final String EXPECTED = "<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>\u00E9t\u00E9</root>\n";
+
+    private static void writeDocument(final XmlStreamEmitter writer) throws Exception {
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        writer.characters("\u00E9t\u00E9");
+        writer.endElement();
+        writer.endDocument();
+    }
+
+    private static String read(final InputStream in) throws Exception {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Write gzip compressed output")
+    void testGzip() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeDocument(new XmlStreamEmitter(new DeflateSink(bytes)));
+
+        assertThat(read(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())))).isEqualTo(EXPECTED);
+    }
+
+    @Test
+    @DisplayName("Write zlib compressed output")
+    void testZlib() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DeflateSink sink = new DeflateSink(bytes, DeflateSink.Format.ZLIB, Deflater.BEST_COMPRESSION);
+        writeDocument(new XmlStreamEmitter(sink));
+        sink.close();
+
+        assertThat(read(new InflaterInputStream(new ByteArrayInputStream(bytes.toByteArray())))).isEqualTo(EXPECTED);
+    }
+
+    @Test
+    @DisplayName("Flush makes all output so far decompressible")
+    void testSyncFlush() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final XmlStreamEmitter writer = new XmlStreamEmitter(new DeflateSink(bytes, DeflateSink.Format.DEFLATE, 6));
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        writer.characters("Hello World");
+        writer.flush();
+
+        final Inflater inflater = new Inflater(true);
+        inflater.setInput(bytes.toByteArray());
+        final byte[] inflated = new byte[1024];
+        final int n = inflater.inflate(inflated);
+        inflater.end();
+
+        assertThat(new String(inflated, 0, n, StandardCharsets.UTF_8))
+                .isEqualTo("<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>Hello World");
+    }
+
+    @Test
+    @DisplayName("Reuse the sink for a second gzip member")
+    void testReuse() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DeflateSink sink = new DeflateSink(bytes);
+        final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+
+        writeDocument(writer);
+        writer.reset();
+        writeDocument(writer);
+        sink.close();
+
+        assertThat(read(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))))
+                .isEqualTo(EXPECTED + EXPECTED);
+    }
+
+    @Test
+    @DisplayName("Reject an invalid compression level")
+    void testBadLevel() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertThatIllegalArgumentException().isThrownBy(() -> new DeflateSink(bytes, DeflateSink.Format.GZIP, 10));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+class EscapeScannerTest {
+
+    private static final int BUFFER_LENGTH = 80;
+
+    @Test
+    @DisplayName("Classify characters in text")
+    void testIsCleanText() {
+        final EscapeScanner scanner = EscapeScanner.getScalarInstance(EscapeContext.TEXT);
+        assertThat(scanner.isClean('a', false)).isTrue();
+        assertThat(scanner.isClean(' ', false)).isTrue();
+        assertThat(scanner.isClean('\t', false)).isTrue();
+        assertThat(scanner.isClean('\n', false)).isTrue();
+        assertThat(scanner.isClean('\r', false)).isTrue();
+        assertThat(scanner.isClean('"', false)).isTrue();
+        assertThat(scanner.isClean('\'', false)).isTrue();
+        assertThat(scanner.isClean('\u00E9', false)).isTrue();
+        assertThat(scanner.isClean('\uFFFD', false)).isTrue();
+
+        assertThat(scanner.isClean('&', false)).isFalse();
+        assertThat(scanner.isClean('<', false)).isFalse();
+        assertThat(scanner.isClean('>', false)).isFalse();
+        assertThat(scanner.isClean('\u0000', false)).isFalse();
+        assertThat(scanner.isClean('\u001A', false)).isFalse();
+        assertThat(scanner.isClean('\u007F', false)).isFalse();
+        assertThat(scanner.isClean('\u0085', false)).isFalse();
+        assertThat(scanner.isClean('\uD83D', false)).isFalse();
+        assertThat(scanner.isClean('\uDE03', false)).isFalse();
+        assertThat(scanner.isClean('\uFFFE', false)).isFalse();
+        assertThat(scanner.isClean('\uFFFF', false)).isFalse();
+
+        assertThat(scanner.isClean('a', true)).isTrue();
+        assertThat(scanner.isClean('\u00E9', true)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Classify characters in attribute values")
+    void testIsCleanAttribute() {
+        final EscapeScanner doubleQuoted = EscapeScanner.getScalarInstance(EscapeContext.DOUBLE_QUOTED);
+        assertThat(doubleQuoted.isClean('>', false)).isTrue();
+        assertThat(doubleQuoted.isClean('\'', false)).isTrue();
+        assertThat(doubleQuoted.isClean('"', false)).isFalse();
+        assertThat(doubleQuoted.isClean('&', false)).isFalse();
+        assertThat(doubleQuoted.isClean('<', false)).isFalse();
+        assertThat(doubleQuoted.isClean('\t', false)).isFalse();
+        assertThat(doubleQuoted.isClean('\n', false)).isFalse();
+        assertThat(doubleQuoted.isClean('\r', false)).isFalse();
+
+        final EscapeScanner singleQuoted = EscapeScanner.getScalarInstance(EscapeContext.SINGLE_QUOTED);
+        assertThat(singleQuoted.isClean('>', false)).isTrue();
+        assertThat(singleQuoted.isClean('"', false)).isTrue();
+        assertThat(singleQuoted.isClean('\'', false)).isFalse();
+        assertThat(singleQuoted.isClean('\t', false)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Find clean runs using the scalar scanner")
+    void testScalarCleanRun() {
+        final EscapeScanner scanner = EscapeScanner.getScalarInstance(EscapeContext.TEXT);
+        assertThat(scanner.isAccelerated()).isFalse();
+
+        final char[] carr = "Hello & World \u00E9".toCharArray();
+        assertThat(scanner.cleanRun(carr, 0, carr.length, false)).isEqualTo(6);
+        assertThat(scanner.cleanRun(carr, 6, carr.length, false)).isEqualTo(6);
+        assertThat(scanner.cleanRun(carr, 7, carr.length, false)).isEqualTo(carr.length);
+        assertThat(scanner.cleanRun(carr, 7, carr.length, true)).isEqualTo(carr.length - 1);
+        assertThat(scanner.cleanRun(carr, 0, 3, false)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Every character is classified the same by all scanners")
+    void testAllCharacters() {
+        final char[] carr = new char[BUFFER_LENGTH];
+
+        for (final EscapeContext context : EscapeContext.values()) {
+            final EscapeScanner scanner = EscapeScanner.getInstance(context);
+            final EscapeScanner scalar = EscapeScanner.getScalarInstance(context);
+            for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+                for (final boolean escapeNonAscii : new boolean[] { false, true }) {
+                    final boolean clean = scalar.isClean((char)c, escapeNonAscii);
+                    for (final int pos : new int[] { 0, 7, 15, 31, BUFFER_LENGTH - 1 }) {
+                        Arrays.fill(carr, 'x');
+                        carr[pos] = (char)c;
+                        final int expected = clean ? BUFFER_LENGTH : pos;
+                        assertThat(scanner.cleanRun(carr, 0, BUFFER_LENGTH, escapeNonAscii)).isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Scanners agree on subranges of an array")
+    void testSubranges() {
+        final char[] carr = ("Lorem ipsum dolor sit amet, \u00E9t\u00E9 consectetur <adipiscing> elit & sed do "
+                + "eiusmod tempor incididunt ut labore \"et\" dolore\tmagna 'aliqua'.").toCharArray();
+
+        for (final EscapeContext context : EscapeContext.values()) {
+            final EscapeScanner scanner = EscapeScanner.getInstance(context);
+            final EscapeScanner scalar = EscapeScanner.getScalarInstance(context);
+            for (int start = 0; start < carr.length; start++) {
+                for (int end = start; end <= carr.length; end++) {
+                    assertThat(scanner.cleanRun(carr, start, end, false))
+                            .isEqualTo(scalar.cleanRun(carr, start, end, false));
+                    assertThat(scanner.cleanRun(carr, start, end, true))
+                            .isEqualTo(scalar.cleanRun(carr, start, end, true));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The vector scanner is used for long ranges when it is available")
+    void testGetInstance() {
+        final char[] carr = new char[BUFFER_LENGTH];
+        Arrays.fill(carr, 'x');
+
+        for (final EscapeContext context : EscapeContext.values()) {
+            final EscapeScanner scanner = EscapeScanner.getInstance(context);
+            assertThat(scanner).isNotSameAs(EscapeScanner.getScalarInstance(context));
+            assertThat(scanner.isAccelerated()).isFalse();
+            assertThat(scanner.cleanRun(carr, 0, 4, false)).isEqualTo(4);
+            assertThat(scanner.cleanRun(carr, 0, BUFFER_LENGTH, false)).isEqualTo(BUFFER_LENGTH);
+
+            final EscapeScanner vector = EscapeScanner.getVectorInstance(context);
+            if (vector != null) {
+                assertThat(vector.isAccelerated()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    @Tag("scalar")
+    @DisplayName("The scalar scan is used when the Vector API module is not present")
+    void testScalarFallback() {
+        assertThat(ModuleLayer.boot().findModule("jdk.incubator.vector")).isEmpty();
+
+        final char[] carr = new char[BUFFER_LENGTH];
+        Arrays.fill(carr, 'x');
+        carr[BUFFER_LENGTH - 1] = '&';
+
+        for (final EscapeContext context : EscapeContext.values()) {
+            assertThat(EscapeScanner.getVectorInstance(context)).isNull();
+            assertThat(EscapeScanner.getInstance(context).cleanRun(carr, 0, BUFFER_LENGTH, false))
+                    .isEqualTo(BUFFER_LENGTH - 1);
+        }
+    }
+}
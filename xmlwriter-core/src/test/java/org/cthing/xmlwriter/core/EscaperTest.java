@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+class EscaperTest {
+
+    @Test
+    @DisplayName("Escapers are shared for each context and combination of settings")
+    void testGetInstance() {
+        final Escaper escaper = Escaper.getInstance(EscapeContext.TEXT, false, false);
+        assertThat(Escaper.getInstance(EscapeContext.TEXT, false, false)).isSameAs(escaper);
+        assertThat(Escaper.getInstance(EscapeContext.TEXT, true, false)).isNotSameAs(escaper);
+        assertThat(Escaper.getInstance(EscapeContext.TEXT, false, true)).isNotSameAs(escaper);
+        assertThat(Escaper.getInstance(EscapeContext.TEXT, true, true)).isNotSameAs(escaper);
+        assertThat(Escaper.getInstance(EscapeContext.DOUBLE_QUOTED, false, false)).isNotSameAs(escaper);
+        assertThat(Escaper.getInstance(EscapeContext.SINGLE_QUOTED, false, false)).isNotSameAs(escaper);
+    }
+
+    @Test
+    @DisplayName("Escape markup characters in text")
+    void testTextMarkup() throws IOException {
+        assertThat(escape("a&b<c>d\"e'f", false, false)).isEqualTo("a&amp;b&lt;c>d\"e'f");
+        assertThat(escape("&&", false, false)).isEqualTo("&amp;&amp;");
+        assertThat(escape("clean text", false, false)).isEqualTo("clean text");
+        assertThat(escape("", false, false)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Escape '>' where it could end a CDATA section")
+    void testCdataEnd() throws IOException {
+        assertThat(escape("a]]>b", false, false)).isEqualTo("a]]&gt;b");
+        assertThat(escape("a]>b]]c>", false, false)).isEqualTo("a]>b]]c>");
+        assertThat(escape(">a", false, false)).isEqualTo("&gt;a");
+        assertThat(escape("]>a", false, false)).isEqualTo("]&gt;a");
+        assertThat(escape("a>", false, false)).isEqualTo("a>");
+
+        final char[] carr = "]]>]]>".toCharArray();
+        final StringWriter out = new StringWriter();
+        Escaper.getInstance(EscapeContext.TEXT, false, false).escape(carr, 2, 4, out, new char[Escaper.MAX_REFERENCE_LENGTH]);
+        assertThat(out).hasToString("&gt;]]&gt;");
+    }
+
+    @Test
+    @DisplayName("Escape markup characters in attribute values")
+    void testAttributeMarkup() throws IOException {
+        final String value = "a&b<c>d\"e'f\tg\nh\ri";
+        assertThat(escape(EscapeContext.DOUBLE_QUOTED, value, false, false))
+                .isEqualTo("a&amp;b&lt;c>d&quot;e'f&#x9;g&#xA;h&#xD;i");
+        assertThat(escape(EscapeContext.DOUBLE_QUOTED, value, false, true))
+                .isEqualTo("a&amp;b&lt;c>d&quot;e'f&#9;g&#10;h&#13;i");
+        assertThat(escape(EscapeContext.SINGLE_QUOTED, value, false, false))
+                .isEqualTo("a&amp;b&lt;c>d\"e&apos;f&#x9;g&#xA;h&#xD;i");
+        assertThat(escape(EscapeContext.DOUBLE_QUOTED, "a]]>b", false, false)).isEqualTo("a]]>b");
+    }
+
+    @Test
+    @DisplayName("Remove characters that cannot appear in XML")
+    void testRemoved() throws IOException {
+        assertThat(escape("a\u0000b\u001Ac\tn\nr\r", false, false)).isEqualTo("abc\tn\nr\r");
+        assertThat(escape("a\uFFFEb\uFFFFc", false, false)).isEqualTo("abc");
+        assertThat(escape("a\uD83Db\uDE03c\uD83D", false, false)).isEqualTo("abc");
+        assertThat(escape("a\uD83Db\uDE03c\uD83D", true, false)).isEqualTo("abc");
+    }
+
+    @Test
+    @DisplayName("Write discouraged characters as references")
+    void testDiscouraged() throws IOException {
+        assertThat(escape("a\u007Fb\u0085c\u009F", false, false)).isEqualTo("a&#x7F;b&#x85;c&#x9F;");
+        assertThat(escape("a\u007Fb\u0085c\u009F", false, true)).isEqualTo("a&#127;b&#133;c&#159;");
+    }
+
+    @Test
+    @DisplayName("Escape characters above the ASCII range")
+    void testNonAscii() throws IOException {
+        final String text = "caf\u00E9 \u20AC\uD83D\uDE03";
+        assertThat(escape(text, false, false)).isEqualTo(text);
+        assertThat(escape(text, false, true)).isEqualTo(text);
+        assertThat(escape(text, true, false)).isEqualTo("caf&#xE9; &#x20AC;&#x1F603;");
+        assertThat(escape(text, true, true)).isEqualTo("caf&#233; &#8364;&#128515;");
+        assertThat(escape("\uDBFF\uDFFF", true, true)).isEqualTo("&#1114111;");
+    }
+
+    @Test
+    @DisplayName("Escape a subrange of an array")
+    void testSubrange() throws IOException {
+        final char[] carr = "<abc&def>".toCharArray();
+        final StringWriter out = new StringWriter();
+        Escaper.getInstance(EscapeContext.TEXT, false, false).escape(carr, 1, 7, out, new char[Escaper.MAX_REFERENCE_LENGTH]);
+        assertThat(out).hasToString("abc&amp;def");
+    }
+
+    @Test
+    @DisplayName("Escape long runs of clean characters")
+    void testLongRuns() throws IOException {
+        final String clean = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ";
+        final String text = clean + "<" + clean + clean + "\u00E9" + clean + ">";
+        assertThat(escape(text, false, false)).isEqualTo(clean + "&lt;" + clean + clean + "\u00E9" + clean + ">");
+        assertThat(escape(text, true, false)).isEqualTo(clean + "&lt;" + clean + clean + "&#xE9;" + clean + ">");
+    }
+
+    private static String escape(final String text, final boolean escapeNonAscii, final boolean useDecimal)
+            throws IOException {
+        return escape(EscapeContext.TEXT, text, escapeNonAscii, useDecimal);
+    }
+
+    private static String escape(final EscapeContext context, final String text, final boolean escapeNonAscii,
+                                 final boolean useDecimal) throws IOException {
+        final StringWriter out = new StringWriter();
+        Escaper.getInstance(context, escapeNonAscii, useDecimal).escape(text.toCharArray(), 0, text.length(), out,
+                                                                        new char[Escaper.MAX_REFERENCE_LENGTH]);
+        return out.toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+
+@SuppressWarnings("UnnecessaryUnicodeEscape")
+class MappedFileSinkTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    @DisplayName("Write a document across multiple mapped regions")
+    void testWriteDocument() throws Exception {
+        final Path file = this.tempDir.resolve("test.xml");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            final MappedFileSink sink = new MappedFileSink(channel, 16);
+            final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+            writeDocument(writer, "Hello World");
+
+            assertThat(sink.getPosition()).isEqualTo(channel.size());
+        }
+
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo(expected("Hello World"));
+    }
+
+    @Test
+    @DisplayName("Reuse the writer to append a second document")
+    void testReset() throws Exception {
+        final Path file = this.tempDir.resolve("test.xml");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            final XmlStreamEmitter writer = new XmlStreamEmitter(new MappedFileSink(channel, 1024));
+            writeDocument(writer, "First");
+            writer.reset();
+            writeDocument(writer, "Second");
+        }
+
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo(expected("First")
+                                                                                    + expected("Second"));
+    }
+
+    @Test
+    @DisplayName("Flush forces the output to the file")
+    void testFlush() throws Exception {
+        final Path file = this.tempDir.resolve("test.xml");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            final MappedFileSink sink = new MappedFileSink(channel, 1024);
+            final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+            writer.startDocument(null, true, true);
+            writer.startElement("elem1");
+            writer.characters("\u00A9");
+            writer.flush();
+
+            assertThat(sink.getPosition()).isEqualTo(9);
+        }
+    }
+
+    @Test
+    @DisplayName("Flush forces every region filled since the previous flush")
+    void testFlushMultipleRegions() throws Exception {
+        final Path file = this.tempDir.resolve("test.xml");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            final MappedFileSink sink = new MappedFileSink(channel, 16);
+            final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+            writer.startDocument(null, true, true);
+            writer.startElement("elem1");
+            writer.characters("Hello World, this text spans several regions");
+            assertThat(sink.getForcedPosition()).isZero();
+
+            writer.flush();
+
+            assertThat(sink.getPosition()).isGreaterThan(3 * 16);
+            assertThat(sink.getForcedPosition()).isEqualTo(sink.getPosition());
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid region size")
+    void testBadRegionSize() throws Exception {
+        final Path file = this.tempDir.resolve("test.xml");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            assertThatIllegalArgumentException().isThrownBy(() -> new MappedFileSink(channel, 0));
+            assertThatIllegalArgumentException().isThrownBy(() -> new MappedFileSink(channel, 1L << 32));
+        }
+    }
+
+    private static void writeDocument(final XmlStreamEmitter writer, final String text) throws Exception {
+        writer.startDocument(null, true, false);
+        writer.startElement("elem1");
+        writer.startElement("elem2");
+        writer.characters(text + " \u00A9\u20AC\uD83D\uDE03");
+        writer.endElement();
+        writer.endElement();
+        writer.endDocument();
+    }
+
+    private static String expected(final String text) {
+        return "<?xml version=\"1.0\" standalone=\"yes\"?>" + System.lineSeparator()
+                + "<elem1><elem2>" + text + " \u00A9\u20AC\uD83D\uDE03</elem2></elem1>" + System.lineSeparator();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SuppressWarnings("UnnecessaryUnicodeEscape")
+class MemorySinkTest {
+
+    @Test
+    @DisplayName("Collect a document in memory")
+    void testToMemory() throws Exception {
+        final XmlStreamEmitter writer = new XmlStreamEmitter();
+        final MemorySink sink = writer.toMemory();
+        assertThat(writer.getOutput()).isSameAs(sink);
+
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        writer.characters("\u00E9t\u00E9");
+        writer.endElement();
+        writer.endDocument();
+
+        final String expected = "<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>\u00E9t\u00E9</root>\n";
+        final byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+        assertThat(sink).hasToString(expected);
+        assertThat(sink.toByteArray()).isEqualTo(expectedBytes);
+        assertThat(sink.getSize()).isEqualTo(expectedBytes.length);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sink.writeTo(bytes);
+        assertThat(bytes.toByteArray()).isEqualTo(expectedBytes);
+    }
+
+    @Test
+    @DisplayName("Clear the sink when the writer is reset")
+    void testReset() throws Exception {
+        final XmlStreamEmitter writer = new XmlStreamEmitter();
+        final MemorySink sink = writer.toMemory();
+
+        writer.startDocument(null, true, false);
+        writer.emptyElement("first");
+        writer.endDocument();
+
+        writer.reset();
+        assertThat(sink.getSize()).isZero();
+
+        writer.startDocument(null, true, false);
+        writer.emptyElement("second");
+        writer.endDocument();
+        assertThat(sink).hasToString("<?xml version=\"1.0\" standalone=\"yes\"?>\n<second/>\n");
+    }
+
+    @Test
+    @DisplayName("Discard a pending high surrogate when the writer is reset")
+    void testResetPendingSurrogate() throws Exception {
+        final XmlStreamEmitter writer = new XmlStreamEmitter();
+        final MemorySink sink = writer.toMemory();
+
+        writer.startDocument(null, true, false);
+        writer.startElement("first");
+        writer.data("a\uD83D");
+
+        writer.reset();
+        assertThat(sink.getSize()).isZero();
+
+        writer.startDocument(null, true, false);
+        writer.emptyElement("second");
+        writer.endDocument();
+        assertThat(sink).hasToString("<?xml version=\"1.0\" standalone=\"yes\"?>\n<second/>\n");
+    }
+
+    @Test
+    @DisplayName("Grow beyond the initial capacity")
+    void testGrow() throws Exception {
+        final MemorySink sink = new MemorySink(4);
+        assertThat(sink.getCapacity()).isEqualTo(4);
+
+        final String str = "abc\u20AC".repeat(100);
+        sink.write(str);
+        assertThat(sink).hasToString(str);
+        assertThat(sink.getCapacity()).isGreaterThan(400);
+
+        sink.ensureCapacity(10000);
+        assertThat(sink.getCapacity()).isEqualTo(10000);
+        sink.ensureCapacity(16);
+        assertThat(sink.getCapacity()).isEqualTo(10000);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import javax.xml.XMLConstants;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+
+class NamespaceStackTest {
+
+    @Test
+    @DisplayName("Declare and look up namespaces")
+    void testLookup() {
+        final NamespaceStack stack = new NamespaceStack();
+        stack.pushContext();
+        assertThat(stack.declarePrefix("a", "urn:a")).isTrue();
+        assertThat(stack.declarePrefix("", "urn:default")).isTrue();
+
+        assertThat(stack.getURI("a")).isEqualTo("urn:a");
+        assertThat(stack.getURI("")).isEqualTo("urn:default");
+        assertThat(stack.getURI("b")).isNull();
+        assertThat(stack.getPrefix("urn:a")).isEqualTo("a");
+        assertThat(stack.getPrefix("urn:default")).isNull();
+        assertThat(stack.getPrefix("urn:b")).isNull();
+
+        assertThat(stack.getURI(XMLConstants.XML_NS_PREFIX)).isEqualTo(XMLConstants.XML_NS_URI);
+        assertThat(stack.getPrefix(XMLConstants.XML_NS_URI)).isEqualTo(XMLConstants.XML_NS_PREFIX);
+        assertThat(stack.declarePrefix(XMLConstants.XML_NS_PREFIX, "urn:x")).isFalse();
+        assertThat(stack.declarePrefix(XMLConstants.XMLNS_ATTRIBUTE, "urn:x")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Inner scopes shadow outer scopes")
+    void testScopes() {
+        final NamespaceStack stack = new NamespaceStack();
+        stack.pushContext();
+        stack.declarePrefix("a", "urn:a");
+        stack.pushContext();
+        assertThat(stack.getScopeStart()).isEqualTo(stack.getSize());
+        stack.declarePrefix("a", "urn:b");
+
+        assertThat(stack.getURI("a")).isEqualTo("urn:b");
+        assertThat(stack.getPrefix("urn:a")).isNull();
+        assertThat(stack.getPrefix("urn:b")).isEqualTo("a");
+
+        stack.pushContext();
+        assertThat(stack.popContext()).isFalse();
+        assertThat(stack.popContext()).isTrue();
+        assertThat(stack.getURI("a")).isEqualTo("urn:a");
+        assertThat(stack.getPrefix("urn:a")).isEqualTo("a");
+        assertThat(stack.popContext()).isTrue();
+        assertThat(stack.getURI("a")).isNull();
+        assertThat(stack.getSize()).isZero();
+
+        assertThatIllegalStateException().isThrownBy(stack::popContext);
+    }
+
+    @Test
+    @DisplayName("Declarations in a scope are sorted by prefix")
+    void testSorted() {
+        final NamespaceStack stack = new NamespaceStack();
+        stack.pushContext();
+        stack.declarePrefix("z", "urn:outer");
+        stack.pushContext();
+        for (int i = 20; i > 0; i--) {
+            stack.declarePrefix("p" + (char)('a' + i), "urn:" + i);
+        }
+        stack.declarePrefix("", "urn:default");
+        stack.declarePrefix("pc", "urn:replaced");
+
+        final int start = stack.getScopeStart();
+        assertThat(start).isEqualTo(1);
+        assertThat(stack.getSize() - start).isEqualTo(21);
+        assertThat(stack.getDeclaredPrefix(start)).isEmpty();
+        for (int i = start + 1; i < stack.getSize() - 1; i++) {
+            assertThat(stack.getDeclaredPrefix(i).compareTo(stack.getDeclaredPrefix(i + 1))).isNegative();
+        }
+        assertThat(stack.getURI("pc")).isEqualTo("urn:replaced");
+
+        stack.reset();
+        assertThat(stack.getSize()).isZero();
+        assertThat(stack.getURI("z")).isNull();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Verifies that the native image options shipped with the library refer to classes that exist, so that renaming a
+ * class does not break native image builds.
+ */
+@DisabledInNativeImage
+class NativeImagePropertiesTest {
+
+    private static final String PROPERTIES = "/META-INF/native-image/org.cthing/xmlwriter-core/native-image.properties";
+    private static final String BUILD_TIME_INIT = "--initialize-at-build-time=";
+
+    @Test
+    @DisplayName("Classes initialized at image build time exist")
+    void testBuildTimeInitClasses() throws Exception {
+        final Properties properties = new Properties();
+        try (InputStream in = getClass().getResourceAsStream(PROPERTIES)) {
+            assertThat(in).isNotNull();
+            properties.load(in);
+        }
+
+        final String args = properties.getProperty("Args");
+        assertThat(args).startsWith(BUILD_TIME_INIT);
+
+        for (final String className : args.substring(BUILD_TIME_INIT.length()).split(",")) {
+            assertThat(Class.forName(className, false, getClass().getClassLoader())).isNotNull();
+        }
+    }
+}
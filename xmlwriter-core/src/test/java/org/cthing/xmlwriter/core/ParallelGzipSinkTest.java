@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+
+class ParallelGzipSinkTest {
+
+    private static void writeDocument(final XmlStreamEmitter writer) throws Exception {
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        for (int i = 0; i < 500; i++) {
+            writer.startElement("record");
+            writer.addAttribute("id", String.valueOf(i));
+            writer.characters("Record number " + i);
+            writer.endElement();
+        }
+        writer.endElement();
+        writer.endDocument();
+    }
+
+    private static String decompress(final byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Compress blocks in parallel as a multi-member gzip stream")
+    void testCompress() throws Exception {
+        final StringWriter expected = new StringWriter();
+        writeDocument(new XmlStreamEmitter(expected));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelGzipSink sink = new ParallelGzipSink(bytes, pool, 256, 3, Deflater.BEST_SPEED);
+            writeDocument(new XmlStreamEmitter(sink));
+            sink.close();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(decompress(bytes.toByteArray())).isEqualTo(expected.toString());
+    }
+
+    @Test
+    @DisplayName("Flush writes a partial block")
+    void testFlush() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final XmlStreamEmitter writer = new XmlStreamEmitter(new ParallelGzipSink(bytes));
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        writer.characters("Hello World");
+        writer.flush();
+
+        assertThat(decompress(bytes.toByteArray()))
+                .isEqualTo("<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>Hello World");
+    }
+
+    @Test
+    @DisplayName("Reject bad arguments")
+    void testBadArguments() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        assertThatIllegalArgumentException().isThrownBy(() -> new ParallelGzipSink(bytes, pool, 2, 1, 6));
+        assertThatIllegalArgumentException().isThrownBy(() -> new ParallelGzipSink(bytes, pool, 1024, 0, 6));
+        assertThatIllegalArgumentException().isThrownBy(() -> new ParallelGzipSink(bytes, pool, 1024, 1, 11));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+
+class SegmentSinkTest {
+
+    private static final String EXPECTED = "<?xml version=\"1.0\" standalone=\"yes\"?>\n<root>Hello World</root>\n";
+
+    @TempDir
+    private Path tempDir;
+
+    private static void writeDocument(final XmlStreamEmitter writer) throws Exception {
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        writer.characters("Hello World");
+        writer.endElement();
+        writer.endDocument();
+    }
+
+    @Test
+    @DisplayName("Collect output in segments")
+    void testSegments() throws Exception {
+        final SegmentSink sink = new SegmentSink(new SegmentPool(16, 8));
+        writeDocument(new XmlStreamEmitter(sink));
+
+        final ByteBuffer[] segments = sink.getSegments();
+        assertThat(segments).hasSize(4);
+        assertThat(sink.getSize()).isEqualTo(EXPECTED.length());
+
+        final StringBuilder output = new StringBuilder();
+        for (final ByteBuffer segment : segments) {
+            assertThat(segment.isDirect()).isTrue();
+            output.append(StandardCharsets.UTF_8.decode(segment));
+        }
+        assertThat(output.toString()).isEqualTo(EXPECTED);
+    }
+
+    @Test
+    @DisplayName("Write segments to a channel and reuse them")
+    void testWriteTo() throws Exception {
+        final SegmentPool pool = new SegmentPool(16, 8);
+        final SegmentSink sink = new SegmentSink(pool);
+        final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+        final Path file = this.tempDir.resolve("out.xml");
+
+        writeDocument(writer);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThat(sink.writeTo(channel)).isEqualTo(EXPECTED.length());
+        }
+        assertThat(Files.readString(file)).isEqualTo(EXPECTED);
+
+        assertThat(pool.getIdleCount()).isZero();
+        sink.release();
+        assertThat(pool.getIdleCount()).isEqualTo(4);
+        assertThat(sink.getSegments()).hasSize(0);
+
+        writer.reset();
+        writeDocument(writer);
+        assertThat(pool.getIdleCount()).isZero();
+        assertThat(sink.getSize()).isEqualTo(EXPECTED.length());
+    }
+
+    @Test
+    @DisplayName("Return segments to the pool when the writer is reset")
+    void testReset() throws Exception {
+        final SegmentPool pool = new SegmentPool(16, 8);
+        final SegmentSink sink = new SegmentSink(pool);
+        final XmlStreamEmitter writer = new XmlStreamEmitter(sink);
+
+        writeDocument(writer);
+        assertThat(pool.getIdleCount()).isZero();
+
+        writer.reset();
+        assertThat(pool.getIdleCount()).isEqualTo(4);
+        assertThat(sink.getSegments()).hasSize(0);
+        assertThat(sink.getSize()).isZero();
+
+        writeDocument(writer);
+        assertThat(pool.getIdleCount()).isZero();
+        assertThat(sink.getSize()).isEqualTo(EXPECTED.length());
+    }
+
+    @Test
+    @DisplayName("Pool limits idle segments")
+    void testPool() {
+        final SegmentPool pool = new SegmentPool(16, 1);
+        final ByteBuffer segment1 = pool.acquire();
+        final ByteBuffer segment2 = pool.acquire();
+        segment1.put((byte)1);
+
+        pool.release(segment1);
+        pool.release(segment2);
+        pool.release(ByteBuffer.allocate(16));
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+
+        final ByteBuffer segment3 = pool.acquire();
+        assertThat(segment3).isSameAs(segment1);
+        assertThat(segment3.position()).isZero();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new SegmentPool(0, 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SegmentPool(16, -1));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Verifies the state machine transition table against the state machine document.
+ */
+class StateMachineTest {
+
+    private static final Path DOC = Path.of("..", "dev", "docs", "StateMachine.md");
+    private static final Pattern STATE_HEADING = Pattern.compile("^#### Current State: (\\w+)$");
+    private static final Pattern DIAGRAM_EDGE = Pattern.compile("^\\s*(\\w+) --> (\\w+): E\\d+$");
+    private static final Pattern LEVEL_STATE = Pattern.compile("^(\\w+) \\(level (>|==) 0\\)$");
+
+    /**
+     * Transition documented in a state table.
+     *
+     * @param state Current state
+     * @param event Event
+     * @param nextState Next state when elements remain open
+     * @param rootClosedState Next state when the root element has been closed
+     */
+    private record Transition(String state, String event, String nextState, String rootClosedState) {
+    }
+
+    @Test
+    @DisplayName("Transition table matches every documented transition")
+    void testTransitionTable() throws IOException {
+        final List<Transition> transitions = readTransitions();
+
+        assertThat(transitions).hasSize(XmlStreamEmitter.getTransitionCount());
+        for (final Transition transition : transitions) {
+            assertThat(XmlStreamEmitter.getNextState(transition.state(), transition.event(), false))
+                    .as("%s in %s", transition.event(), transition.state())
+                    .isEqualTo(transition.nextState());
+            assertThat(XmlStreamEmitter.getNextState(transition.state(), transition.event(), true))
+                    .as("%s in %s with root closed", transition.event(), transition.state())
+                    .isEqualTo(transition.rootClosedState());
+        }
+    }
+
+    @Test
+    @DisplayName("State diagram matches the documented transitions")
+    void testStateDiagram() throws IOException {
+        final Set<String> diagramEdges = new HashSet<>();
+        for (final String line : Files.readAllLines(DOC, StandardCharsets.UTF_8)) {
+            final Matcher matcher = DIAGRAM_EDGE.matcher(line);
+            if (matcher.matches()) {
+                diagramEdges.add(matcher.group(1) + " --> " + matcher.group(2));
+            }
+        }
+
+        final Set<String> tableEdges = new HashSet<>();
+        for (final Transition transition : readTransitions()) {
+            if (!"THROW".equals(transition.nextState())) {
+                tableEdges.add(transition.state() + " --> " + transition.nextState());
+                tableEdges.add(transition.state() + " --> " + transition.rootClosedState());
+            }
+        }
+
+        assertThat(diagramEdges).isEqualTo(tableEdges);
+    }
+
+    /**
+     * Reads the state transition tables from the state machine document.
+     *
+     * @return Transitions documented for every state and event.
+     * @throws IOException If the document could not be read.
+     */
+    private static List<Transition> readTransitions() throws IOException {
+        final List<Transition> transitions = new ArrayList<>();
+        String state = null;
+
+        for (final String line : Files.readAllLines(DOC, StandardCharsets.UTF_8)) {
+            final Matcher matcher = STATE_HEADING.matcher(line);
+            if (matcher.matches()) {
+                state = matcher.group(1);
+                continue;
+            }
+            if (state == null || !line.startsWith("|")) {
+                if (line.startsWith("#")) {
+                    state = null;
+                }
+                continue;
+            }
+
+            final String[] columns = line.split("\\|");
+            final String event = columns[1].trim();
+            if ("Event".equals(event) || event.startsWith("-")) {
+                continue;
+            }
+
+            final String next = columns[4].trim();
+            String nextState = next;
+            String rootClosedState = next;
+            for (final String alternative : next.split("<br/>")) {
+                final Matcher levelMatcher = LEVEL_STATE.matcher(alternative.trim());
+                if (levelMatcher.matches()) {
+                    if (">".equals(levelMatcher.group(2))) {
+                        nextState = levelMatcher.group(1);
+                    } else {
+                        rootClosedState = levelMatcher.group(1);
+                    }
+                }
+            }
+            transitions.add(new Transition(state, event, nextState, rootClosedState));
+        }
+
+        return transitions;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SuppressWarnings("UnnecessaryUnicodeEscape")
+class StreamSinkTest {
+
+    @Test
+    @DisplayName("Encode ASCII, 2 byte, 3 byte and supplementary characters")
+    void testEncoding() throws Exception {
+        final String str = "Hello \u00A9 \u20AC \uD83D\uDE03 World";
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StreamSink sink = new StreamSink(bytes, 8);
+
+        sink.write(str);
+        sink.flush();
+
+        assertThat(bytes.toByteArray()).isEqualTo(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Encode characters written individually and as arrays")
+    void testWriteMethods() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StreamSink sink = new StreamSink(bytes, 16);
+
+        sink.write('<');
+        sink.write("abc\u00E9".toCharArray(), 1, 3);
+        sink.write("xyz", 1, 1);
+        sink.write('\uD83D');
+        sink.write('\uDE03');
+        sink.flush();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo("<bc\u00E9y\uD83D\uDE03");
+    }
+
+    @Test
+    @DisplayName("Surrogate pair split across writes and buffer drains")
+    void testSplitSurrogatePair() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StreamSink sink = new StreamSink(bytes, 4);
+
+        sink.write("abc\uD83D");
+        sink.flush();
+        sink.write("\uDE03d");
+        sink.flush();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo("abc\uD83D\uDE03d");
+    }
+
+    @Test
+    @DisplayName("Malformed surrogates are replaced")
+    void testMalformedSurrogates() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StreamSink sink = new StreamSink(bytes, 32);
+
+        sink.write("a\uDE03b\uD83Dc\uD83D");
+        sink.close();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo("a?b?c?");
+    }
+
+    @Test
+    @DisplayName("Long strings are written in chunks")
+    void testLongString() throws Exception {
+        final String str = "0123456789\u00FF".repeat(500);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StreamSink sink = new StreamSink(bytes, 100);
+
+        sink.write(str);
+        sink.flush();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo(str);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+
+class XmlNameTest {
+
+    @Test
+    @DisplayName("Construct names")
+    void testConstruction() {
+        final XmlName name1 = new XmlName("elem");
+        assertThat(name1.getUri()).isEmpty();
+        assertThat(name1.getLocalName()).isEqualTo("elem");
+        assertThat(name1.getQName()).isEmpty();
+        assertThat(name1).hasToString("elem");
+
+        final XmlName name2 = new XmlName("urn:test", "elem", "t:elem");
+        assertThat(name2.getUri()).isEqualTo("urn:test");
+        assertThat(name2.getLocalName()).isEqualTo("elem");
+        assertThat(name2.getQName()).isEqualTo("t:elem");
+        assertThat(name2).hasToString("{urn:test}elem");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new XmlName(""));
+    }
+
+    @Test
+    @DisplayName("Names are equal based on namespace and local name")
+    void testEquality() {
+        final XmlName name1 = new XmlName("urn:test", "elem");
+        final XmlName name2 = new XmlName("urn:test", "elem", "t:elem");
+        final XmlName name3 = new XmlName("elem");
+
+        assertThat(name1).isEqualTo(name2);
+        assertThat(name1.hashCode()).isEqualTo(name2.hashCode());
+        assertThat(name1).isNotEqualTo(name3);
+    }
+
+    @Test
+    @DisplayName("Cached qualified names are tied to an epoch")
+    void testQualified() {
+        final XmlName name = new XmlName("urn:test", "elem");
+        assertThat(name.getQualified(1, true)).isNull();
+
+        assertThat(new String(name.setQualified(1, true, "t"))).isEqualTo("t:elem");
+        assertThat(new String(name.getQualified(1, true))).isEqualTo("t:elem");
+        assertThat(name.getQualified(1, false)).isNull();
+        assertThat(name.getQualified(2, true)).isNull();
+
+        assertThat(new String(name.setQualified(2, false, ""))).isEqualTo("elem");
+        assertThat(new String(name.getQualified(2, false))).isEqualTo("elem");
+
+        final XmlName unqualified = new XmlName("elem");
+        assertThat(new String(unqualified.getQualified(5, true))).isEqualTo("elem");
+        assertThat(new String(unqualified.getQualified(6, false))).isEqualTo("elem");
+    }
+}
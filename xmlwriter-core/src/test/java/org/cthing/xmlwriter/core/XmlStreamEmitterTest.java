@@ -0,0 +1,343 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+class XmlStreamEmitterTest {
+
+    private StringWriter stringWriter;
+    private XmlStreamEmitter emitter;
+
+    @BeforeEach
+    void setup() {
+        this.stringWriter = new StringWriter();
+        this.emitter = new XmlStreamEmitter(this.stringWriter);
+    }
+
+
+    @Test
+    @DisplayName("Write a string without any processing")
+    void testWriteRawString() throws Exception {
+        final String testString = "Hello &<>\" World\u00A9\n";
+
+        this.emitter.writeRaw(testString);
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testString);
+    }
+
+    @Test
+    @DisplayName("Write an array without any processing")
+    void testWriteRawArray() throws Exception {
+        final String testString = "Hello &<>\" World\u00A9\n";
+
+        this.emitter.writeRaw(testString.toCharArray(), 0, testString.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testString);
+    }
+
+    @Test
+    @DisplayName("Write a character without any processing")
+    void testWriteRawChar() throws Exception {
+        final String testString = "a";
+
+        this.emitter.writeRaw(testString.charAt(0));
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testString);
+    }
+
+    @Test
+    @DisplayName("Write an array with escaping")
+    void testWriteEscapedArray() throws Exception {
+        final String testStringIn = "<Hello &<>\" World\u00A9\u001A\uFFFE\uD83D\uDE03\t\n";
+        final String testStringOut = "&lt;Hello &amp;&lt;>\" World\u00A9\uD83D\uDE03\t\n";
+
+        this.emitter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Write an array with escaping")
+    void testWriteEscapedArrayNonAscii() throws Exception {
+        final String testStringIn = "<Hello &<>\" World\u00A9\u001A\uFFFE\uD83D\uDE03\t\n";
+        final String testStringOut = "&lt;Hello &amp;&lt;>\" World&#xA9;&#x1F603;\t\n";
+
+        this.emitter.setEscapeNonAscii(true);
+        this.emitter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Write an array with escaping")
+    void testWriteEscapedArrayNonAsciiDecimal() throws Exception {
+        final String testStringIn = "<Hello &<>\" World\u00A9\u001A\uFFFE\uD83D\uDE03\t\n";
+        final String testStringOut = "&lt;Hello &amp;&lt;>\" World&#169;&#128515;\t\n";
+
+        this.emitter.setEscapeNonAscii(true);
+        this.emitter.setUseDecimal(true);
+        this.emitter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Write a long array with escaping")
+    void testWriteEscapedLongArray() throws Exception {
+        final String clean = "The quick brown fox jumps over the lazy dog.\n";
+        final String testStringIn = clean + "<&>" + clean.repeat(3) + "\uD83D\uDE03\u0001" + clean + "\uFFFF";
+        final String testStringOut = clean + "&lt;&amp;>" + clean.repeat(3) + "\uD83D\uDE03" + clean;
+
+        this.emitter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Write a string adding quotes")
+    void testWriteQuotedString() throws Exception {
+        final String testStringIn = "Hello &<>\"' World\u00A9";
+        final String testStringOut = "\"Hello &amp;&lt;>&quot;' World\u00A9\"";
+
+        this.emitter.writeQuoted(testStringIn);
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Write an array adding quotes")
+    void testWriteQuotedArray() throws Exception {
+        final String testStringIn = "Hello &<>\"' World\u00A9";
+        final String testStringOut = "\"Hello &amp;&lt;>&quot;' World&#xA9;\"";
+
+        this.emitter.setEscapeNonAscii(true);
+        this.emitter.writeQuoted(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Write an array using the quote that needs the fewest escapes")
+    void testWriteQuotedSelectsQuote() throws Exception {
+        final String testStringIn = "say \"hi\" it's\tme";
+        final String testStringOut = "'say \"hi\" it&apos;s&#x9;me'";
+
+        this.emitter.writeQuoted(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString(testStringOut);
+    }
+
+    @Test
+    @DisplayName("Output is buffered until flushed")
+    void testBuffering() throws Exception {
+        this.emitter.writeRaw("Hello");
+        this.emitter.writeRaw(' ');
+
+        assertThat(this.stringWriter).hasToString("");
+
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString("Hello ");
+    }
+
+    @Test
+    @DisplayName("Output larger than the buffer is passed through")
+    void testSmallBuffer() throws Exception {
+        this.emitter.setBufferSize(4);
+        this.emitter.writeRaw("ab");
+        this.emitter.writeRaw("cde");
+        this.emitter.writeRaw("fghijk".toCharArray(), 0, 6);
+        this.emitter.writeRaw('l');
+
+        assertThat(this.stringWriter).hasToString("abcdefghijk");
+        assertThat(this.emitter.getBufferSize()).isEqualTo(4);
+
+        this.emitter.flush();
+
+        assertThat(this.stringWriter).hasToString("abcdefghijkl");
+    }
+
+    @Test
+    @DisplayName("Invalid buffer size")
+    void testBadBufferSize() {
+        assertThatIllegalArgumentException().isThrownBy(() -> this.emitter.setBufferSize(3));
+    }
+
+    @Test
+    @DisplayName("Write a document without SAX")
+    void testDocument() throws Exception {
+        this.emitter.startDocument("UTF-8", true, false);
+        this.emitter.startElement("urn:test", "root", "t:root");
+        this.emitter.addAttribute("a", "<1>");
+        this.emitter.characters("Hello & goodbye");
+        this.emitter.emptyElement("child");
+        this.emitter.addAttribute(new XmlName("urn:test", "b"), "2");
+        this.emitter.comment("note");
+        this.emitter.endElement();
+        this.emitter.endDocument();
+
+        assertThat(this.stringWriter).hasToString("""
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <t:root a="&lt;1>" xmlns:t="urn:test">Hello &amp; goodbye<child t:b="2"/><!--note--></t:root>
+                """);
+    }
+
+    @Test
+    @DisplayName("Write a document with runs long enough for the vector scanner")
+    void testDocumentLongRuns() throws Exception {
+        final String clean = "The quick brown fox jumps over the lazy dog. ";
+        this.emitter.setEscapeNonAscii(true);
+        this.emitter.startDocument(null, true, true);
+        this.emitter.startElement("root");
+        this.emitter.addAttribute("a", clean + "\"<\t>\"" + clean + "\u00E9");
+        this.emitter.addAttribute("b", clean + "'" + clean);
+        this.emitter.characters(clean + "<&>" + clean + "\u00E9t\u00E9" + clean + "]]>" + clean);
+        this.emitter.endElement();
+        this.emitter.endDocument();
+
+        assertThat(this.stringWriter).hasToString("<root a='" + clean + "\"&lt;&#x9;>\"" + clean + "&#xE9;' b=\""
+                                                  + clean + "'" + clean + "\">" + clean + "&lt;&amp;>" + clean
+                                                  + "&#xE9;t&#xE9;" + clean + "]]&gt;" + clean + "</root>\n");
+    }
+
+    @Test
+    @DisplayName("Events that are not allowed throw an IllegalStateException")
+    void testIllegalEvent() throws Exception {
+        assertThatIllegalStateException().isThrownBy(() -> this.emitter.startElement("root"));
+
+        this.emitter.startDocument(null, true, true);
+        this.emitter.startElement("root");
+        this.emitter.characters("text");
+        assertThatIllegalStateException().isThrownBy(() -> this.emitter.addAttribute("a", "1"));
+    }
+
+    @Test
+    @DisplayName("Names of the open element")
+    void testElementNames() throws Exception {
+        this.emitter.startDocument(null, true, true);
+        assertThat(this.emitter.getElementLevel()).isEqualTo(0);
+        assertThatExceptionOfType(NoSuchElementException.class).isThrownBy(() -> this.emitter.getElementLocalName());
+
+        this.emitter.startElement("urn:test", "root", "t:root");
+        this.emitter.startElement("child");
+        assertThat(this.emitter.getElementLevel()).isEqualTo(2);
+        assertThat(this.emitter.getElementURI()).isEmpty();
+        assertThat(this.emitter.getElementLocalName()).isEqualTo("child");
+
+        this.emitter.endElement();
+        assertThat(this.emitter.getElementLevel()).isEqualTo(1);
+        assertThat(this.emitter.getElementURI()).isEqualTo("urn:test");
+        assertThat(this.emitter.getElementLocalName()).isEqualTo("root");
+        assertThat(this.emitter.getElementQName()).isEqualTo("t:root");
+    }
+
+    @Test
+    @DisplayName("Stream mode writes the root start tag when flushed")
+    void testStreamMode() throws Exception {
+        this.emitter.setStreamMode(true);
+        this.emitter.startDocument("UTF-8", true, true);
+        this.emitter.startElement("stream");
+        this.emitter.addAttribute("to", "example.com");
+        assertThat(this.stringWriter).hasToString("");
+
+        this.emitter.flush();
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\">");
+        assertThatIllegalStateException().isThrownBy(() -> this.emitter.addAttribute("from", "example.org"));
+
+        this.emitter.startElement("message");
+        this.emitter.endElement();
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\"><message/>");
+    }
+
+    @Test
+    @DisplayName("Changing the indent string after an indent has been written")
+    void testChangeIndent() throws Exception {
+        this.emitter.setPrettyPrint(true);
+        this.emitter.startDocument(null, true, true);
+        this.emitter.startElement("a");
+        this.emitter.startElement("b");
+        this.emitter.endElement();
+        this.emitter.setIndentString("\t");
+        this.emitter.emptyElement("c");
+        this.emitter.endElement();
+        this.emitter.endDocument();
+
+        final String nl = System.lineSeparator();
+        assertThat(this.stringWriter).hasToString("<a>" + nl + "    <b/>" + nl + "\t<c/>" + nl + "</a>" + nl);
+    }
+
+    @Test
+    @DisplayName("Writing elements with attributes and character references does not allocate")
+    void testElementsDoNotAllocate() throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocBean = (com.sun.management.ThreadMXBean)threadBean;
+        assumeTrue(allocBean.isThreadAllocatedMemorySupported() && allocBean.isThreadAllocatedMemoryEnabled());
+
+        final XmlName name = new XmlName("", "item");
+        for (final boolean escapeNonAscii : new boolean[] { false, true }) {
+            final XmlStreamEmitter writer = new XmlStreamEmitter(OutputStream.nullOutputStream());
+            writer.setPrettyPrint(true);
+            writer.setEscapeNonAscii(escapeNonAscii);
+            writeItems(writer, name, 100);
+            writeItems(writer, name, 100);
+
+            // The runtime occasionally allocates on the thread, so less than a byte per entry is allowed.
+            final int count = 10_000;
+            final long threadId = Thread.currentThread().getId();
+            final long start = allocBean.getThreadAllocatedBytes(threadId);
+            writeItems(writer, name, count);
+            final long allocated = allocBean.getThreadAllocatedBytes(threadId) - start;
+
+            assertThat(allocated).isLessThan(count);
+        }
+    }
+
+    private static void writeItems(final XmlStreamEmitter writer, final XmlName name, final int count)
+            throws Exception {
+        writer.reset();
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        for (int i = 0; i < count; i++) {
+            writer.startElement("entry");
+            writer.addAttribute("id", "value-1");
+            writer.addAttribute("text", "say \"hello\" & <goodbye>");
+            writer.startElement(name);
+            writer.addAttribute("a", "\u00E9t\u00E9");
+            writer.characters("Hello & World");
+            writer.characterRef('\u00E9');
+            writer.endElement();
+            writer.endElement();
+        }
+        writer.endElement();
+        writer.endDocument();
+    }
+}
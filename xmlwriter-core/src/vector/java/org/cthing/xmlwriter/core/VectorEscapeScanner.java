@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter.core;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * Scanner that uses the incubating Vector API to examine as many characters at a time as fit in the preferred vector
+ * size of the hardware (e.g. 16 characters with 256-bit vectors and 32 characters with 512-bit vectors). Characters
+ * that do not fill a vector are examined one at a time by the superclass.
+ *
+ * <p>This class is compiled separately from the rest of the library with the {@code jdk.incubator.vector} module
+ * added. It is only loaded by {@link EscapeScanner} when that module is present at runtime, the first time a range of
+ * characters long enough to benefit is scanned.</p>
+ */
+final class VectorEscapeScanner extends EscapeScanner {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    /** Fewest lanes for which the vector scan outperforms the scalar scan. */
+    private static final int MIN_LANES = 8;
+
+    private static final short SPACE = ' ';
+    private static final short DELETE = 0x7F;
+    private static final short NBSP = (short)0xA0;
+    private static final short FIRST_SURROGATE = (short)0xD800;
+    private static final short LAST_SURROGATE = (short)0xDFFF;
+    private static final short FIRST_NONCHARACTER = (short)0xFFFE;
+
+    /** Markup significant character escaped in addition to '&lt;' and '&amp;'. */
+    private final short markup;
+
+    /** Indicates whether tab, newline and carriage return are written unchanged. */
+    private final boolean rawWhitespace;
+
+    /**
+     * Creates a scanner for the specified context. Called reflectively by {@link EscapeScanner}.
+     *
+     * @param context Context in which the characters are escaped
+     */
+    VectorEscapeScanner(final EscapeContext context) {
+        super(context);
+        this.markup = (short)context.getMarkup();
+        this.rawWhitespace = context.isRawWhitespace();
+    }
+
+    @Override
+    boolean isAccelerated() {
+        return SPECIES.length() >= MIN_LANES;
+    }
+
+    @Override
+    int cleanRun(final char[] carr, final int start, final int end, final boolean escapeNonAscii) {
+        final int lanes = SPECIES.length();
+        int i = start;
+        while (end - i >= lanes) {
+            final VectorMask<Short> dirty = dirtyChars(ShortVector.fromCharArray(SPECIES, carr, i), escapeNonAscii);
+            if (dirty.anyTrue()) {
+                return i + dirty.firstTrue();
+            }
+            i += lanes;
+        }
+        return super.cleanRun(carr, i, end, escapeNonAscii);
+    }
+
+    /**
+     * Determines which of the specified characters must be escaped. The comparisons are unsigned because characters
+     * above 0x7FFF are negative when loaded as shorts.
+     *
+     * @param chars Characters to test
+     * @param escapeNonAscii {@code true} if characters above the ASCII range are escaped
+     * @return Mask whose set lanes correspond to the characters that must be escaped.
+     */
+    private VectorMask<Short> dirtyChars(final ShortVector chars, final boolean escapeNonAscii) {
+        VectorMask<Short> control = chars.compare(VectorOperators.UNSIGNED_LT, SPACE);
+        if (this.rawWhitespace) {
+            control = control.andNot(chars.eq((short)'\t'))
+                             .andNot(chars.eq((short)'\n'))
+                             .andNot(chars.eq((short)'\r'));
+        }
+        final VectorMask<Short> markupChars = chars.eq((short)'&')
+                                                   .or(chars.eq((short)'<'))
+                                                   .or(chars.eq(this.markup));
+        final VectorMask<Short> dirty = control.or(markupChars);
+
+        final VectorMask<Short> nonAscii = chars.compare(VectorOperators.UNSIGNED_GE, DELETE);
+        if (escapeNonAscii) {
+            return dirty.or(nonAscii);
+        }
+        if (!nonAscii.anyTrue()) {
+            return dirty;
+        }
+
+        final VectorMask<Short> discouraged = nonAscii.and(chars.compare(VectorOperators.UNSIGNED_LT, NBSP));
+        final VectorMask<Short> surrogate = chars.compare(VectorOperators.UNSIGNED_GE, FIRST_SURROGATE)
+                                                 .and(chars.compare(VectorOperators.UNSIGNED_LE, LAST_SURROGATE));
+        final VectorMask<Short> noncharacter = chars.compare(VectorOperators.UNSIGNED_GE, FIRST_NONCHARACTER);
+        return dirty.or(discouraged).or(surrogate).or(noncharacter);
+    }
+}
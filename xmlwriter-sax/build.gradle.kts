@@ -0,0 +1,55 @@
+import org.graalvm.buildtools.gradle.dsl.GraalVMExtension
+import org.graalvm.buildtools.gradle.tasks.BuildNativeImageTask
+
+description = "A simple yet highly configurable XML writing library that can be used as a SAX filter."
+
+dependencies {
+    api(project(":xmlwriter-core"))
+}
+
+val startupMainClass = "org.cthing.xmlwriter.StartupBenchmark"
+val startupRuns = 21
+
+configure<GraalVMExtension> {
+    binaries {
+        register("startup") {
+            imageName = "xmlwriter-startup"
+            mainClass = startupMainClass
+            classpath(the<SourceSetContainer>()["jmh"].runtimeClasspath)
+            buildArgs.add("--no-fallback")
+        }
+    }
+}
+
+val startupBenchmark by tasks.registering {
+    description = "Reports the median time to write a first document on the JVM and as a native executable."
+    group = "benchmark"
+
+    val classpath = the<SourceSetContainer>()["jmh"].runtimeClasspath
+    val javaLauncher = the<JavaToolchainService>().launcherFor(the<JavaPluginExtension>().toolchain)
+    val nativeImage = tasks.named<BuildNativeImageTask>("nativeStartupCompile").flatMap { it.outputFile }
+    dependsOn(classpath, "nativeStartupCompile")
+
+    doLast {
+        fun medianMillis(command: List<String>): Double {
+            val times = (1..startupRuns).map {
+                val start = System.nanoTime()
+                val process = ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start()
+                check(process.waitFor() == 0) { "Startup run failed: $command" }
+                System.nanoTime() - start
+            }.sorted()
+            return times[startupRuns / 2] / 1_000_000.0
+        }
+
+        val java = listOf(javaLauncher.get().executablePath.asFile.absolutePath, "-cp", classpath.asPath,
+                          startupMainClass)
+        val native = listOf(nativeImage.get().asFile.absolutePath)
+        for (mode in listOf("writer", "emitter")) {
+            logger.lifecycle("%-8s JVM: %8.1f ms   native: %8.1f ms".format(mode, medianMillis(java + mode),
+                                                                            medianMillis(native + mode)))
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.cthing.xmlwriter.core.XmlName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Measures the cost of writing start and end tags. The documents are deeply nested and use namespaced elements with
+ * long qualified names, so that the cost of resolving element names dominates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElementBenchmark {
+
+    private static final String NS_URI = "http://www.xbrl.org/2003/instance";
+    private static final String LOCAL_NAME = "nonNegativeIntegerItemType";
+    private static final String QNAME = "xbrli:" + LOCAL_NAME;
+
+    @Param({ "8", "64" })
+    private int depth;
+
+    private XmlName name;
+
+    /**
+     * Creates the precompiled name shared by all iterations.
+     */
+    @Setup
+    public void setup() {
+        this.name = new XmlName(NS_URI, LOCAL_NAME, QNAME);
+    }
+
+    /**
+     * Writes a deeply nested document whose elements are named using strings.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    public XmlWriter deepStringNames() throws SAXException {
+        final XmlWriter writer = new XmlWriter(OutputStream.nullOutputStream());
+        writer.startDocument();
+        for (int i = 0; i < this.depth; i++) {
+            writer.startElement(NS_URI, LOCAL_NAME, QNAME);
+        }
+        for (int i = 0; i < this.depth; i++) {
+            writer.endElement();
+        }
+        writer.endDocument();
+        return writer;
+    }
+
+    /**
+     * Writes a deeply nested document whose elements are named using a precompiled name.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    public XmlWriter deepXmlNames() throws SAXException {
+        final XmlWriter writer = new XmlWriter(OutputStream.nullOutputStream());
+        writer.startDocument();
+        for (int i = 0; i < this.depth; i++) {
+            writer.startElement(this.name);
+        }
+        for (int i = 0; i < this.depth; i++) {
+            writer.endElement();
+        }
+        writer.endDocument();
+        return writer;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Measures the cost of escaping long, mostly clean character data. Each benchmark is run in a JVM without the
+ * {@code jdk.incubator.vector} module, which uses the scalar escape scanner, and in a JVM with the module, which uses
+ * the vector escape scanner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EscapeBenchmark {
+
+    private static final String SENTENCE = "The quick brown fox jumps over the lazy dog. ";
+
+    @Param({ "64", "4096" })
+    private int length;
+
+    private char[] text;
+
+    /**
+     * Creates character data of the requested length that ends with a single character that must be escaped.
+     */
+    @Setup
+    public void setup() {
+        final String clean = SENTENCE.repeat(this.length / SENTENCE.length() + 1);
+        this.text = (clean.substring(0, this.length - 1) + "&").toCharArray();
+    }
+
+    /**
+     * Writes the character data using the scalar escape scanner.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    @Fork(1)
+    public XmlWriter scalarScan() throws SAXException {
+        return writeText();
+    }
+
+    /**
+     * Writes the character data using the vector escape scanner.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+    public XmlWriter vectorScan() throws SAXException {
+        return writeText();
+    }
+
+    private XmlWriter writeText() throws SAXException {
+        final XmlWriter writer = new XmlWriter(OutputStream.nullOutputStream());
+        writer.startDocument();
+        writer.startElement("r");
+        writer.characters(this.text, 0, this.text.length);
+        writer.endElement();
+        writer.endDocument();
+        return writer;
+    }
+}
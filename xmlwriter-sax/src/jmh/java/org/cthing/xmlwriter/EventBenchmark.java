@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Measures the cost of dispatching state machine events. The events carry as little output as possible, so that the
+ * cost of moving between states dominates. A single writer is created for each trial and reset before each document,
+ * so that constructing the writer and its output buffers is not measured. Run the benchmark against different
+ * revisions of the state machine to compare dispatch costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBenchmark {
+
+    private static final int NUM_EVENTS = 1000;
+    private static final char[] DATA = { 'a' };
+
+    private XmlWriter writer;
+
+    /**
+     * Creates the writer shared by all invocations.
+     */
+    @Setup
+    public void setup() {
+        this.writer = new XmlWriter(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Writes a document consisting of small elements with a single attribute and a single character of content.
+     * Each element visits the IN_START_TAG, AFTER_DATA and AFTER_TAG states.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    public XmlWriter elementEvents() throws SAXException {
+        final XmlWriter writer = this.writer;
+        writer.reset();
+        writer.startDocument();
+        writer.startElement("r");
+        for (int i = 0; i < NUM_EVENTS; i++) {
+            writer.startElement("e");
+            writer.addAttribute("a", "v");
+            writer.characters(DATA, 0, DATA.length);
+            writer.endElement();
+        }
+        writer.endElement();
+        writer.endDocument();
+        return writer;
+    }
+
+    /**
+     * Writes a document whose root element contains a run of character data events, each of which stays in the
+     * AFTER_DATA state.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    public XmlWriter characterEvents() throws SAXException {
+        final XmlWriter writer = this.writer;
+        writer.reset();
+        writer.startDocument();
+        writer.startElement("r");
+        for (int i = 0; i < NUM_EVENTS; i++) {
+            writer.characters(DATA, 0, DATA.length);
+        }
+        writer.endElement();
+        writer.endDocument();
+        return writer;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.cthing.xmlwriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.cthing.xmlwriter.core.XmlStreamEmitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Measures the time to write the first document in a freshly started JVM, which includes loading and initializing
+ * the classes on the construction path. Each fork writes a single document, so the benchmark must be run with many
+ * forks rather than many iterations.
+ *
+ * <p>The {@link #main(String[]) main} method writes the same document and is used to measure the startup time of a
+ * native executable. The {@code startupBenchmark} task of the build runs the method on the JVM and as a GraalVM
+ * native executable, and reports the median wall clock time of each.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    /**
+     * Writes a first document using an XmlWriter.
+     *
+     * @return The writer, so that the work is not optimized away
+     * @throws SAXException If there is a problem writing the document.
+     */
+    @Benchmark
+    public XmlWriter writerFirstDocument() throws SAXException {
+        return writeDocument(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Writes a first document using an XmlStreamEmitter, which does not load any SAX classes.
+     *
+     * @return The emitter, so that the work is not optimized away
+     * @throws IOException If there is a problem writing the document.
+     */
+    @Benchmark
+    public XmlStreamEmitter emitterFirstDocument() throws IOException {
+        return emitDocument(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Writes a first document to the standard output. Used to measure the startup time of a native executable.
+     *
+     * @param args Specify "emitter" to write the document using an XmlStreamEmitter. Otherwise, the document is
+     *      written using an XmlWriter.
+     * @throws IOException If there is a problem writing the document.
+     * @throws SAXException If there is a problem writing the document.
+     */
+    public static void main(final String[] args) throws IOException, SAXException {
+        if (args.length > 0 && "emitter".equals(args[0])) {
+            emitDocument(System.out);
+        } else {
+            writeDocument(System.out);
+        }
+    }
+
+    private static XmlWriter writeDocument(final OutputStream out) throws SAXException {
+        final XmlWriter writer = new XmlWriter(out);
+        writer.setPrettyPrint(true);
+        writer.startDocument();
+        writer.startElement("urn:config", "config", "c:config");
+        writer.addAttribute("version", "1");
+        writer.startElement("urn:config", "entry", "c:entry");
+        writer.addAttribute("name", "greeting");
+        writer.characters("Hello & welcome");
+        writer.endElement();
+        writer.endElement();
+        writer.endDocument();
+        return writer;
+    }
+
+    private static XmlStreamEmitter emitDocument(final OutputStream out) throws IOException {
+        final XmlStreamEmitter emitter = new XmlStreamEmitter(out);
+        emitter.setPrettyPrint(true);
+        emitter.startDocument(null, true, false);
+        emitter.startElement("urn:config", "config", "c:config");
+        emitter.addAttribute("version", "1");
+        emitter.startElement("urn:config", "entry", "c:entry");
+        emitter.addAttribute("name", "greeting");
+        emitter.characters("Hello & welcome");
+        emitter.endElement();
+        emitter.endElement();
+        emitter.endDocument();
+        return emitter;
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright 2026 C Thing Software
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+/**
+ * Writes XML as a SAX filter using the emitter provided by the {@code org.cthing.xmlwriter.core} module.
+ */
+module org.cthing.xmlwriter {
+    requires transitive java.xml;
+    requires transitive org.cthing.xmlwriter.core;
+    requires static transitive org.jspecify;
+
+    exports org.cthing.xmlwriter;
+}
@@ -5,36 +5,35 @@
 package org.cthing.xmlwriter;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import javax.xml.XMLConstants;
 
-import org.cthing.annotations.AccessForTesting;
-import org.cthing.escapers.XmlEscaper;
+import org.cthing.xmlwriter.core.AsyncSink;
+import org.cthing.xmlwriter.core.ChannelSink;
+import org.cthing.xmlwriter.core.DeflateSink;
+import org.cthing.xmlwriter.core.FlushPolicy;
+import org.cthing.xmlwriter.core.MappedFileSink;
+import org.cthing.xmlwriter.core.MemorySink;
+import org.cthing.xmlwriter.core.ParallelGzipSink;
+import org.cthing.xmlwriter.core.SegmentSink;
+import org.cthing.xmlwriter.core.XmlName;
+import org.cthing.xmlwriter.core.XmlStreamEmitter;
 import org.jspecify.annotations.Nullable;
 import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.ext.Attributes2;
-import org.xml.sax.ext.Attributes2Impl;
 import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.AttributesImpl;
-import org.xml.sax.helpers.NamespaceSupport;
 import org.xml.sax.helpers.XMLFilterImpl;
 
 
@@ -282,6 +281,41 @@ import org.xml.sax.helpers.XMLFilterImpl;
  * attribute has been explicitly specified. SAX2 extensions are supported when the
  * {@code http://xml.org/sax/features/use-attributes2} flag is {@code true}.</p>
  *
+ * <h2>Output Buffering</h2>
+ *
+ * <p>The XmlWriter stages its output in an internal buffer and passes it to the output destination in bulk. This
+ * means that it is not necessary to wrap the destination in a {@link java.io.BufferedWriter BufferedWriter}. Output
+ * is passed to the destination when the buffer fills, and when the {@link #flush() flush} or
+ * {@link #endDocument() endDocument} methods are called. The size of the buffer can be changed using the
+ * {@link #setBufferSize(int) setBufferSize} method. To flush the output automatically (e.g. after each child of the
+ * root element), set a {@link FlushPolicy} using the {@link #setFlushPolicy(FlushPolicy) setFlushPolicy}
+ * method.</p>
+ *
+ * <p>In addition to {@link Writer} and {@link OutputStream} destinations, the XmlWriter can write directly to
+ * specialized output destinations. Pass the destination to the {@link #XmlWriter(Writer) constructor} or the
+ * {@link #setOutput(Writer) setOutput} method. The following destinations are available:</p>
+ * <ul>
+ *     <li>{@link MappedFileSink} - Writes directly into memory mapped regions of a file</li>
+ *     <li>{@link AsyncSink} - Writes to a destination on a background thread so that generating the XML does not
+ *         block on I/O</li>
+ *     <li>{@link ChannelSink} - Holds output for a non-blocking channel, which the application drains as the
+ *         channel becomes writable</li>
+ *     <li>{@link SegmentSink} - Collects output in pooled direct byte buffers for gathering writes</li>
+ *     <li>{@link MemorySink} - Collects output in memory (see {@link #toMemory()})</li>
+ *     <li>{@link DeflateSink} - Writes gzip, zlib or raw deflate compressed output to a stream</li>
+ *     <li>{@link ParallelGzipSink} - Writes gzip compressed output to a stream, compressing blocks of the output
+ *         on multiple threads</li>
+ * </ul>
+ *
+ * <h2>Standalone Emitter</h2>
+ *
+ * <p>The XmlWriter is a SAX adapter over an {@link XmlStreamEmitter}, which performs all formatting, namespace
+ * management and output. The XmlWriter forwards each SAX event to the next filter in the chain and reports output
+ * errors as SAX exceptions. Applications that only write XML, and never use the XmlWriter in a filter chain, can use
+ * the XmlStreamEmitter directly. The emitter does not depend on SAX and reports output errors as
+ * {@link IOException}s. The emitter and the output destinations are provided by the xmlwriter-core module, which
+ * does not require the {@code java.xml} module, while the XmlWriter is provided by the xmlwriter-sax module.</p>
+ *
  * <h2>Acknowledgments</h2>
  *
  * <p>The ability to use an XML writer in a SAX filter stream was demonstrated by
@@ -313,119 +347,32 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
 
 
     /**
-     * Represents the state of the writer.
-     */
-    private enum State {
-        BEFORE_DOC_STATE,
-        BEFORE_ROOT_STATE,
-        IN_START_TAG_STATE,
-        IN_CDATA_STATE,
-        IN_DTD_STATE,
-        AFTER_TAG_STATE,
-        AFTER_DATA_STATE,
-        AFTER_ROOT_STATE,
-        AFTER_DOC_STATE
-    }
-
-
-    /**
-     * Represents a state transition event.
+     * Name of the system property that, when set to "true", forces full validation of the writer's events even when
+     * unchecked mode has been requested using {@link #setUnchecked(boolean) setUnchecked}. Set the property when
+     * running test suites so that misuse of the writer is caught while production code uses the unchecked mode.
      */
-    private enum Event {
-        ATTRIBUTE_EVENT,
-        INLINE_REF_EVENT,
-        BLOCK_REF_EVENT,
-        CHARACTERS_EVENT,
-        COMMENT_EVENT,
-        END_CDATA_EVENT,
-        END_DOCUMENT_EVENT,
-        END_DTD_EVENT,
-        END_ELEMENT_EVENT,
-        NEWLINE_EVENT,
-        PI_EVENT,
-        START_CDATA_EVENT,
-        START_DOCUMENT_EVENT,
-        START_DTD_EVENT,
-        START_ELEMENT_EVENT
-    }
-
+    public static final String FORCE_CHECKED_PROPERTY = XmlStreamEmitter.FORCE_CHECKED_PROPERTY;
 
-    private static final String DEFAULT_XML_VERSION = "1.0";
-    private static final String EMPTY_STR = "";
     private static final String CDATA = "CDATA";
-    private static final String DEF_INDENT = "    ";
-    private static final String DEF_OFFSET = "";
-    private static final String SYNTH_NS_PREFIX = "__NS";
     private static final AttributesImpl EMPTY_ATTRS = new AttributesImpl();
 
-    /** All output is written to this writer. */
-    private Writer out;
-
-    /** Should output be formatted. */
-    private boolean prettyPrint;
-
-    /** Options controlling the escaping behavior. */
-    private final Set<XmlEscaper.Option> escapeOptions;
-
-    /** Indent string. */
-    private String indentStr;
-
-    /** Indent offset string. */
-    private String offsetStr;
+    /** Writes the XML. */
+    private final XmlStreamEmitter emitter;
 
-    /** Has an offset string been specified. */
-    private boolean haveOffsetStr;
-
-    /** Turn &lt;foo&gt;&lt;/foo&gt; into &lt;foo/&gt;. */
-    private boolean minimize;
-
-    /** Write one attribute per line. */
-    private boolean attrPerLine;
+    /** Write attributes as soon as they are added when there is no downstream content handler. */
+    private boolean streamAttributes;
 
     /** Whether to write defaulted attributes. */
     private boolean specifiedAttr;
 
-    /** Version of XML being used. The default is 1.0. */
-    private String xmlVersion;
-
     /** Standalone value when used as filter. */
     private boolean standalone;
 
-    /** Current processing state. */
-    private State currentState;
-
-    /** Stack of open elements. */
-    private final ElementStack elementStack;
-
-    /** Namespace management. */
-    private final NamespaceSupport nsSupport;
-
-    /** Used in creating a namespace prefix. */
-    private int nsPrefixCounter;
-
-    /** Maps namespace URI to a prefix. */
-    private final Map<String, String> nsPrefixMap;
-
-    /** Prefix to namespace URI mapping. */
-    private final Map<String, String> nsDeclMap;
-
-    /** Sets of namespace URIs to declare on the root element. */
-    private final Set<String> nsRootDeclSet;
-
 
     /**
      * Represents an XML entity.
      */
-    public static class Entity {
-        private final String name;
-        @Nullable
-        private final String value;
-        @Nullable
-        private final String publicId;
-        @Nullable
-        private final String systemId;
-        @Nullable
-        private final String notationName;
+    public static class Entity extends XmlStreamEmitter.Entity {
 
         /**
          * Defines an internal general entity. A collection of instances of this class can be passed to the
@@ -436,11 +383,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
          * @param entValue Specifies the value for the entity
          */
         public Entity(final String entName, final String entValue) {
-            this.name = entName;
-            this.value = entValue;
-            this.publicId = null;
-            this.systemId = null;
-            this.notationName = null;
+            super(entName, entValue);
         }
 
         /**
@@ -453,60 +396,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
          */
         public Entity(final String entName, @Nullable final String entPublicId, final String entSystemId,
                       @Nullable final String entNotationName) {
-            this.name = entName;
-            this.value = null;
-            this.publicId = entPublicId;
-            this.systemId = entSystemId;
-            this.notationName = entNotationName;
-        }
-
-        /**
-         * Provides the name for the entity.
-         *
-         * @return Returns the entity name.
-         */
-        public String getName() {
-            return this.name;
-        }
-
-        /**
-         * Provides the name of the notation, if any.
-         *
-         * @return Returns the notationName.
-         */
-        @Nullable
-        public String getNotationName() {
-            return this.notationName;
-        }
-
-        /**
-         * Provides the public identifier.
-         *
-         * @return Returns the public identifier.
-         */
-        @Nullable
-        public String getPublicId() {
-            return this.publicId;
-        }
-
-        /**
-         * Provides the system identifier.
-         *
-         * @return Returns the system identifier.
-         */
-        @Nullable
-        public String getSystemId() {
-            return this.systemId;
-        }
-
-        /**
-         * Provides the entity value.
-         *
-         * @return Returns the entity value.
-         */
-        @Nullable
-        public String getValue() {
-            return this.value;
+            super(entName, entPublicId, entSystemId, entNotationName);
         }
     }
 
@@ -528,7 +418,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * Creates an XML writer that writes to the standard output.
      */
     public XmlWriter() {
-        this(null, null);
+        this(new XmlStreamEmitter(), null);
     }
 
     /**
@@ -537,7 +427,19 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param writer Output destination or {@code null} to use the standard output. The writer will not be closed.
      */
     public XmlWriter(@Nullable final Writer writer) {
-        this(null, writer);
+        this(new XmlStreamEmitter(writer), null);
+    }
+
+    /**
+     * Creates an XML writer that writes UTF-8 encoded output to the specified stream. Characters are encoded
+     * directly into an internal byte buffer as they are escaped, which avoids the overhead of an
+     * {@link java.io.OutputStreamWriter OutputStreamWriter}. Output is not guaranteed to reach the stream until
+     * {@link #flush() flush} or {@link #endDocument() endDocument} is called.
+     *
+     * @param stream Output destination. The stream will not be closed.
+     */
+    public XmlWriter(final OutputStream stream) {
+        this(new XmlStreamEmitter(stream), null);
     }
 
     /**
@@ -558,26 +460,22 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param writer Output destination of {@code null} to use the standard output. The writer will not be closed.
      */
     public XmlWriter(@Nullable final XMLReader reader, @Nullable final Writer writer) {
+        this(new XmlStreamEmitter(writer), reader);
+    }
+
+    /**
+     * Creates an XML writer that adapts the specified emitter.
+     *
+     * @param emitter Emitter that writes the XML
+     * @param reader Parent in the filter chain or {@code null} if there is no chain
+     */
+    private XmlWriter(final XmlStreamEmitter emitter, @Nullable final XMLReader reader) {
         super(reader);
 
-        this.elementStack = new ElementStack();
-        this.nsSupport = new NamespaceSupport();
-        this.nsPrefixMap = new HashMap<>();
-        this.nsDeclMap = new HashMap<>();
-        this.nsRootDeclSet = new HashSet<>();
-        this.prettyPrint = false;
-        this.escapeOptions = EnumSet.noneOf(XmlEscaper.Option.class);
-        this.minimize = true;
-        this.indentStr = DEF_INDENT;
-        this.offsetStr = DEF_OFFSET;
-        //noinspection ConstantConditions
-        this.haveOffsetStr = DEF_OFFSET.isEmpty();
-        this.attrPerLine = false;
+        this.emitter = emitter;
+        this.streamAttributes = false;
         this.specifiedAttr = true;
-        this.xmlVersion = DEFAULT_XML_VERSION;
         this.standalone = true;
-        this.currentState = State.BEFORE_DOC_STATE;
-        this.out = setOutput(writer);
     }
 
     /**
@@ -585,17 +483,14 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * the reset method must be called before the XmlWriter can be reused for output.
      */
     public final void reset() {
-        this.elementStack.clear();
-        this.nsSupport.reset();
-        this.nsPrefixCounter = 0;
-        this.currentState = State.BEFORE_DOC_STATE;
+        this.emitter.reset();
     }
 
     /**
      * Flushes the output. This method is especially useful for ensuring that the entire document has been output
      * without having to close the writer.
      *
-     * <p>This method is invoked automatically by the {@link #endDocument endDocument} method.
+     * <p>The output is flushed automatically by the {@link #endDocument endDocument} method.
      *
      * @throws SAXException If a problem occurred while flushing the writer an IOException wrapped in a SAXException
      *         is thrown.
@@ -603,31 +498,115 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     public void flush() throws SAXException {
         try {
-            this.out.flush();
+            this.emitter.flush();
         } catch (final IOException ex) {
             throw new SAXException(ex);
         }
     }
 
     /**
-     * Sets a new output destination for the writer.
+     * Sets a new output destination for the writer. Output is staged in an internal buffer and is not guaranteed
+     * to reach the writer until {@link #flush() flush} or {@link #endDocument() endDocument} is called. Output
+     * that has been buffered for the previous destination, but not yet flushed, is discarded.
      *
      * @param writer New output writer to set. If the value of this parameter is {@code null}, the standard
      *         output is used. The writer will not be closed.
      * @return The newly set writer.
      */
     public final Writer setOutput(@Nullable final Writer writer) {
-        this.out = (writer == null) ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8) : writer;
-        return this.out;
+        return this.emitter.setOutput(writer);
+    }
+
+    /**
+     * Sets a new output destination for the writer. The output is encoded as UTF-8 directly into an internal byte
+     * buffer as it is escaped. Output is not guaranteed to reach the stream until {@link #flush() flush} or
+     * {@link #endDocument() endDocument} is called. Output that has been buffered for the previous destination,
+     * but not yet flushed, is discarded.
+     *
+     * @param stream New output stream to set. The stream will not be closed.
+     * @return The writer that encodes the output to the stream.
+     */
+    public final Writer setOutput(final OutputStream stream) {
+        return this.emitter.setOutput(stream);
+    }
+
+    /**
+     * Directs the output to a new {@link MemorySink}. The output is encoded as UTF-8 and collected in memory
+     * without synchronization, and can be obtained from the returned sink once {@link #endDocument() endDocument}
+     * has been called. The sink is cleared when the XmlWriter is {@link #reset() reset}, so the same sink can be
+     * used for each document written with the XmlWriter.
+     *
+     * @return Sink collecting the output.
+     */
+    public final MemorySink toMemory() {
+        return this.emitter.toMemory();
     }
 
     /**
-     * Returns the output destination.
+     * Returns the output destination. Because output is buffered by the XmlWriter, call {@link #flush() flush}
+     * before writing directly to the destination.
      *
      * @return Output destination for the writer.
      */
     public Writer getOutput() {
-        return this.out;
+        return this.emitter.getOutput();
+    }
+
+    /**
+     * Sets the size of the buffer used to stage output before it is passed to the output destination. Output is
+     * passed to the destination when the buffer fills, and when {@link #flush() flush} or
+     * {@link #endDocument() endDocument} is called. The size is in characters for a {@link Writer} destination
+     * and in bytes for an {@link OutputStream} destination. The default size is 8192. Output that is already
+     * buffered is retained.
+     *
+     * @param size Size of the output buffer. Must be at least 4.
+     */
+    public void setBufferSize(final int size) {
+        this.emitter.setBufferSize(size);
+    }
+
+    /**
+     * Provides the size of the buffer used to stage output before it is passed to the output destination.
+     *
+     * @return Size of the output buffer.
+     */
+    public int getBufferSize() {
+        return this.emitter.getBufferSize();
+    }
+
+    /**
+     * Sets the policy that determines when the output is flushed automatically. The policy is consulted after each
+     * element is closed and after each block of character data is written. By default, there is no flush policy
+     * and the output is only flushed when {@link #flush() flush} or {@link #endDocument() endDocument} is called.
+     *
+     * @param policy Policy that determines when to flush the output, or {@code null} to only flush the output
+     *      when requested
+     */
+    public void setFlushPolicy(@Nullable final FlushPolicy policy) {
+        this.emitter.setFlushPolicy(policy);
+    }
+
+    /**
+     * Provides the policy that determines when the output is flushed automatically.
+     *
+     * @return Policy that determines when to flush the output, or {@code null} if the output is only flushed when
+     *      requested.
+     */
+    @Nullable
+    public FlushPolicy getFlushPolicy() {
+        return this.emitter.getFlushPolicy();
+    }
+
+    /**
+     * Indicates whether the output destination is holding more output than it can currently accept. The SAX event
+     * methods cannot return a value, so applications that write to a destination with limited capacity, such as
+     * a {@link ChannelSink}, should call this method after generating events and pause until the destination
+     * has been drained. Destinations that write their output immediately never report backpressure.
+     *
+     * @return {@code true} if the generation of output should be paused.
+     */
+    public boolean isBackpressured() {
+        return this.emitter.isBackpressured();
     }
 
     /**
@@ -655,7 +634,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #addNSRootDecl(String, String)
      */
     public XmlWriter addNSPrefix(final String prefix, final String uri) {
-        this.nsPrefixMap.put(uri, prefix);
+        this.emitter.addNSPrefix(prefix, uri);
         return this;
     }
 
@@ -674,7 +653,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #addNSPrefix(String, String)
      */
     public XmlWriter addNSRootDecl(final String uri) {
-        this.nsRootDeclSet.add(uri);
+        this.emitter.addNSRootDecl(uri);
         return this;
     }
 
@@ -696,8 +675,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #addNSPrefix(String, String)
      */
     public XmlWriter addNSRootDecl(final String prefix, final String uri) {
-        addNSPrefix(prefix, uri);
-        addNSRootDecl(uri);
+        this.emitter.addNSRootDecl(prefix, uri);
         return this;
     }
 
@@ -709,7 +687,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param enable {@code true} to enable automatic output formatting.
      */
     public void setPrettyPrint(final boolean enable) {
-        this.prettyPrint = enable;
+        this.emitter.setPrettyPrint(enable);
     }
 
     /**
@@ -718,7 +696,79 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return Whether automatic output formatting is enabled or disabled.
      */
     public boolean getPrettyPrint() {
-        return this.prettyPrint;
+        return this.emitter.getPrettyPrint();
+    }
+
+    /**
+     * Enables or disables stream mode. Stream mode is intended for long-lived documents whose root element remains
+     * open while a series of independent records are written as its children (e.g. an XMPP stream). In stream mode,
+     * the root start tag is written and the output flushed as soon as the root element is started. Each child of the
+     * root element is flushed as soon as it is closed, as is character data written directly within the root
+     * element. Because the root start tag is written immediately, all attributes of the root element must be
+     * specified when it is started. Stream mode is disabled by default.
+     *
+     * @param enable {@code true} to enable stream mode
+     */
+    public void setStreamMode(final boolean enable) {
+        this.emitter.setStreamMode(enable);
+    }
+
+    /**
+     * Indicates whether stream mode is enabled.
+     *
+     * @return Whether stream mode is enabled or disabled.
+     */
+    public boolean getStreamMode() {
+        return this.emitter.getStreamMode();
+    }
+
+    /**
+     * Enables or disables streaming attributes. Normally, the attributes of an element are held until the start tag
+     * is complete. When streaming attributes are enabled and there is no downstream content handler (i.e. the
+     * XmlWriter is used standalone), each attribute is written to the output as soon as it is added, and only its
+     * name is retained to detect duplicates. This allows elements with very large numbers of attributes to be
+     * written without holding their values. When streaming attributes, adding a duplicate attribute or replacing
+     * the attributes using {@link #setAttributes(Attributes) setAttributes} throws an exception. Streaming
+     * attributes are disabled by default.
+     *
+     * @param enable {@code true} to write attributes as soon as they are added
+     */
+    public void setStreamAttributes(final boolean enable) {
+        this.streamAttributes = enable;
+    }
+
+    /**
+     * Indicates whether streaming attributes are enabled.
+     *
+     * @return Whether attributes are written as soon as they are added.
+     */
+    public boolean getStreamAttributes() {
+        return this.streamAttributes;
+    }
+
+    /**
+     * Enables or disables unchecked mode. Normally, every event is validated against the writer's state and an
+     * exception is thrown for an event that is not allowed (e.g. adding an attribute after character data). In
+     * unchecked mode, the writer only tracks the state it needs to format the output, and does not check that
+     * events are allowed or that streamed attributes are unique. Use unchecked mode only when the sequence of events
+     * is known to be well-formed, such as in generated code. The output for an event sequence that is not allowed
+     * is undefined. Unchecked mode is disabled by default, and cannot be enabled if the
+     * {@link #FORCE_CHECKED_PROPERTY} system property is set to "true".
+     *
+     * @param enable {@code true} to skip validation of the writer's events
+     */
+    public void setUnchecked(final boolean enable) {
+        this.emitter.setUnchecked(enable);
+    }
+
+    /**
+     * Indicates whether unchecked mode is in effect.
+     *
+     * @return Whether validation of the writer's events is skipped. Returns {@code false} if unchecked mode was
+     *         requested but validation is forced by the {@link #FORCE_CHECKED_PROPERTY} system property.
+     */
+    public boolean getUnchecked() {
+        return this.emitter.getUnchecked();
     }
 
     /**
@@ -729,11 +779,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param enable {@code true} to escape characters outside the ASCII range using numerical entity references
      */
     public void setEscapeNonAscii(final boolean enable) {
-        if (enable) {
-            this.escapeOptions.add(XmlEscaper.Option.ESCAPE_NON_ASCII);
-        } else {
-            this.escapeOptions.remove(XmlEscaper.Option.ESCAPE_NON_ASCII);
-        }
+        this.emitter.setEscapeNonAscii(enable);
     }
 
     /**
@@ -742,7 +788,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return {@code true} if characters outside the ASCII range are being escaped.
      */
     public boolean getEscapeNonAscii() {
-        return this.escapeOptions.contains(XmlEscaper.Option.ESCAPE_NON_ASCII);
+        return this.emitter.getEscapeNonAscii();
     }
 
     /**
@@ -752,11 +798,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param enable {@code true} to use decimal rather than hexadecimal for numerical character entities
      */
     public void setUseDecimal(final boolean enable) {
-        if (enable) {
-            this.escapeOptions.add(XmlEscaper.Option.USE_DECIMAL);
-        } else {
-            this.escapeOptions.remove(XmlEscaper.Option.USE_DECIMAL);
-        }
+        this.emitter.setUseDecimal(enable);
     }
 
     /**
@@ -765,7 +807,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return {@code true} if decimal is being used for numerical character entities.
      */
     public boolean getUseDecimal() {
-        return this.escapeOptions.contains(XmlEscaper.Option.USE_DECIMAL);
+        return this.emitter.getUseDecimal();
     }
 
     /**
@@ -778,7 +820,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #setPrettyPrint(boolean)
      */
     public void setIndentString(@Nullable final String indent) {
-        this.indentStr = (indent == null) ? "" : indent;
+        this.emitter.setIndentString(indent);
     }
 
     /**
@@ -797,9 +839,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #setPrettyPrint(boolean)
      */
     public void setIndentString(@Nullable final String offset, @Nullable final String indent) {
-        this.offsetStr = (offset == null) ? DEF_OFFSET : offset;
-        this.haveOffsetStr = !this.offsetStr.isEmpty();
-        setIndentString(indent);
+        this.emitter.setIndentString(offset, indent);
     }
 
     /**
@@ -808,7 +848,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return The string used for indenting when automatic formatting is enabled.
      */
     public String getIndentString() {
-        return this.indentStr;
+        return this.emitter.getIndentString();
     }
 
     /**
@@ -817,7 +857,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return The string used to offset a line when automatic formatting is enabled.
      */
     public String getOffsetString() {
-        return this.offsetStr;
+        return this.emitter.getOffsetString();
     }
 
     /**
@@ -829,7 +869,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      *         empty tag.
      */
     public void setMinimizeEmpty(final boolean minimizeEmpty) {
-        this.minimize = minimizeEmpty;
+        this.emitter.setMinimizeEmpty(minimizeEmpty);
     }
 
     /**
@@ -838,7 +878,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return Indicates whether a start tag followed immediately by an end tag is consolidated into a single empty tag.
      */
     public boolean getMinimizeEmpty() {
-        return this.minimize;
+        return this.emitter.getMinimizeEmpty();
     }
 
     /**
@@ -848,7 +888,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param separateLine {@code true} if attributes should each be placed on a separate line.
      */
     public void setAttrPerLine(final boolean separateLine) {
-        this.attrPerLine = separateLine;
+        this.emitter.setAttrPerLine(separateLine);
     }
 
     /**
@@ -857,7 +897,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return Indicates whether attributes are written all on one line or each on a separate line.
      */
     public boolean getAttrPerLine() {
-        return this.attrPerLine;
+        return this.emitter.getAttrPerLine();
     }
 
     /**
@@ -889,7 +929,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @return Version of XML used by the document. The default is 1.0.
      */
     public String getXmlVersion() {
-        return this.xmlVersion;
+        return this.emitter.getXmlVersion();
     }
 
     /**
@@ -898,7 +938,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @param xmlVersion  Version of XML used by the document.
      */
     public void setXmlVersion(final String xmlVersion) {
-        this.xmlVersion = xmlVersion;
+        this.emitter.setXmlVersion(xmlVersion);
     }
 
     /**
@@ -932,7 +972,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      *
      * @throws SAXException If there is a problem writing the XML header.
      * @see org.xml.sax.ContentHandler#startDocument()
-=     * @see #startDocument(String, boolean, boolean)
+     * @see #startDocument(String, boolean, boolean)
      * @see #setStandalone(boolean)
      * @see #setXmlVersion(String)
      */
@@ -959,21 +999,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     public XmlWriter startDocument(@Nullable final String encoding, final boolean sa, final boolean isFragment)
             throws SAXException {
-        handleEvent(Event.START_DOCUMENT_EVENT);
-
-        if (!isFragment) {
-            writeRaw("<?xml version=");
-            writeQuoted(this.xmlVersion);
-            if (encoding != null) {
-                writeRaw(" encoding=");
-                writeQuoted(encoding);
-            }
-            writeRaw(" standalone=");
-            writeQuoted(sa ? "yes" : "no");
-            writeRaw("?>");
-            writeNewline();
+        try {
+            this.emitter.startDocument(encoding, sa, isFragment);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
-
         return this;
     }
 
@@ -988,10 +1018,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void endDocument() throws SAXException {
-        handleEvent(Event.END_DOCUMENT_EVENT);
-
-        writeNewline();
-        flush();
+        try {
+            this.emitter.endDocument();
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
 
         super.endDocument();
     }
@@ -1028,27 +1059,20 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
     public XmlWriter doctype(final String name, @Nullable final String publicId, final String systemId,
                              @Nullable final Collection<Entity> entities,
                              @Nullable final Collection<Notation> notations) throws SAXException {
-        startDTD(name, publicId, systemId);
-        if ((entities != null && !entities.isEmpty()) || (notations != null && !notations.isEmpty())) {
-            writeRaw(" [");
-            if (entities != null) {
-                for (final Entity entity : entities) {
-                    writeNewline();
-                    writeRaw(this.offsetStr + this.indentStr);
-                    writeEntityDecl(entity);
-                }
-            }
-            if (notations != null) {
-                for (final Notation notation : notations) {
-                    writeNewline();
-                    writeRaw(this.offsetStr + this.indentStr);
-                    writeNotationDecl(notation);
-                }
+        List<XmlStreamEmitter.Notation> emitterNotations = null;
+        if (notations != null) {
+            emitterNotations = new ArrayList<>(notations.size());
+            for (final Notation notation : notations) {
+                emitterNotations.add(new XmlStreamEmitter.Notation(notation.name(), notation.publicId(),
+                                                                   notation.systemId()));
             }
-            writeNewline();
-            writeRaw(']');
         }
-        endDTD();
+
+        try {
+            this.emitter.doctype(name, publicId, systemId, entities, emitterNotations);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
         return this;
     }
 
@@ -1063,17 +1087,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
     @Override
     public void startDTD(final String name, @Nullable final String publicId,
                          final String systemId) throws SAXException {
-        handleEvent(Event.START_DTD_EVENT);
-
-        writeRaw("<!DOCTYPE ");
-        writeRaw(name);
-
-        if (publicId != null) {
-            writeRaw(" PUBLIC \"" + publicId + '"');
-        } else {
-            writeRaw(" SYSTEM");
+        try {
+            this.emitter.startDTD(name, publicId, systemId);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
-        writeRaw(" \"" + systemId + '"');
     }
 
     /**
@@ -1083,11 +1101,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void endDTD() throws SAXException {
-        handleEvent(Event.END_DTD_EVENT);
-
-        writeRaw('>');
-        writeNewline();
-        writeNewline();
+        try {
+            this.emitter.endDTD();
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
     }
 
     /**
@@ -1129,18 +1147,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
     @Override
     public void startElement(final String uri, final String localName, final String qName, final Attributes attrs)
             throws SAXException {
-        final State previousState = handleEvent(Event.START_ELEMENT_EVENT);
-
-        this.nsSupport.pushContext();
-
-        this.elementStack.push(uri, localName, qName, attrs,
-                               false, previousState);
-
-        if (getElementLevel() == 1) {
-            setNSRootDecls();
-        }
-
-        super.startElement(uri, localName, qName, attrs);
+        pushElement(uri, localName, qName, null, attrs, false);
     }
 
     /**
@@ -1246,6 +1253,38 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
         return this;
     }
 
+    /**
+     * Start a new element using a precompiled name. Attributes for the element can be specified using this method or
+     * the {@link #setAttributes(Attributes) setAttributes} method. The set of attributes can be augmented using the
+     * {@link #addAttributes(Attributes) addAttributes} method or one of the
+     * {@link #addAttribute(XmlName, String) addAttribute} methods. The namespace prefix resolved for the name is
+     * cached by the name and reused while the namespace declarations in effect are unchanged. Each call to
+     * startElement requires a corresponding call to {@link #endElement() endElement}.
+     *
+     * @param name The element's name
+     * @param attrs An initial set of attributes for the element.
+     * @return This class instance
+     * @throws SAXException If there is an error writing the start tag, or if a handler further down the filter chain
+     *         raises an exception.
+     */
+    public XmlWriter startElement(final XmlName name, final Attributes attrs) throws SAXException {
+        pushElement(name.getUri(), name.getLocalName(), name.getQName(), name, attrs, false);
+        return this;
+    }
+
+    /**
+     * Start a new element using a precompiled name. This method invokes
+     * {@link #startElement(XmlName, Attributes) startElement} with an empty set of attributes.
+     *
+     * @param name The element's name
+     * @return This class instance
+     * @throws SAXException If there is an error writing the start tag, or if a handler further down the filter chain
+     *         raises an exception.
+     */
+    public XmlWriter startElement(final XmlName name) throws SAXException {
+        return startElement(name, EMPTY_ATTRS);
+    }
+
     /**
      * This form of the endElement method is called when the XmlWriter is part of a SAX filter chain. Typically,
      * standalone applications of the XmlWriter will call the empty parameter version of the {@link #endElement()
@@ -1264,7 +1303,12 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void endElement(final String uri, final String localName, final String qName) throws SAXException {
-        handleEvent(Event.END_ELEMENT_EVENT);
+        try {
+            this.emitter.endElement();
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
+
         super.endElement(uri, localName, qName);
     }
 
@@ -1278,7 +1322,16 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      *         raises an exception.
      */
     public void endElement() throws SAXException {
-        handleEvent(Event.END_ELEMENT_EVENT);
+        if (getContentHandler() == null || this.emitter.getElementLevel() == 0) {
+            try {
+                this.emitter.endElement();
+            } catch (final IOException | IllegalStateException ex) {
+                throw new SAXException(ex);
+            }
+        } else {
+            endElement(this.emitter.getElementURI(), this.emitter.getElementLocalName(),
+                       this.emitter.getElementQName());
+        }
     }
 
     /**
@@ -1300,18 +1353,7 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     public XmlWriter emptyElement(final String uri, final String localName, final String qName, final Attributes attrs)
             throws SAXException {
-        final State previousState = handleEvent(Event.START_ELEMENT_EVENT);
-
-        this.nsSupport.pushContext();
-
-        this.elementStack.push(uri, localName, qName, attrs,
-                               true, previousState);
-
-        if (getElementLevel() == 1) {
-            setNSRootDecls();
-        }
-
-        super.startElement(uri, localName, qName, attrs);
+        pushElement(uri, localName, qName, null, attrs, true);
         return this;
     }
 
@@ -1417,6 +1459,38 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
         return emptyElement(XMLConstants.NULL_NS_URI, localName, "", EMPTY_ATTRS);
     }
 
+    /**
+     * Create an empty element using a precompiled name. Attributes for the element can be specified using this
+     * method or the {@link #setAttributes(Attributes) setAttributes} method. The set of attributes can be augmented
+     * using the {@link #addAttributes(Attributes) addAttributes} method or one of the
+     * {@link #addAttribute(XmlName, String) addAttribute} methods. <strong>Since empty elements do not have closing
+     * tags, do not call {@link #endElement() endElement} to close this element.</strong>
+     *
+     * @param name The element's name
+     * @param attrs An initial set of attributes for the element.
+     * @return This class instance
+     * @throws SAXException If there is an error writing the tag, or if a handler further down the filter chain
+     *         raises an exception.
+     */
+    public XmlWriter emptyElement(final XmlName name, final Attributes attrs) throws SAXException {
+        pushElement(name.getUri(), name.getLocalName(), name.getQName(), name, attrs, true);
+        return this;
+    }
+
+    /**
+     * Create an empty element using a precompiled name. This method invokes
+     * {@link #emptyElement(XmlName, Attributes) emptyElement} with an empty set of attributes. <strong>Since empty
+     * elements do not have closing tags, do not call {@link #endElement() endElement} to close this element.</strong>
+     *
+     * @param name The element's name
+     * @return This class instance
+     * @throws SAXException If there is an error writing the tag, or if a handler further down the filter chain
+     *         raises an exception.
+     */
+    public XmlWriter emptyElement(final XmlName name) throws SAXException {
+        return emptyElement(name, EMPTY_ATTRS);
+    }
+
     /**
      * Replaces the attributes already set on the current start tag with the specified attributes.
      *
@@ -1427,9 +1501,12 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #addAttributes(Attributes)
      */
     public XmlWriter setAttributes(final Attributes attrs) throws SAXException {
-        handleEvent(Event.ATTRIBUTE_EVENT);
-
-        topElement().attrs.setAttributes(attrs);
+        try {
+            this.emitter.clearAttributes();
+            addEmitterAttributes(attrs);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
         return this;
     }
 
@@ -1443,15 +1520,10 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @see #setAttributes(Attributes)
      */
     public XmlWriter addAttributes(final Attributes attrs) throws SAXException {
-        handleEvent(Event.ATTRIBUTE_EVENT);
-
-        final Element element = topElement();
-        final int len = attrs.getLength();
-
-        for (int i = 0; i < len; i++) {
-            element.attrs.addAttribute(attrs.getURI(i), attrs.getLocalName(i),
-                                       attrs.getQName(i), attrs.getType(i),
-                                       attrs.getValue(i));
+        try {
+            addEmitterAttributes(attrs);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
         return this;
     }
@@ -1486,9 +1558,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     public XmlWriter addAttribute(final String uri, final String localName, final String qName, final String type,
                                   final String value) throws SAXException {
-        handleEvent(Event.ATTRIBUTE_EVENT);
-
-        topElement().attrs.addAttribute(uri, localName, qName, type, value);
+        try {
+            this.emitter.addAttribute(uri, localName, qName, value);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
         return this;
     }
 
@@ -1637,6 +1711,40 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
         return addAttribute(XMLConstants.NULL_NS_URI, localName, "", CDATA, value.toString());
     }
 
+    /**
+     * Adds a CDATA attribute with a precompiled name to the current start tag. The namespace prefix resolved for the
+     * name is cached by the name and reused while the namespace declarations in effect are unchanged.
+     *
+     * @param name The attribute's name
+     * @param value The attribute's value
+     * @return This class instance
+     * @throws SAXException If there is an error writing the attribute, or if a handler further down the filter chain
+     *         raises an exception.
+     */
+    public XmlWriter addAttribute(final XmlName name, final String value) throws SAXException {
+        try {
+            this.emitter.addAttribute(name, value);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a CDATA attribute with a precompiled name to the current start tag. The value is converted to a string
+     * using its {@code toString} method.
+     *
+     * @param name The attribute's name
+     * @param value The attribute's value
+     * @return This class instance
+     * @throws SAXException If there is an error writing the attribute, or if a handler further down the filter chain
+     *         raises an exception.
+     * @see #addAttribute(XmlName, String)
+     */
+    public XmlWriter addAttribute(final XmlName name, final Object value) throws SAXException {
+        return addAttribute(name, value.toString());
+    }
+
     /**
      * Writes the specified character array as escaped XML data.
      *
@@ -1647,20 +1755,18 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void characters(final char[] carr, final int start, final int length) throws SAXException {
-        handleEvent(Event.CHARACTERS_EVENT);
-
-        if (this.currentState == State.IN_CDATA_STATE) {
-            writeRaw(carr, start, length);
-        } else {
-            writeEscaped(carr, start, length);
+        try {
+            this.emitter.characters(carr, start, length);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
 
         super.characters(carr, start, length);
     }
 
     /**
-     * Writes the specified string as escaped XML data. Invokes the {@link #characters(char[], int, int) characters}
-     * method.
+     * Writes the specified string as escaped XML data. If there is a handler further down the filter chain, invokes
+     * the {@link #characters(char[], int, int) characters} method so that the handler receives the characters.
      *
      * @param data String to write. If {@code null} is specified, nothing is written.
      * @return This class instance
@@ -1669,7 +1775,15 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     public XmlWriter characters(@Nullable final String data) throws SAXException {
         if (data != null) {
-            characters(data.toCharArray(), 0, data.length());
+            if (getContentHandler() == null) {
+                try {
+                    this.emitter.characters(data);
+                } catch (final IOException | IllegalStateException ex) {
+                    throw new SAXException(ex);
+                }
+            } else {
+                characters(data.toCharArray(), 0, data.length());
+            }
         }
         return this;
     }
@@ -1682,9 +1796,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @throws SAXException If there is a problem writing the data.
      */
     public XmlWriter data(final String data) throws SAXException {
-        handleEvent(Event.CHARACTERS_EVENT);
-
-        writeRaw(data);
+        try {
+            this.emitter.data(data);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
         return this;
     }
 
@@ -1695,9 +1811,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void startCDATA() throws SAXException {
-        handleEvent(Event.START_CDATA_EVENT);
-
-        writeRaw("<![CDATA[");
+        try {
+            this.emitter.startCDATA();
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
     }
 
     /**
@@ -1707,9 +1825,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void endCDATA() throws SAXException {
-        handleEvent(Event.END_CDATA_EVENT);
-
-        writeRaw("]]>");
+        try {
+            this.emitter.endCDATA();
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
     }
 
     /**
@@ -1737,9 +1857,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void ignorableWhitespace(final char[] carr, final int start, final int length) throws SAXException {
-        handleEvent(Event.CHARACTERS_EVENT);
-
-        writeEscaped(carr, start, length);
+        try {
+            this.emitter.characters(carr, start, length);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
 
         super.ignorableWhitespace(carr, start, length);
     }
@@ -1754,12 +1876,10 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void comment(final char[] carr, final int start, final int length) throws SAXException {
-        handleEvent(Event.COMMENT_EVENT);
-
-        if (this.currentState != State.IN_DTD_STATE) {
-            writeRaw("<!--");
-            writeRaw(carr, start, length);
-            writeRaw("-->");
+        try {
+            this.emitter.comment(carr, start, length);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
     }
 
@@ -1772,7 +1892,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @throws SAXException If there is a problem writing the comment.
      */
     public XmlWriter comment(final String info) throws SAXException {
-        comment(info.toCharArray(), 0, info.length());
+        try {
+            this.emitter.comment(info);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
         return this;
     }
 
@@ -1787,13 +1911,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      */
     @Override
     public void processingInstruction(final String target, final String data) throws SAXException {
-        handleEvent(Event.PI_EVENT);
-
-        writeRaw("<?");
-        writeRaw(target);
-        writeRaw(' ');
-        writeRaw(data);
-        writeRaw("?>");
+        try {
+            this.emitter.processingInstruction(target, data);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
 
         super.processingInstruction(target, data);
     }
@@ -1827,22 +1949,13 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @throws SAXException If there is a problem writing the entity reference.
      */
     public XmlWriter entityRef(final String entityName, final FormattingHint hint) throws SAXException {
-        handleEvent((hint == FormattingHint.INLINE) ? Event.INLINE_REF_EVENT : Event.BLOCK_REF_EVENT);
-
-        if (this.prettyPrint && hint == FormattingHint.BLOCK) {
-            writeNewline();
-            writeIndent(1);
-        }
-
-        writeRaw('&');
-        writeRaw(entityName);
-        writeRaw(';');
-
-        if (this.prettyPrint && hint == FormattingHint.BLOCK) {
-            writeNewline();
-            writeIndent(1);
+        try {
+            this.emitter.entityRef(entityName, (hint == FormattingHint.INLINE)
+                                               ? XmlStreamEmitter.FormattingHint.INLINE
+                                               : XmlStreamEmitter.FormattingHint.BLOCK);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
-
         return this;
     }
 
@@ -1855,12 +1968,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @throws SAXException If there is a problem writing the character reference.
      */
     public XmlWriter characterRef(final char ch) throws SAXException {
-        handleEvent(Event.INLINE_REF_EVENT);
-
-        writeRaw("&#");
-        writeRaw(Integer.toString(ch));
-        writeRaw(';');
-
+        try {
+            this.emitter.characterRef(ch);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
+        }
         return this;
     }
 
@@ -1872,13 +1984,11 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
      * @throws SAXException If there is a problem writing the newline.
      */
     public XmlWriter newline() throws SAXException {
-        handleEvent(Event.NEWLINE_EVENT);
-
-        writeNewline();
-        if (this.prettyPrint && this.currentState != State.IN_CDATA_STATE) {
-            writeIndent(1);
+        try {
+            this.emitter.newline();
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
-
         return this;
     }
 
@@ -1906,778 +2016,72 @@ public class XmlWriter extends XMLFilterImpl implements LexicalHandler {
         super.warning(e);
     }
 
-
-    /**
-     * Internal representation of an element.
-     *
-     * @param uri Namespace URI for the element
-     * @param localName Local name for the element
-     * @param qName Qualified name for the element
-     * @param attrs Element attributes
-     * @param isEmpty Indicates if the element can contain content
-     * @param containingState Writer state in which this element is being written
-     */
-    private record Element(String uri, String localName, String qName, Attributes2Impl attrs, boolean isEmpty,
-                           State containingState) {
-    }
-
-
-    /**
-     * A stack for elements. An unsynchronized collection is used as the basis to improve performance.
-     */
-    private static final class ElementStack {
-
-        /**
-         * Initial capacity of the stack.
-         */
-        private static final int INIT_CAP = 20;
-
-        private final Deque<Element> elements = new ArrayDeque<>(INIT_CAP);
-
-        private ElementStack() {
-        }
-
-        /**
-         * Returns the top element off of this stack without removing it.
-         *
-         * @return The top element on the stack
-         */
-        public Element peek() {
-            return this.elements.getLast();
-        }
-
-        /**
-         * Pops the top element off of this stack.
-         */
-        public void pop() {
-            this.elements.removeLast();
-        }
-
-        /**
-         * Pushes a new element onto the top of this stack. The pushed element is also returned. This is equivalent
-         * to calling {@code add}.
-         *
-         * @param namespaceUri Namespace URI or empty string
-         * @param name Local name for the element
-         * @param qualifiedName Qualified name for the element or empty string
-         * @param attributes Initial set of attributes. Can be an empty set
-         * @param empty Indicates if the element was created as an empty element
-         * @param state State in which element is started
-         */
-        public void push(final String namespaceUri, final String name, final String qualifiedName,
-                         final Attributes attributes, final boolean empty, final State state) {
-            final Attributes2Impl attrs = new Attributes2Impl(attributes);
-            final Element element = new Element(namespaceUri, name, qualifiedName, attrs, empty, state);
-            this.elements.add(element);
-        }
-
-        /**
-         * Provides the current depth of the stack.
-         *
-         * @return Depth of the stack.
-         */
-        public int depth() {
-            return this.elements.size();
-        }
-
-        /**
-         * Removes all elements from the stack.
-         */
-        public void clear() {
-            this.elements.clear();
-        }
-    }
-
-
     /**
-     * Heart of the XmlWriter state machine. Based on the current state and the specified event, an action is fired,
-     * if any, and the next state is set. If the event is illegal for the current state, a SAXException is thrown.
+     * Starts an element in the emitter and forwards the start of the element to the next handler in the filter
+     * chain. The end of an empty element is forwarded immediately. Attributes are streamed by the emitter only when
+     * there is no downstream content handler. In stream mode, the root start tag is written and the output flushed
+     * once the initial attributes of the root element have been added.
      *
-     * @param event The event to handle
-     * @return Previous state
-     * @throws SAXException If the event is illegal given the current state.
+     * @param uri The element's namespace URI
+     * @param localName The element's local name
+     * @param qName The element's qualified name
+     * @param name The element's precompiled name, or {@code null} if it does not have one
+     * @param attrs Initial set of attributes for the element
+     * @param isEmpty Indicates if the element is an empty element
+     * @throws SAXException If there is a problem writing the element, or if a handler further down the filter chain
+     *         raises an exception.
      */
-    private State handleEvent(final Event event) throws SAXException {
-        final State previousState = this.currentState;
-        boolean invalidEvent = false;
+    private void pushElement(final String uri, final String localName, final String qName,
+                             @Nullable final XmlName name, final Attributes attrs, final boolean isEmpty)
+            throws SAXException {
+        final ContentHandler handler = getContentHandler();
 
-        switch (this.currentState) {
-            case BEFORE_DOC_STATE:
-                if (event == Event.START_DOCUMENT_EVENT) {
-                    this.currentState = State.BEFORE_ROOT_STATE;
+        try {
+            this.emitter.setStreamAttributes(this.streamAttributes && handler == null);
+            if (name == null) {
+                if (isEmpty) {
+                    this.emitter.emptyElement(uri, localName, qName);
                 } else {
-                    invalidEvent = true;
-                }
-                break;
-            case BEFORE_ROOT_STATE:
-                switch (event) {
-                    case INLINE_REF_EVENT, BLOCK_REF_EVENT, CHARACTERS_EVENT, COMMENT_EVENT, NEWLINE_EVENT, PI_EVENT:
-                        break;
-                    case START_ELEMENT_EVENT:
-                        this.currentState = State.IN_START_TAG_STATE;
-                        break;
-                    case START_DTD_EVENT:
-                        this.currentState = State.IN_DTD_STATE;
-                        break;
-                    case END_DOCUMENT_EVENT:
-                        this.currentState = State.AFTER_DOC_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case IN_START_TAG_STATE:
-                switch (event) {
-                    case ATTRIBUTE_EVENT:
-                        break;
-                    case INLINE_REF_EVENT, CHARACTERS_EVENT:
-                        writeStartElement(false);
-                        this.currentState = State.AFTER_DATA_STATE;
-                        break;
-                    case NEWLINE_EVENT, PI_EVENT, BLOCK_REF_EVENT, COMMENT_EVENT:
-                        writeStartElement(false);
-                        this.currentState = State.AFTER_TAG_STATE;
-                        break;
-                    case START_ELEMENT_EVENT:
-                        writeStartElement(false);
-                        this.currentState = State.IN_START_TAG_STATE;
-                        break;
-                    case END_ELEMENT_EVENT: {
-                        final Element element = topElement();
-                        writeStartElement(this.minimize);
-                        if (element.isEmpty || !this.minimize) {
-                            writeEndElement();
-                        }
-                        this.currentState = (getElementLevel() == 0) ? State.AFTER_ROOT_STATE : State.AFTER_TAG_STATE;
-                        break;
-                    }
-                    case START_CDATA_EVENT:
-                        writeStartElement(false);
-                        this.currentState = State.IN_CDATA_STATE;
-                        break;
-                    case END_DOCUMENT_EVENT:
-                        writeStartElement(this.minimize);
-                        if (!this.minimize) {
-                            writeEndElement();
-                        }
-                        this.currentState = State.AFTER_DOC_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case IN_CDATA_STATE:
-                switch (event) {
-                    case INLINE_REF_EVENT, BLOCK_REF_EVENT, CHARACTERS_EVENT, COMMENT_EVENT, NEWLINE_EVENT:
-                        break;
-                    case END_CDATA_EVENT:
-                        this.currentState = State.AFTER_DATA_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case IN_DTD_STATE:
-                switch (event) {
-                    case CHARACTERS_EVENT, COMMENT_EVENT, NEWLINE_EVENT:
-                        break;
-                    case END_DTD_EVENT:
-                        this.currentState = State.BEFORE_ROOT_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case AFTER_TAG_STATE:
-                switch (event) {
-                    case INLINE_REF_EVENT, CHARACTERS_EVENT:
-                        this.currentState = State.AFTER_DATA_STATE;
-                        break;
-                    case BLOCK_REF_EVENT, COMMENT_EVENT, NEWLINE_EVENT, PI_EVENT:
-                        break;
-                    case START_CDATA_EVENT:
-                        this.currentState = State.IN_CDATA_STATE;
-                        break;
-                    case START_ELEMENT_EVENT:
-                        this.currentState = State.IN_START_TAG_STATE;
-                        break;
-                    case END_ELEMENT_EVENT:
-                        writeEndElement();
-                        this.currentState = (getElementLevel() == 0) ? State.AFTER_ROOT_STATE : State.AFTER_TAG_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case AFTER_DATA_STATE:
-                switch (event) {
-                    case INLINE_REF_EVENT, BLOCK_REF_EVENT, CHARACTERS_EVENT, COMMENT_EVENT, NEWLINE_EVENT, PI_EVENT:
-                        break;
-                    case START_CDATA_EVENT:
-                        this.currentState = State.IN_CDATA_STATE;
-                        break;
-                    case START_ELEMENT_EVENT:
-                        this.currentState = State.IN_START_TAG_STATE;
-                        break;
-                    case END_ELEMENT_EVENT:
-                        writeEndElement();
-                        this.currentState = (getElementLevel() == 0) ? State.AFTER_ROOT_STATE : State.AFTER_TAG_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case AFTER_ROOT_STATE:
-                switch (event) {
-                    case INLINE_REF_EVENT, BLOCK_REF_EVENT, CHARACTERS_EVENT, COMMENT_EVENT, NEWLINE_EVENT, PI_EVENT:
-                        break;
-                    case END_DOCUMENT_EVENT:
-                        this.currentState = State.AFTER_DOC_STATE;
-                        break;
-                    default:
-                        invalidEvent = true;
-                        break;
-                }
-                break;
-            case AFTER_DOC_STATE:
-                invalidEvent = true;
-                break;
-            default:
-                throw new SAXException("Unrecognized state: " + this.currentState);
-        }
-
-        if (invalidEvent) {
-            throw new SAXException("Event " + event + " not allowed in state " + this.currentState);
-        }
-
-        return previousState;
-    }
-
-    /**
-     * Returns the top element on the stack.
-     *
-     * @return Top element on the element stack.
-     */
-    private Element topElement() {
-        return this.elementStack.peek();
-    }
-
-    /**
-     * Returns the element nesting depth.
-     *
-     * @return The depth of element nesting. Zero is the level outside the root element.
-     */
-    private int getElementLevel() {
-        return this.elementStack.depth();
-    }
-
-    /**
-     * Determines a namespace prefix for the specified namespace URI.
-     *
-     * @param uri Namespace URI for which a prefix is to be determined
-     * @param qName A qualified name to be used as a template to help determine a namespace prefix. Specifying a
-     *         qualified name does not guarantee that its prefix will be used. Specify {@code null} or the empty string
-     *         if a qualified name is not available.
-     * @param isElement Specify {@code true} if the prefix is for use on an element. Specify {@code false} if the
-     *         prefix is for use on an attribute.
-     * @return The prefix for the specified namespace. The method will never return null.
-     */
-    private String findNSPrefix(final String uri, @Nullable final String qName, final boolean isElement) {
-        final String defaultNS = this.nsSupport.getURI(XMLConstants.DEFAULT_NS_PREFIX);
-        final boolean haveDefaultNS = (defaultNS != null);
-        final boolean isAttribute = !isElement;
-
-        /*
-         * If no namespace URI has been specified assume there is no prefix.
-         */
-        if (XMLConstants.NULL_NS_URI.equals(uri)) {
-            return XMLConstants.DEFAULT_NS_PREFIX;
-        }
-
-        /*
-         * If the namespace is for an element and the specified URI is
-         * the default namespace URI, return the default prefix (i.e. "").
-         * Otherwise, try to get the prefix corresponding to the specified URI.
-         */
-        if (isElement && haveDefaultNS && uri.equals(defaultNS)) {
-            return XMLConstants.DEFAULT_NS_PREFIX;
-        }
-
-        String prefix = this.nsSupport.getPrefix(uri);
-
-        if (prefix != null) {
-            return prefix;
-        }
-
-        /*
-         * If we get this far, try to obtain the prefix from the table of
-         * previously declared namespaces. If a prefix is obtained from the
-         * declaration map, it must be checked to see if it can be used. If
-         * the prefix is the empty string, it cannot be used for an attribute
-         * or if a default namespace is in effect for the context. Further, the
-         * prefix cannot be used if it is already in use by another namespace URI.
-         */
-        prefix = this.nsDeclMap.get(uri);
-        if (prefix != null && (((isAttribute || haveDefaultNS) && XMLConstants.DEFAULT_NS_PREFIX.equals(prefix))
-                || nsPrefixInUse(prefix))) {
-            prefix = null;
-        }
-
-        /*
-         * If we did not obtain a prefix from the previously declared namespaces,
-         * try to get one from the prefix mappings defined by the user through
-         * calls to addNSPrefix. As before, if the prefix is the empty string, it
-         * cannot be used for an attribute or if a default namespace is in effect
-         * for the context. Further, the prefix cannot be used if it is already
-         * in use by another namespace URI.
-         */
-        if (prefix == null) {
-            prefix = this.nsPrefixMap.get(uri);
-            if (prefix != null && (((isAttribute || haveDefaultNS) && XMLConstants.DEFAULT_NS_PREFIX.equals(prefix))
-                    || nsPrefixInUse(prefix))) {
-                prefix = null;
-            }
-        }
-
-        /*
-         * If we still don't have a prefix try to get one off the qualified
-         * name, if one has been specified.
-         */
-        if (prefix == null && qName != null && !qName.isEmpty()) {
-            final int i = qName.indexOf(':');
-            if (i == -1) {
-                if (isElement && !haveDefaultNS) {
-                    prefix = XMLConstants.DEFAULT_NS_PREFIX;
+                    this.emitter.startElement(uri, localName, qName);
                 }
+            } else if (isEmpty) {
+                this.emitter.emptyElement(name);
             } else {
-                prefix = qName.substring(0, i);
+                this.emitter.startElement(name);
             }
+            addEmitterAttributes(attrs);
+        } catch (final IOException | IllegalStateException ex) {
+            throw new SAXException(ex);
         }
 
-        /*
-         * As a last resort, synthesize a namespace prefix that is guaranteed
-         * not to be in use.
-         */
-        if (prefix == null) {
-            prefix = createNSPrefix();
-        }
-
-        /*
-         * Before returning the prefix to the caller, register it with the
-         * namespace context and with our map of declared namespaces.
-         */
-        this.nsSupport.declarePrefix(prefix, uri);
-        this.nsDeclMap.put(uri, prefix);
-
-        return prefix;
-    }
-
-    /**
-     * Indicates whether the specified namespace is in use.
-     *
-     * @param prefix Namespace prefix to test
-     * @return {@code true} if the namespace prefix is not in use in the current namespace context.
-     */
-    private boolean nsPrefixInUse(final String prefix) {
-        return this.nsSupport.getURI(prefix) != null;
-    }
-
-    /**
-     * Creates a namespace prefix.
-     *
-     * @return A synthesized namespace prefix and ensures that it is not already in use in the current namespace context.
-     */
-    private String createNSPrefix() {
-        String prefix;
-
-        do {
-            prefix = SYNTH_NS_PREFIX + (++this.nsPrefixCounter);
-        } while (nsPrefixInUse(prefix));
-
-        return prefix;
-    }
-
-    /**
-     * Force all namespaces that were specified in calls to the {@link #addNSRootDecl(String) addNSRootDecl} methods
-     * to be declared. This method is called when the root element is started to ensure that the pre-declared
-     * namespaces all appear on that element.
-     */
-    private void setNSRootDecls() {
-        for (final String uri : this.nsRootDeclSet) {
-            findNSPrefix(uri, null, true);
-        }
-    }
-
-    /**
-     * Write a start tag and handle the case where the element is empty.
-     *
-     * @param isEmpty {@code true} to write start element as if it were empty
-     * @throws SAXException If there is a problem writing the tag.
-     */
-    private void writeStartElement(final boolean isEmpty) throws SAXException {
-        final Element element = topElement();
-
-        if (this.prettyPrint && (element.containingState != State.AFTER_DATA_STATE) && (getElementLevel() > 1)) {
-            writeNewline();
-            writeIndent();
-        }
-
-        writeRaw('<');
-        writeName(element.uri, element.localName, element.qName, true);
-        writeAttributes(element.attrs);
-        final int numDecls = writeNSDecls();
-        if (this.attrPerLine && ((element.attrs.getLength() + numDecls) > 0)) {
-            writeNewline();
-            writeIndent();
-        }
-        writeRaw((element.isEmpty || isEmpty) ? "/>" : ">");
-
-        /*
-         * If this is an empty tag, act like an end tag has been specified.
-         */
-        if (element.isEmpty || isEmpty) {
-            closeElement(element);
+        if (handler != null) {
+            handler.startElement(uri, localName, qName, attrs);
+            if (isEmpty) {
+                handler.endElement(uri, localName, qName);
+            }
         }
-    }
-
-    /**
-     * Writes an end tag.
-     *
-     * @throws SAXException If there is a problem writing the tag.
-     */
-    private void writeEndElement() throws SAXException {
-        final Element element = topElement();
 
-        if (this.prettyPrint && this.currentState != State.AFTER_DATA_STATE) {
-            writeNewline();
-            writeIndent();
+        if (!isEmpty && this.emitter.getStreamMode() && this.emitter.getElementLevel() == 1) {
+            flush();
         }
-        writeRaw("</");
-        writeName(element.uri, element.localName, element.qName, true);
-        writeRaw('>');
-
-        closeElement(element);
-    }
-
-    /**
-     * Performs cleanup when an element ends either due to an explicit call to endElement or because the
-     * element is empty.
-     *
-     * @param element Element to close
-     * @throws SAXException If there is a problem closing the element.
-     */
-    private void closeElement(final Element element) throws SAXException {
-        this.elementStack.pop();
-        this.nsSupport.popContext();
-
-        super.endElement(element.uri, element.localName, element.qName);
     }
 
     /**
-     * Write out an attribute list, quoting and escaping values. The names will have namespace prefixes added
-     * to them as appropriate. The attributes will be written all on one line or on separate lines depending on
-     * the attrPerLine flag.
+     * Adds SAX attributes to the current start tag in the emitter. Attributes that are not specified are skipped if
+     * only specified attributes are to be written.
      *
-     * @param attrs The attribute list to write.
-     * @throws SAXException If there is an error writing the attribute list, this method will throw an
-     *         IOException wrapped in a SAXException.
+     * @param attrs Attributes to add
+     * @throws IOException If there is a problem writing a streamed attribute.
      */
-    private void writeAttributes(final Attributes2 attrs) throws SAXException {
+    private void addEmitterAttributes(final Attributes attrs) throws IOException {
+        final Attributes2 attrs2 = (this.specifiedAttr && attrs instanceof final Attributes2 a2) ? a2 : null;
         final int len = attrs.getLength();
 
         for (int i = 0; i < len; i++) {
-            if (!this.specifiedAttr || attrs.isSpecified(i)) {
-                if (this.attrPerLine) {
-                    writeNewline();
-                    writeIndent();
-                    writeRaw(this.indentStr);
-                } else {
-                    writeRaw(' ');
-                }
-                writeName(attrs.getURI(i), attrs.getLocalName(i),
-                          attrs.getQName(i), false);
-                writeRaw('=');
-                final String attrValue = attrs.getValue(i);
-                writeQuoted((attrValue == null) ? EMPTY_STR : attrValue);
+            if (attrs2 == null || attrs2.isSpecified(i)) {
+                this.emitter.addAttribute(attrs.getURI(i), attrs.getLocalName(i), attrs.getQName(i),
+                                          attrs.getValue(i));
             }
         }
     }
-
-    /**
-     * Writes an entity declaration in the DTD internal subset.
-     *
-     * @param decl Entity to declare
-     * @throws SAXException If there is a problem writing the declaration.
-     */
-    private void writeEntityDecl(final Entity decl) throws SAXException {
-        writeRaw("<!ENTITY ");
-        writeRaw(decl.name);
-
-        if (decl.value != null) {
-            writeRaw(" \"");
-            writeRaw(decl.value);
-            writeRaw('"');
-        } else {
-            if (decl.publicId != null) {
-                writeRaw(" PUBLIC \"");
-                writeRaw(decl.publicId);
-                writeRaw("\" \"");
-                writeRaw(decl.systemId == null ? "" : decl.systemId);
-                writeRaw('"');
-            } else {
-                writeRaw(" SYSTEM \"");
-                writeRaw(decl.systemId == null ? "" : decl.systemId);
-                writeRaw('"');
-            }
-
-            if (decl.notationName != null) {
-                writeRaw(" NDATA ");
-                writeRaw(decl.notationName);
-            }
-        }
-        writeRaw('>');
-    }
-
-    /**
-     * Write a notation declaration in the DTD internal subset.
-     *
-     * @param decl Notation to declare
-     * @throws SAXException If there is a problem writing the declaration.
-     */
-    private void writeNotationDecl(final Notation decl) throws SAXException {
-        writeRaw("<!NOTATION ");
-        writeRaw(decl.name);
-        if (decl.publicId != null && decl.systemId != null) {
-            writeRaw(" PUBLIC \"");
-            writeRaw(decl.publicId);
-            writeRaw("\" \"");
-            writeRaw(decl.systemId);
-            writeRaw('"');
-        } else if (decl.publicId != null) {
-            writeRaw(" PUBLIC \"");
-            writeRaw(decl.publicId);
-            writeRaw('"');
-        } else if (decl.systemId != null) {
-            writeRaw(" SYSTEM \"");
-            writeRaw(decl.systemId);
-            writeRaw('"');
-        }
-        writeRaw('>');
-    }
-
-    /**
-     * Write an element or attribute name.
-     *
-     * @param uri The namespace URI.
-     * @param localName The local name.
-     * @param qName The prefixed name, if available, or the empty string.
-     * @param isElement {@code true} if this is an element name, {@code false} if it is an attribute name.
-     * @throws SAXException This method will throw an IOException wrapped in a SAXException if there is an
-     *         error writing the name.
-     */
-    private void writeName(final String uri, final String localName, final String qName, final boolean isElement)
-            throws SAXException {
-        final String prefix = findNSPrefix(uri, qName, isElement);
-        if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-            writeRaw(prefix);
-            writeRaw(':');
-        }
-        if (localName.isEmpty()) {
-            writeRaw(qName);
-        } else {
-            writeRaw(localName);
-        }
-    }
-
-    /**
-     * Writes the namespace declarations for the current namespace context.
-     *
-     * @return Number of namespace declaration attributes written
-     * @throws SAXException If there is a problem writing the namespaces.
-     */
-    private int writeNSDecls() throws SAXException {
-        // Since the iteration order for namespaces is not stable, sort them.
-        final List<String> prefixes = Collections.list(this.nsSupport.getDeclaredPrefixes());
-        prefixes.sort(String::compareTo);
-
-        int numAttrs = 0;
-        for (final String prefix : prefixes) {
-            if (this.attrPerLine) {
-                writeNewline();
-                writeIndent();
-                writeRaw(this.indentStr);
-            } else {
-                writeRaw(' ');
-            }
-
-            writeRaw(XMLConstants.XMLNS_ATTRIBUTE);
-            if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-                writeRaw(':');
-                writeRaw(prefix);
-            }
-            writeRaw('=');
-
-            final String uri = this.nsSupport.getURI(prefix);
-            writeQuoted((uri == null) ? XMLConstants.NULL_NS_URI : uri);
-            numAttrs++;
-        }
-
-        return numAttrs;
-    }
-
-    /**
-     * Writes a newline to the output.
-     *
-     * @throws SAXException If there is an error writing the newline character. The SAXException wraps an IOException.
-     */
-    private void writeNewline() throws SAXException {
-        try {
-            this.out.write(System.lineSeparator());
-        } catch (final IOException ex) {
-            throw new SAXException(ex);
-        }
-    }
-
-    /**
-     * Indents the output based on the element nesting level.
-     *
-     * @throws SAXException If there is a problem writing the indent.
-     */
-    private void writeIndent() throws SAXException {
-        writeIndent(0);
-    }
-
-    /**
-     * Indents the output based on the element nesting level plus the specified level.
-     *
-     * @param levelAdjust Add or subtract from the current level for indentation purposes only.
-     * @throws SAXException If there is a problem writing the indent.
-     */
-    private void writeIndent(final int levelAdjust) throws SAXException {
-        if (this.haveOffsetStr) {
-            writeRaw(this.offsetStr);
-        }
-
-        final int level = getElementLevel() - 1 + levelAdjust;
-        writeRaw(this.indentStr.repeat(level));
-    }
-
-    /**
-     * Indicates whether the specified character array contains any single or double quote characters.
-     *
-     * @param carr Character array to test
-     * @param start Starting index in the array
-     * @param length Number of characters in the array to test
-     * @return {@code true} if the specified character array contains one or more single or double quote characters.
-     */
-    private static boolean containsQuotes(final char[] carr, final int start, final int length) {
-        int end = start + length;
-        while (--end >= start) {
-            final char c = carr[end];
-            if (c == '"' || c == '\'') {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Write the specified string to the output as an escaped string surrounded by double quotes. In addition to the
-     * traditional character escapes, double quotes embedded in the string are also escaped.
-     *
-     * @param s String to write
-     * @throws SAXException If there is an error writing the string. The SAXException wraps an IOException.
-     */
-    @AccessForTesting
-    void writeQuoted(final String s) throws SAXException {
-        writeQuoted(s.toCharArray(), 0, s.length());
-    }
-
-    /**
-     * Write the specified character array to the output as an escaped string surrounded by double quotes.
-     * In addition to the traditional character escapes, double quotes embedded in the string are also escaped.
-     *
-     * @param carr Character array to write
-     * @param start Starting index in the array
-     * @param length Number of characters to write
-     * @throws SAXException If there is an error writing the characters. The SAXException wraps an IOException.
-     */
-    @AccessForTesting
-    void writeQuoted(final char[] carr, final int start, final int length) throws SAXException {
-        writeRaw('"');
-        writeEscaped(carr, start, length);
-        writeRaw('"');
-    }
-
-    /**
-     * Writes the specified character array to the output escaping the '&amp;', '&lt;', and '&gt;' characters using
-     * the standard XML escape sequences and escaping any character above the ASCII range using a numeric character
-     * reference.
-     *
-     * @param carr Character array to write
-     * @param start Starting index in the array
-     * @param length Number of characters to write
-     * @throws SAXException If there is an error writing the characters. The SAXException wraps an IOException.
-     */
-    @AccessForTesting
-    void writeEscaped(final char[] carr, final int start, final int length) throws SAXException {
-        try {
-            XmlEscaper.escape(carr, start, length, this.out, this.escapeOptions);
-        } catch (final IOException ex) {
-            throw new SAXException(ex);
-        }
-    }
-
-    /**
-     * Writes the specified string to the output without escaping.
-     *
-     * @param s String to write
-     * @throws SAXException If there is an error writing the string. The SAXException wraps an IOException.
-     */
-    @AccessForTesting
-    void writeRaw(final String s) throws SAXException {
-        try {
-            this.out.write(s);
-        } catch (final IOException ex) {
-            throw new SAXException(ex);
-        }
-    }
-
-    /**
-     * Writes the specified character array to the output without escaping.
-     *
-     * @param carr Character array to write
-     * @param start Starting index in the array
-     * @param length Number of characters to write
-     * @throws SAXException If there is an error writing the characters. The SAXException wraps an IOException.
-     */
-    @AccessForTesting
-    void writeRaw(final char[] carr, final int start, final int length) throws SAXException {
-        try {
-            this.out.write(carr, start, length);
-        } catch (final IOException ex) {
-            throw new SAXException(ex);
-        }
-    }
-
-    /**
-     * Writes the specified character to the output without escaping.
-     *
-     * @param c Character to write
-     * @throws SAXException If there is an error writing the character. The SAXException wraps an IOException.
-     */
-    @AccessForTesting
-    void writeRaw(final char c) throws SAXException {
-        try {
-            this.out.write(c);
-        } catch (final IOException ex) {
-            throw new SAXException(ex);
-        }
-    }
 }
@@ -4,9 +4,15 @@
  */
 package org.cthing.xmlwriter;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Stream;
@@ -17,6 +23,8 @@ import javax.xml.parsers.SAXParserFactory;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import org.cthing.xmlwriter.core.FlushPolicy;
+import org.cthing.xmlwriter.core.XmlName;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -30,6 +38,9 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.AttributesImpl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 
 @SuppressWarnings({ "HttpUrlsUsage", "UnnecessaryUnicodeEscape" })
@@ -46,92 +57,220 @@ class XmlWriterTest {
 
 
     @Test
-    @DisplayName("Write a string without any processing")
-    void testWriteRawString() throws Exception {
-        final String testString = "Hello &<>\" World\u00A9\n";
+    @DisplayName("Flush after each child of the root element")
+    void testFlushPolicyDepth() throws Exception {
+        this.xmlWriter.setFlushPolicy(FlushPolicy.atDepth(2));
+        this.xmlWriter.startDocument("UTF-8", true, true);
+        this.xmlWriter.startElement("root");
+        this.xmlWriter.startElement("record");
+        this.xmlWriter.emptyElement("field");
+        this.xmlWriter.characters("text");
+        assertThat(this.stringWriter).hasToString("");
 
-        this.xmlWriter.writeRaw(testString);
+        this.xmlWriter.endElement();
+        assertThat(this.stringWriter).hasToString("<root><record><field/>text</record>");
 
-        assertThat(this.stringWriter).hasToString(testString);
+        this.xmlWriter.startElement("record");
+        this.xmlWriter.endElement();
+        assertThat(this.stringWriter).hasToString("<root><record><field/>text</record><record/>");
     }
 
     @Test
-    @DisplayName("Write an array without any processing")
-    void testWriteRawArray() throws Exception {
-        final String testString = "Hello &<>\" World\u00A9\n";
-
-        this.xmlWriter.writeRaw(testString.toCharArray(), 0, testString.length());
-
-        assertThat(this.stringWriter).hasToString(testString);
+    @DisplayName("Flush based on the amount of output")
+    void testFlushPolicyChars() throws Exception {
+        this.xmlWriter.setFlushPolicy(FlushPolicy.everyChars(10));
+        this.xmlWriter.startDocument("UTF-8", true, true);
+        this.xmlWriter.startElement("root");
+        this.xmlWriter.characters("abc");
+        assertThat(this.stringWriter).hasToString("");
+
+        this.xmlWriter.characters("defg");
+        assertThat(this.stringWriter).hasToString("<root>abcdefg");
+
+        this.xmlWriter.characters("hij");
+        assertThat(this.stringWriter).hasToString("<root>abcdefg");
     }
 
     @Test
-    @DisplayName("Write a character without any processing")
-    void testWriteRawChar() throws Exception {
-        final String testString = "a";
+    @DisplayName("Flush based on the age of the output")
+    void testFlushPolicyAge() throws Exception {
+        this.xmlWriter.setFlushPolicy(FlushPolicy.maxAge(Duration.ofHours(1)).or(FlushPolicy.maxAge(Duration.ofNanos(1))));
+        this.xmlWriter.startDocument("UTF-8", true, true);
+        this.xmlWriter.startElement("root");
+        Thread.sleep(1);
+        this.xmlWriter.characters("abc");
+        assertThat(this.stringWriter).hasToString("<root>abc");
+    }
 
-        this.xmlWriter.writeRaw(testString.charAt(0));
+    @Test
+    @DisplayName("Elements nested deeper than the initial element stack capacity")
+    void testDeepNesting() throws Exception {
+        final StringBuilder expected = new StringBuilder();
+        this.xmlWriter.startDocument("UTF-8", true, true);
+        for (int i = 0; i < 50; i++) {
+            this.xmlWriter.startElement("e" + i);
+            this.xmlWriter.addAttribute("a", String.valueOf(i));
+            expected.append("<e").append(i).append(" a=\"").append(i).append((i == 49) ? "\"/>" : "\">");
+        }
+        for (int i = 49; i >= 0; i--) {
+            this.xmlWriter.endElement();
+            if (i < 49) {
+                expected.append("</e").append(i).append('>');
+            }
+        }
+        this.xmlWriter.endDocument();
 
-        assertThat(this.stringWriter).hasToString(testString);
+        assertThat(this.stringWriter).hasToString(expected.append('\n').toString());
     }
 
     @Test
-    @DisplayName("Write an array with escaping")
-    void testWriteEscapedArray() throws Exception {
-        final String testStringIn = "<Hello &<>\" World\u00A9\u001A\uFFFE\uD83D\uDE03\t\n";
-        final String testStringOut = "&lt;Hello &amp;&lt;&gt;&quot; World\u00A9\uD83D\uDE03\t\n";
+    @DisplayName("Stream mode writes the root start tag and each child immediately")
+    void testStreamMode() throws Exception {
+        final AttributesImpl attrs = new AttributesImpl();
+        attrs.addAttribute("", "to", "to", "CDATA", "example.com");
+        this.xmlWriter.setStreamMode(true);
+        assertThat(this.xmlWriter.getStreamMode()).isTrue();
+
+        this.xmlWriter.startDocument("UTF-8", true, true);
+        this.xmlWriter.startElement("stream", attrs);
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\">");
+
+        this.xmlWriter.startElement("message");
+        this.xmlWriter.startElement("body");
+        this.xmlWriter.characters("Hello");
+        this.xmlWriter.endElement();
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\">");
+        this.xmlWriter.endElement();
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\"><message><body>Hello</body></message>");
 
-        this.xmlWriter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.xmlWriter.characters(" ");
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\"><message><body>Hello</body></message> ");
 
-        assertThat(this.stringWriter).hasToString(testStringOut);
+        this.xmlWriter.emptyElement("presence");
+        this.xmlWriter.endElement();
+        this.xmlWriter.endDocument();
+        assertThat(this.stringWriter).hasToString("<stream to=\"example.com\"><message><body>Hello</body></message> "
+                                                          + "<presence/></stream>\n");
     }
 
     @Test
-    @DisplayName("Write an array with escaping")
-    void testWriteEscapedArrayNonAscii() throws Exception {
-        final String testStringIn = "<Hello &<>\" World\u00A9\u001A\uFFFE\uD83D\uDE03\t\n";
-        final String testStringOut = "&lt;Hello &amp;&lt;&gt;&quot; World&#xA9;&#x1F603;\t\n";
+    @DisplayName("Stream mode does not allow attributes to be added to the root element")
+    void testStreamModeRootAttribute() throws Exception {
+        this.xmlWriter.setStreamMode(true);
+        this.xmlWriter.startDocument("UTF-8", true, true);
+        this.xmlWriter.startElement("stream");
+        assertThatExceptionOfType(SAXException.class).isThrownBy(() -> this.xmlWriter.addAttribute("to", "example.com"));
+    }
 
-        this.xmlWriter.setEscapeNonAscii(true);
-        this.xmlWriter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+    @Test
+    @DisplayName("Each event is forwarded once to the next handler in the filter chain")
+    void testForwarding() throws Exception {
+        final StringWriter downstream = new StringWriter();
+        this.xmlWriter.setContentHandler(new XmlWriter(downstream));
 
-        assertThat(this.stringWriter).hasToString(testStringOut);
+        this.xmlWriter.startDocument();
+        this.xmlWriter.startElement("root", new XmlAttributes("a", "1"));
+        this.xmlWriter.emptyElement("child");
+        this.xmlWriter.characters("text");
+        this.xmlWriter.endElement();
+        this.xmlWriter.endDocument();
+
+        assertThat(this.stringWriter).hasToString("""
+                <?xml version="1.0" standalone="yes"?>
+                <root a="1"><child/>text</root>
+                """);
+        assertThat(downstream).hasToString(this.stringWriter.toString());
     }
 
     @Test
-    @DisplayName("Write an array with escaping")
-    void testWriteEscapedArrayNonAsciiDecimal() throws Exception {
-        final String testStringIn = "<Hello &<>\" World\u00A9\u001A\uFFFE\uD83D\uDE03\t\n";
-        final String testStringOut = "&lt;Hello &amp;&lt;&gt;&quot; World&#169;&#128515;\t\n";
+    @DisplayName("Streaming attributes produces the same output as buffered attributes")
+    void testStreamAttributes() throws Exception {
+        final StringWriter expected = new StringWriter();
+        writeAttributeDocument(new XmlWriter(expected));
+
+        this.xmlWriter.setStreamAttributes(true);
+        assertThat(this.xmlWriter.getStreamAttributes()).isTrue();
+        writeAttributeDocument(this.xmlWriter);
 
-        this.xmlWriter.setEscapeNonAscii(true);
-        this.xmlWriter.setUseDecimal(true);
-        this.xmlWriter.writeEscaped(testStringIn.toCharArray(), 0, testStringIn.length());
+        assertThat(this.stringWriter).hasToString(expected.toString());
+    }
 
-        assertThat(this.stringWriter).hasToString(testStringOut);
+    private static void writeAttributeDocument(final XmlWriter writer) throws Exception {
+        writer.setPrettyPrint(true);
+        writer.startDocument();
+        writer.startElement("urn:root", "root", "r:root", new XmlAttributes("a", "1", "b", "<2>"));
+        writer.addAttribute("urn:attr", "c", "", "CDATA", "3");
+        writer.startElement("child");
+        writer.addAttributes(new XmlAttributes("d", "4"));
+        writer.emptyElement("empty", new XmlAttributes("e", "5"));
+        writer.addAttribute("f", "6");
+        writer.characters("text");
+        writer.endElement();
+        writer.endElement();
+        writer.endDocument();
     }
 
     @Test
-    @DisplayName("Write a string adding quotes")
-    void testWriteQuotedString() throws Exception {
-        final String testStringIn = "Hello &<>\"' World\u00A9";
-        final String testStringOut = "\"Hello &amp;&lt;&gt;&quot;&apos; World\u00A9\"";
+    @DisplayName("Streaming attributes rejects duplicate and replaced attributes")
+    void testStreamAttributesErrors() throws Exception {
+        this.xmlWriter.setStreamAttributes(true);
+        this.xmlWriter.startDocument();
+        this.xmlWriter.startElement("root", new XmlAttributes("a", "1"));
+        this.xmlWriter.addAttribute("b", "2");
+        this.xmlWriter.addAttribute("urn:test", "a", "", "CDATA", "3");
+        assertThatExceptionOfType(SAXException.class).isThrownBy(() -> this.xmlWriter.addAttribute("a", "4"));
+        assertThatExceptionOfType(SAXException.class).isThrownBy(() -> this.xmlWriter.addAttribute("b", "5"));
+        assertThatExceptionOfType(SAXException.class)
+                .isThrownBy(() -> this.xmlWriter.setAttributes(new XmlAttributes("c", "6")));
+    }
 
-        this.xmlWriter.writeQuoted(testStringIn);
+    @Test
+    @DisplayName("Unchecked mode")
+    void testUnchecked() throws Exception {
+        assertThat(this.xmlWriter.getUnchecked()).isFalse();
+        this.xmlWriter.setUnchecked(true);
+        assertThat(this.xmlWriter.getUnchecked()).isTrue();
+        this.xmlWriter.setStreamAttributes(true);
+
+        this.xmlWriter.startDocument();
+        this.xmlWriter.startElement("root");
+        this.xmlWriter.addAttribute("a", "1");
+        this.xmlWriter.addAttribute("a", "2");
+        this.xmlWriter.emptyElement("elem1");
+        this.xmlWriter.characters("abc");
+        this.xmlWriter.endElement();
+        this.xmlWriter.endDocument();
 
-        assertThat(this.stringWriter).hasToString(testStringOut);
+        assertThat(this.stringWriter).hasToString("""
+                <?xml version="1.0" standalone="yes"?>
+                <root a="1" a="2"><elem1/>abc</root>
+                """);
     }
 
     @Test
-    @DisplayName("Write an array adding quotes")
-    void testWriteQuotedArray() throws Exception {
-        final String testStringIn = "Hello &<>\"' World\u00A9";
-        final String testStringOut = "\"Hello &amp;&lt;&gt;&quot;&apos; World&#xA9;\"";
+    @DisplayName("Unchecked mode forced off")
+    void testUncheckedForcedOff() throws Exception {
+        System.setProperty(XmlWriter.FORCE_CHECKED_PROPERTY, "true");
+        try {
+            this.xmlWriter.setUnchecked(true);
+            assertThat(this.xmlWriter.getUnchecked()).isFalse();
+        } finally {
+            System.clearProperty(XmlWriter.FORCE_CHECKED_PROPERTY);
+        }
 
-        this.xmlWriter.setEscapeNonAscii(true);
-        this.xmlWriter.writeQuoted(testStringIn.toCharArray(), 0, testStringIn.length());
+        this.xmlWriter.startDocument();
+        this.xmlWriter.startElement("root");
+        this.xmlWriter.endElement();
+        assertThatExceptionOfType(SAXException.class).isThrownBy(() -> this.xmlWriter.endElement());
+    }
 
-        assertThat(this.stringWriter).hasToString(testStringOut);
+    @Test
+    @DisplayName("Invalid flush policies")
+    void testBadFlushPolicy() {
+        assertThat(this.xmlWriter.getFlushPolicy()).isNull();
+        assertThatIllegalArgumentException().isThrownBy(() -> FlushPolicy.everyChars(0));
+        assertThatIllegalArgumentException().isThrownBy(() -> FlushPolicy.atDepth(0));
+        assertThatIllegalArgumentException().isThrownBy(() -> FlushPolicy.maxAge(Duration.ZERO));
     }
 
     @ParameterizedTest
@@ -179,6 +318,37 @@ class XmlWriterTest {
         );
     }
 
+    @Test
+    @DisplayName("Write a document to an output stream")
+    void testOutputStream() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final XmlWriter writer = new XmlWriter(bytes);
+        writer.startDocument("UTF-8", true, false);
+        writer.startElement("elem1");
+        writer.addAttribute("a1", "\u00E9t\u00E9 & <hiver>");
+        writer.characters("\u20AC\uD83D\uDE03 \"quoted\"");
+        writer.endElement();
+        writer.endDocument();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <elem1 a1="\u00E9t\u00E9 &amp; &lt;hiver>">\u20AC\uD83D\uDE03 "quoted"</elem1>
+                """);
+    }
+
+    @Test
+    @DisplayName("Switch output to a stream")
+    void testSetOutputStream() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.xmlWriter.setOutput(bytes);
+        this.xmlWriter.startDocument(null, true, true);
+        this.xmlWriter.emptyElement("elem1");
+        this.xmlWriter.endDocument();
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8)).isEqualTo("<elem1/>" + System.lineSeparator());
+        assertThat(this.stringWriter).hasToString("");
+    }
+
     @Test
     @DisplayName("Write document with elements not minimized")
     void testSimpleElementsPlain() throws Exception {
@@ -768,6 +938,59 @@ class XmlWriterTest {
                                                         """);
     }
 
+    @Test
+    @DisplayName("Elements and attributes with precompiled names")
+    void testXmlNames() throws Exception {
+        this.xmlWriter.setPrettyPrint(true);
+
+        final XmlName elem0 = new XmlName("elem0");
+        final XmlName elem1 = new XmlName("https://www.adobe.com/test1", "elem1");
+        final XmlName elem2 = new XmlName("https://www.adobe.com/test2", "elem2", "t2:elem2");
+        final XmlName attr1 = new XmlName("a1");
+        final XmlName attr2 = new XmlName("https://www.adobe.com/at1", "a2");
+
+        this.xmlWriter.startDocument();
+        this.xmlWriter.startElement(elem0);
+        this.xmlWriter.addAttribute(attr1, "v1");
+        for (int i = 0; i < 2; i++) {
+            this.xmlWriter.startElement(elem1);
+            this.xmlWriter.addAttribute(attr2, i);
+            this.xmlWriter.emptyElement(elem2);
+            this.xmlWriter.emptyElement(elem1);
+            this.xmlWriter.endElement();
+        }
+        this.xmlWriter.endElement();
+        this.xmlWriter.endDocument();
+
+        assertThat(this.stringWriter).hasToString("""
+            <?xml version="1.0" standalone="yes"?>
+            <elem0 a1="v1">
+                <__NS1:elem1 __NS2:a2="0" xmlns:__NS1="https://www.adobe.com/test1" xmlns:__NS2="https://www.adobe.com/at1">
+                    <t2:elem2 xmlns:t2="https://www.adobe.com/test2"/>
+                    <__NS1:elem1/>
+                </__NS1:elem1>
+                <__NS1:elem1 __NS2:a2="1" xmlns:__NS1="https://www.adobe.com/test1" xmlns:__NS2="https://www.adobe.com/at1">
+                    <t2:elem2 xmlns:t2="https://www.adobe.com/test2"/>
+                    <__NS1:elem1/>
+                </__NS1:elem1>
+            </elem0>
+            """);
+
+        // The names must resolve the same way when shared with another writer.
+        final StringWriter writer = new StringWriter();
+        final XmlWriter other = new XmlWriter(writer);
+        other.addNSPrefix("t1", "https://www.adobe.com/test1");
+        other.startDocument();
+        other.startElement(elem1);
+        other.emptyElement(elem1);
+        other.endElement();
+        other.endDocument();
+        assertThat(writer).hasToString("""
+                <?xml version="1.0" standalone="yes"?>
+                <t1:elem1 xmlns:t1="https://www.adobe.com/test1"><t1:elem1/></t1:elem1>
+                """);
+    }
+
     @Test
     @DisplayName("Use as parsing filter without namespaces")
     void testFilterWithoutNamespaces() throws Exception {
@@ -895,6 +1118,40 @@ class XmlWriterTest {
         assertThat(writer).hasToString(xml);
     }
 
+    @Test
+    @DisplayName("Writing character data and comments from strings does not allocate")
+    void testStringsDoNotAllocate() throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocBean = (com.sun.management.ThreadMXBean)threadBean;
+        assumeTrue(allocBean.isThreadAllocatedMemorySupported() && allocBean.isThreadAllocatedMemoryEnabled());
+
+        final XmlWriter writer = new XmlWriter(OutputStream.nullOutputStream());
+        writeStrings(writer, 100);
+        writeStrings(writer, 100);
+
+        // The runtime occasionally allocates on the thread, so less than a byte per entry is allowed.
+        final int count = 10_000;
+        final long threadId = Thread.currentThread().getId();
+        final long start = allocBean.getThreadAllocatedBytes(threadId);
+        writeStrings(writer, count);
+        final long allocated = allocBean.getThreadAllocatedBytes(threadId) - start;
+
+        assertThat(allocated).isLessThan(count);
+    }
+
+    private static void writeStrings(final XmlWriter writer, final int count) throws SAXException {
+        writer.reset();
+        writer.startDocument(null, true, false);
+        writer.startElement("root");
+        for (int i = 0; i < count; i++) {
+            writer.characters("Hello & World");
+            writer.comment(" say \"hello\" ");
+        }
+        writer.endElement();
+        writer.endDocument();
+    }
+
     private XMLReader newXmlReader(final boolean namespaceAware, final boolean validating, final boolean useSchema)
             throws SAXException, ParserConfigurationException {
         final SAXParserFactory factory = SAXParserFactory.newInstance();